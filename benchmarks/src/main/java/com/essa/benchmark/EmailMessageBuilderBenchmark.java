@@ -0,0 +1,46 @@
+package com.essa.benchmark;
+
+import com.essa.util.builder.EmailMessageBuilder;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Composition cost of the assignment email and of the outbox digest for one busy assignee
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EmailMessageBuilderBenchmark {
+
+    private List<String> titles;
+
+    @Setup
+    public void setUp() {
+        titles = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            titles.add("VPN outage in building " + i);
+        }
+    }
+
+    @Benchmark
+    public String singleAssignment() {
+        return new EmailMessageBuilder()
+                .to("agent@example.com")
+                .ticketAssigned("VPN outage in building 7", "agent")
+                .priority("high")
+                .build();
+    }
+
+    @Benchmark
+    public String digestOfFifty() {
+        return new EmailMessageBuilder()
+                .to("agent@example.com")
+                .ticketsAssigned(titles, "agent")
+                .priority("high")
+                .build();
+    }
+}
@@ -0,0 +1,49 @@
+package com.essa.benchmark;
+
+import com.essa.util.singleton.FormatValidator;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+// Email/username checks run on every ticket creation. FormatValidator prints each result to stdout; the
+// forked JVM's stdout is discarded here, so the score includes formatting the line but not terminal I/O.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FormatValidatorBenchmark {
+
+    private FormatValidator validator;
+    private PrintStream originalOut;
+
+    @Setup
+    public void setUp() {
+        originalOut = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        validator = FormatValidator.getInstance();
+    }
+
+    @TearDown
+    public void tearDown() {
+        System.setOut(originalOut);
+    }
+
+    @Benchmark
+    public boolean validEmail() {
+        return validator.isValidEmail("first.last+tickets@support.example.com");
+    }
+
+    @Benchmark
+    public boolean invalidEmail() {
+        return validator.isValidEmail("first.last@@example");
+    }
+
+    @Benchmark
+    public boolean validUsername() {
+        return validator.isValidUsername("helpdesk_agent_42");
+    }
+}
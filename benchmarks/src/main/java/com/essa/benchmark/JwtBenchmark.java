@@ -0,0 +1,76 @@
+package com.essa.benchmark;
+
+import com.essa.security.JwtUtil;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+// Per-request JWT cost: the old filter path (key rebuilt, token parsed three times) vs JwtUtil.verify
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtBenchmark {
+
+    private static final String SECRET = "ThisIsAVerySecureSecretKeyThatShouldBeChangedInProduction";
+
+    private JwtUtil jwtUtil;
+    private UserDetails userDetails;
+    private String token;
+
+    @Setup
+    public void setUp() throws Exception {
+        jwtUtil = new JwtUtil();
+        var secretField = JwtUtil.class.getDeclaredField("secret");
+        secretField.setAccessible(true);
+        secretField.set(jwtUtil, SECRET);
+        var expField = JwtUtil.class.getDeclaredField("expiration");
+        expField.setAccessible(true);
+        expField.set(jwtUtil, 3_600_000L);
+
+        userDetails = User.withUsername("admin").password("x").authorities("ROLE_ADMIN").build();
+        token = jwtUtil.generateToken(userDetails);
+    }
+
+    @Benchmark
+    public void legacyFilterPath(Blackhole bh) {
+        // extractUsername, then validateToken -> extractUsername + isTokenExpired, each with a fresh key and parser
+        String username = legacyParse().getSubject();
+        boolean valid = legacyParse().getSubject().equals(userDetails.getUsername())
+                && !legacyParse().getExpiration().before(new Date());
+        bh.consume(username);
+        bh.consume(valid);
+    }
+
+    @Benchmark
+    public void singleParseVerify(Blackhole bh) {
+        bh.consume(jwtUtil.verify(token).getUsername());
+    }
+
+    @Benchmark
+    public Boolean validateToken() {
+        return jwtUtil.validateToken(token, userDetails);
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtUtil.generateToken(userDetails);
+    }
+
+    private Claims legacyParse() {
+        return Jwts.parserBuilder()
+                .setSigningKey(Keys.hmacShaKeyFor(SECRET.getBytes()))
+                .build()
+                .parseClaimsJws(token)
+                .getBody();
+    }
+}
@@ -0,0 +1,75 @@
+package com.essa.benchmark;
+
+import com.essa.dto.TicketDTO;
+import com.essa.dto.UserDTO;
+import com.essa.mapper.TicketMapper;
+import com.essa.mapper.UserMapper;
+import com.essa.model.Role;
+import com.essa.model.Ticket;
+import com.essa.model.TicketPriority;
+import com.essa.model.TicketStatus;
+import com.essa.model.User;
+import org.mapstruct.factory.Mappers;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Entity -> DTO mapping over list sizes the list and export endpoints actually return
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MapperBenchmark {
+
+    @Param({"100", "10000"})
+    private int size;
+
+    private final TicketMapper ticketMapper = Mappers.getMapper(TicketMapper.class);
+    private final UserMapper userMapper = Mappers.getMapper(UserMapper.class);
+    private List<Ticket> tickets;
+    private List<User> users;
+
+    @Setup
+    public void setUp() {
+        Role role = new Role();
+        role.setId(1L);
+        role.setName("AGENT");
+        users = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            User user = new User();
+            user.setId((long) i);
+            user.setUsername("agent" + i);
+            user.setFirstname("Agent");
+            user.setLastname("Number " + i);
+            user.setEmail("agent" + i + "@example.com");
+            user.setRole(role);
+            users.add(user);
+        }
+        tickets = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Ticket ticket = new Ticket();
+            ticket.setId((long) i);
+            ticket.setTitle("Ticket " + i);
+            ticket.setDescription("Printer on floor " + (i % 12) + " is out of toner");
+            ticket.setStatus(TicketStatus.values()[i % TicketStatus.values().length]);
+            ticket.setPriority(TicketPriority.values()[i % TicketPriority.values().length]);
+            ticket.setCreatedBy(users.get(i));
+            ticket.setAssignedTo(users.get((i + 1) % size));
+            tickets.add(ticket);
+        }
+    }
+
+    @Benchmark
+    public List<TicketDTO> ticketsToDTO() {
+        return tickets.stream().map(ticketMapper::toDTO).toList();
+    }
+
+    @Benchmark
+    public List<UserDTO> usersToDTO() {
+        return users.stream().map(userMapper::toDTO).toList();
+    }
+}
@@ -0,0 +1,123 @@
+package com.essa.benchmark;
+
+import com.essa.model.Permission;
+import com.essa.model.Role;
+import com.essa.model.User;
+import com.essa.repository.UserRepository;
+import com.essa.security.CustomUserDetailsService;
+import com.essa.security.UserDetailsCache;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.data.jpa.repository.support.JpaRepositoryFactory;
+import org.springframework.orm.hibernate5.SpringBeanContainer;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// CustomUserDetailsService.loadUserByUsername against an in-memory H2 schema: every call going to the
+// database (zero TTL cache) vs the cached path JwtFilter normally takes
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UserDetailsBenchmark {
+
+    private static final int USERS = 1000;
+
+    private GenericApplicationContext beans;
+    private HikariDataSource dataSource;
+    private EntityManagerFactory entityManagerFactory;
+    private CustomUserDetailsService uncached;
+    private CustomUserDetailsService cached;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        // Hibernate builds RolePermissionChangeListener through Spring; an empty context is enough for it
+        beans = new GenericApplicationContext();
+        beans.refresh();
+
+        // pooled like the application, otherwise every lookup pays for a new connection
+        dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl("jdbc:h2:mem:bench;DB_CLOSE_DELAY=-1");
+        dataSource.setUsername("sa");
+
+        LocalContainerEntityManagerFactoryBean factoryBean = new LocalContainerEntityManagerFactoryBean();
+        factoryBean.setDataSource(dataSource);
+        factoryBean.setPackagesToScan("com.essa.model");
+        factoryBean.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        factoryBean.setJpaPropertyMap(Map.of(
+                AvailableSettings.HBM2DDL_AUTO, "create-drop",
+                AvailableSettings.BEAN_CONTAINER, new SpringBeanContainer(beans.getBeanFactory())));
+        factoryBean.afterPropertiesSet();
+        entityManagerFactory = factoryBean.getObject();
+        seed();
+
+        UserRepository userRepository = new JpaRepositoryFactory(
+                SharedEntityManagerCreator.createSharedEntityManager(entityManagerFactory))
+                .getRepository(UserRepository.class);
+        uncached = new CustomUserDetailsService(userRepository, new UserDetailsCache(USERS, Duration.ZERO));
+        cached = new CustomUserDetailsService(userRepository, new UserDetailsCache(USERS, Duration.ofHours(1)));
+        for (int i = 0; i < USERS; i++) {
+            cached.loadUserByUsername(nextUsername());
+        }
+    }
+
+    private void seed() {
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        entityManager.getTransaction().begin();
+        Role role = new Role();
+        role.setName("AGENT");
+        entityManager.persist(role);
+        for (String name : new String[]{"READ_TICKETS", "WRITE_TICKETS", "READ_USERS"}) {
+            Permission permission = new Permission();
+            permission.setPermission(name);
+            permission.setRole(role);
+            entityManager.persist(permission);
+        }
+        for (int i = 0; i < USERS; i++) {
+            User user = new User();
+            user.setUsername("agent" + i);
+            user.setPassword("hash");
+            user.setFirstname("Agent");
+            user.setEmail("agent" + i + "@example.com");
+            user.setRole(role);
+            entityManager.persist(user);
+        }
+        entityManager.getTransaction().commit();
+        entityManager.close();
+    }
+
+    @TearDown
+    public void tearDown() {
+        entityManagerFactory.close();
+        dataSource.close();
+        beans.close();
+    }
+
+    private String nextUsername() {
+        next = (next + 1) % USERS;
+        return "agent" + next;
+    }
+
+    @Benchmark
+    public UserDetails loadFromDatabase() {
+        return uncached.loadUserByUsername(nextUsername());
+    }
+
+    @Benchmark
+    public UserDetails loadCached() {
+        return cached.loadUserByUsername(nextUsername());
+    }
+}
@@ -0,0 +1,35 @@
+package com.essa.loadtest;
+
+// The request types in a load mix, with the short names used by --mix
+public enum Endpoint {
+    LOGIN("login", "POST /auth/login"),
+    LIST_TICKETS("list", "GET /tickets"),
+    CREATE_TICKET("create", "POST /tickets"),
+    ASSIGN_TICKET("assign", "POST /tickets/{id}/assign/{userId}"),
+    LIST_USERS("admin", "GET /admin/users");
+
+    private final String key;
+    private final String label;
+
+    Endpoint(String key, String label) {
+        this.key = key;
+        this.label = label;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public static Endpoint fromKey(String key) {
+        for (Endpoint endpoint : values()) {
+            if (endpoint.key.equals(key)) {
+                return endpoint;
+            }
+        }
+        throw new IllegalArgumentException("Unknown endpoint in mix: " + key);
+    }
+}
@@ -0,0 +1,185 @@
+package com.essa.loadtest;
+
+import com.essa.dto.TicketCreateDTO;
+import com.essa.model.TicketPriority;
+import com.essa.model.TicketStatus;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+// Open-loop driver: requests start on a fixed schedule whether or not earlier ones have finished, and latency is
+// measured from the scheduled start, so a slow server shows up as latency instead of as a lower request rate
+public class LoadDriver {
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+    private static final TicketPriority[] PRIORITIES = TicketPriority.values();
+
+    private final HttpClient client;
+    private final String baseUrl;
+    private final LoadTestSeeder.Seed seed;
+    private final String adminToken;
+    private final List<String> sessionTokens;
+    private final LoadTestOptions options;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final Map<Endpoint, Recorder> latencies = new EnumMap<>(Endpoint.class);
+    private final Map<Endpoint, LongAdder> failures = new EnumMap<>(Endpoint.class);
+
+    public LoadDriver(
+            HttpClient client,
+            String baseUrl,
+            LoadTestSeeder.Seed seed,
+            String adminToken,
+            List<String> sessionTokens,
+            LoadTestOptions options
+    ) {
+        this.client = client;
+        this.baseUrl = baseUrl;
+        this.seed = seed;
+        this.adminToken = adminToken;
+        this.sessionTokens = sessionTokens;
+        this.options = options;
+        for (Endpoint endpoint : options.mix().keySet()) {
+            latencies.put(endpoint, new Recorder(3));
+            failures.put(endpoint, new LongAdder());
+        }
+    }
+
+    public LoadReport run() {
+        Random random = new Random(options.seed());
+        Endpoint[] schedule = weightedSchedule(options.mix());
+        long period = Math.max(1, 1_000_000_000L / options.rate());
+        long start = System.nanoTime();
+        long measureFrom = start + options.warmup().toNanos();
+        long end = measureFrom + options.duration().toNanos();
+
+        try (ExecutorService requests = Executors.newVirtualThreadPerTaskExecutor()) {
+            // requests and their parameters are picked on this thread so a given --seed replays the same sequence
+            for (long i = 0; ; i++) {
+                long intended = start + i * period;
+                if (intended >= end) {
+                    break;
+                }
+                Endpoint endpoint = schedule[random.nextInt(schedule.length)];
+                HttpRequest request = buildRequest(endpoint, random);
+                long wait = intended - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+                boolean measured = intended >= measureFrom;
+                requests.execute(() -> send(endpoint, request, intended, measured));
+            }
+        }
+
+        Map<Endpoint, Histogram> histograms = new EnumMap<>(Endpoint.class);
+        Map<Endpoint, Long> errors = new EnumMap<>(Endpoint.class);
+        latencies.forEach((endpoint, recorder) -> histograms.put(endpoint, recorder.getIntervalHistogram()));
+        failures.forEach((endpoint, count) -> errors.put(endpoint, count.sum()));
+        return new LoadReport(options.duration(), histograms, errors);
+    }
+
+    private void send(Endpoint endpoint, HttpRequest request, long intended, boolean measured) {
+        boolean ok;
+        try {
+            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+            ok = response.statusCode() / 100 == 2;
+        } catch (IOException e) {
+            ok = false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            ok = false;
+        }
+        if (!measured) {
+            return;
+        }
+        latencies.get(endpoint).recordValue(Math.max(1, (System.nanoTime() - intended) / 1000));
+        if (!ok) {
+            failures.get(endpoint).increment();
+        }
+    }
+
+    private HttpRequest buildRequest(Endpoint endpoint, Random random) {
+        String session = sessionTokens.get(random.nextInt(sessionTokens.size()));
+        return switch (endpoint) {
+            case LOGIN -> {
+                String username = seed.usernames().get(random.nextInt(seed.usernames().size()));
+                yield post("/auth/login", null,
+                        json(Map.of("username", username, "password", LoadTestSeeder.PASSWORD)));
+            }
+            case LIST_TICKETS -> get("/tickets?size=50", session);
+            case CREATE_TICKET -> {
+                TicketCreateDTO ticket = new TicketCreateDTO();
+                ticket.setTitle("Load test ticket " + random.nextInt(1_000_000));
+                ticket.setDescription("Created by the load test");
+                ticket.setStatus(TicketStatus.OPEN);
+                ticket.setPriority(PRIORITIES[random.nextInt(PRIORITIES.length)]);
+                ticket.setCreatedById(randomUserId(random));
+                yield post("/tickets", session, json(ticket));
+            }
+            case ASSIGN_TICKET -> {
+                Long ticketId = seed.ticketIds().get(random.nextInt(seed.ticketIds().size()));
+                yield post("/tickets/" + ticketId + "/assign/" + randomUserId(random), session, null);
+            }
+            case LIST_USERS -> get("/admin/users", adminToken);
+        };
+    }
+
+    private Long randomUserId(Random random) {
+        return seed.userIds().get(random.nextInt(seed.userIds().size()));
+    }
+
+    private HttpRequest get(String path, String token) {
+        return request(path, token).GET().build();
+    }
+
+    private HttpRequest post(String path, String token, String body) {
+        HttpRequest.Builder builder = request(path, token);
+        if (body == null) {
+            return builder.POST(HttpRequest.BodyPublishers.noBody()).build();
+        }
+        return builder.header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private HttpRequest.Builder request(String path, String token) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(REQUEST_TIMEOUT);
+        if (token != null) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        return builder;
+    }
+
+    private String json(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize request body", e);
+        }
+    }
+
+    // each endpoint repeated by its weight, so picking a uniform slot follows the mix
+    private static Endpoint[] weightedSchedule(Map<Endpoint, Integer> mix) {
+        return mix.entrySet().stream()
+                .flatMap(entry -> Collections.nCopies(entry.getValue(), entry.getKey()).stream())
+                .toArray(Endpoint[]::new);
+    }
+}
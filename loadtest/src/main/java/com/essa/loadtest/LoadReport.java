@@ -0,0 +1,66 @@
+package com.essa.loadtest;
+
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+
+// Per-endpoint throughput and latency percentiles of the measured window (warm-up excluded), values in microseconds
+public class LoadReport {
+
+    private final Duration measured;
+    private final Map<Endpoint, Histogram> latencies;
+    private final Map<Endpoint, Long> errors;
+
+    public LoadReport(Duration measured, Map<Endpoint, Histogram> latencies, Map<Endpoint, Long> errors) {
+        this.measured = measured;
+        this.latencies = latencies;
+        this.errors = errors;
+    }
+
+    public Histogram getLatencies(Endpoint endpoint) {
+        return latencies.get(endpoint);
+    }
+
+    public long getErrors(Endpoint endpoint) {
+        return errors.getOrDefault(endpoint, 0L);
+    }
+
+    public void print(PrintStream out) {
+        double seconds = measured.toMillis() / 1000.0;
+        out.printf("%-38s %9s %7s %9s %9s %9s %9s %9s %9s%n",
+                "endpoint", "requests", "errors", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        latencies.forEach((endpoint, histogram) -> out.printf("%-38s %9d %7d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                endpoint.getLabel(),
+                histogram.getTotalCount(),
+                getErrors(endpoint),
+                histogram.getTotalCount() / seconds,
+                millis(histogram.getValueAtPercentile(50)),
+                millis(histogram.getValueAtPercentile(90)),
+                millis(histogram.getValueAtPercentile(99)),
+                millis(histogram.getValueAtPercentile(99.9)),
+                millis(histogram.getMaxValue())));
+    }
+
+    // one HdrHistogram percentile distribution per endpoint (<key>.hgrm), loadable in the HdrHistogram plotter
+    public void write(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        for (Map.Entry<Endpoint, Histogram> entry : latencies.entrySet()) {
+            try (PrintStream out = new PrintStream(
+                    Files.newOutputStream(directory.resolve(entry.getKey().getKey() + ".hgrm")))) {
+                entry.getValue().outputPercentileDistribution(out, 1000.0);
+            }
+        }
+        try (PrintStream out = new PrintStream(Files.newOutputStream(directory.resolve("summary.txt")))) {
+            print(out);
+        }
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+}
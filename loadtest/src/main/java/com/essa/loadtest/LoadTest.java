@@ -0,0 +1,89 @@
+package com.essa.loadtest;
+
+import com.essa.App;
+import com.essa.repository.RoleRepository;
+import com.essa.repository.TicketRepository;
+import com.essa.repository.UserRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+// Boots the application on the embedded "loadtest" profile (in-memory H2, random port), seeds users and tickets,
+// drives the configured request mix at a fixed rate and prints per-endpoint throughput and latency percentiles.
+//
+//   mvn -Ploadtest install -DskipTests
+//   mvn -Ploadtest -pl loadtest exec:exec -Dload.args="--users=1000 --tickets=10000 --rate=200 --duration=60s"
+public class LoadTest {
+
+    private static final String ADMIN_USERNAME = "admin";
+    private static final String ADMIN_PASSWORD = "admin123";
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        LoadTestOptions options = LoadTestOptions.parse(args);
+
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(App.class)
+                .profiles("loadtest")
+                .run()) {
+            String baseUrl = "http://127.0.0.1:" + context.getEnvironment().getProperty("local.server.port")
+                    + context.getEnvironment().getProperty("server.servlet.context-path", "");
+
+            Random random = new Random(options.seed());
+            long seedStart = System.nanoTime();
+            LoadTestSeeder.Seed seed = new LoadTestSeeder(
+                    context.getBean(UserRepository.class),
+                    context.getBean(RoleRepository.class),
+                    context.getBean(TicketRepository.class),
+                    context.getBean(PasswordEncoder.class),
+                    context.getBean(TransactionTemplate.class)
+            ).seed(options.users(), options.tickets(), random);
+            System.out.printf("Seeded %d users and %d tickets in %d ms%n", options.users(), options.tickets(),
+                    Duration.ofNanos(System.nanoTime() - seedStart).toMillis());
+
+            HttpClient client = HttpClient.newBuilder()
+                    .connectTimeout(Duration.ofSeconds(5))
+                    .build();
+            String adminToken = login(client, baseUrl, ADMIN_USERNAME, ADMIN_PASSWORD);
+            List<String> sessions = new ArrayList<>(options.sessions());
+            for (int i = 0; i < options.sessions(); i++) {
+                sessions.add(login(client, baseUrl, seed.usernames().get(i), LoadTestSeeder.PASSWORD));
+            }
+
+            System.out.printf("Driving %d req/s for %ds (+%ds warm-up), mix %s%n", options.rate(),
+                    options.duration().toSeconds(), options.warmup().toSeconds(), options.mix());
+            LoadReport report = new LoadDriver(client, baseUrl, seed, adminToken, sessions, options).run();
+            report.print(System.out);
+            if (options.out() != null) {
+                report.write(options.out());
+                System.out.println("Percentile distributions written to " + options.out());
+            }
+        }
+    }
+
+    private static String login(HttpClient client, String baseUrl, String username, String password)
+            throws IOException, InterruptedException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/auth/login"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(
+                        Map.of("username", username, "password", password))))
+                .build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Login failed for " + username + ": " + response.statusCode());
+        }
+        return objectMapper.readTree(response.body()).get("token").asText();
+    }
+}
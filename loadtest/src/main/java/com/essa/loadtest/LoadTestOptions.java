@@ -0,0 +1,103 @@
+package com.essa.loadtest;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+// --key=value command line options; anything not given keeps the default below
+public record LoadTestOptions(
+        int users,
+        int tickets,
+        int rate,
+        Duration warmup,
+        Duration duration,
+        Map<Endpoint, Integer> mix,
+        int sessions,
+        long seed,
+        Path out
+) {
+
+    public static final String DEFAULT_MIX = "login:5,list:50,create:20,assign:15,admin:10";
+
+    public static LoadTestOptions parse(String[] args) {
+        int users = 1000;
+        int tickets = 10000;
+        int rate = 200;
+        Duration warmup = Duration.ofSeconds(10);
+        Duration duration = Duration.ofSeconds(60);
+        String mix = DEFAULT_MIX;
+        int sessions = 50;
+        long seed = 42;
+        Path out = null;
+
+        for (String arg : args) {
+            if (arg.isBlank()) {
+                continue;
+            }
+            int eq = arg.indexOf('=');
+            if (!arg.startsWith("--") || eq < 0) {
+                throw new IllegalArgumentException("Expected --key=value, got: " + arg);
+            }
+            String key = arg.substring(2, eq);
+            String value = arg.substring(eq + 1);
+            switch (key) {
+                case "users" -> users = positive(key, Integer.parseInt(value));
+                case "tickets" -> tickets = positive(key, Integer.parseInt(value));
+                case "rate" -> rate = positive(key, Integer.parseInt(value));
+                case "warmup" -> warmup = duration(value);
+                case "duration" -> duration = duration(value);
+                case "mix" -> mix = value;
+                case "sessions" -> sessions = positive(key, Integer.parseInt(value));
+                case "seed" -> seed = Long.parseLong(value);
+                case "out" -> out = value.isBlank() ? null : Path.of(value);
+                default -> throw new IllegalArgumentException("Unknown option: --" + key);
+            }
+        }
+        return new LoadTestOptions(users, tickets, rate, warmup, duration, parseMix(mix),
+                Math.min(sessions, users), seed, out);
+    }
+
+    // "list:70,create:30" -> weights; endpoints left out never run
+    static Map<Endpoint, Integer> parseMix(String mix) {
+        Map<Endpoint, Integer> weights = new EnumMap<>(Endpoint.class);
+        for (String part : mix.split(",")) {
+            String[] pair = part.trim().split(":");
+            if (pair.length != 2) {
+                throw new IllegalArgumentException("Expected endpoint:weight in mix, got: " + part);
+            }
+            int weight = Integer.parseInt(pair[1].trim());
+            if (weight < 0) {
+                throw new IllegalArgumentException("Negative weight in mix: " + part);
+            }
+            if (weight > 0) {
+                weights.put(Endpoint.fromKey(pair[0].trim()), weight);
+            }
+        }
+        if (weights.isEmpty()) {
+            throw new IllegalArgumentException("Mix has no endpoint with a positive weight: " + mix);
+        }
+        return weights;
+    }
+
+    // 90s, 2m, 500ms or an ISO-8601 duration
+    private static Duration duration(String value) {
+        if (value.endsWith("ms")) {
+            return Duration.ofMillis(Long.parseLong(value.substring(0, value.length() - 2)));
+        }
+        if (value.endsWith("s")) {
+            return Duration.ofSeconds(Long.parseLong(value.substring(0, value.length() - 1)));
+        }
+        if (value.endsWith("m")) {
+            return Duration.ofMinutes(Long.parseLong(value.substring(0, value.length() - 1)));
+        }
+        return Duration.parse(value);
+    }
+
+    private static int positive(String key, int value) {
+        if (value <= 0) {
+            throw new IllegalArgumentException("--" + key + " must be positive");
+        }
+        return value;
+    }
+}
@@ -0,0 +1,96 @@
+package com.essa.loadtest;
+
+import com.essa.model.Role;
+import com.essa.model.Ticket;
+import com.essa.model.TicketPriority;
+import com.essa.model.TicketStatus;
+import com.essa.model.User;
+import com.essa.repository.RoleRepository;
+import com.essa.repository.TicketRepository;
+import com.essa.repository.UserRepository;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// Inserts the load test's users and tickets straight through the repositories, in chunks of one transaction each
+public class LoadTestSeeder {
+
+    public static final String PASSWORD = "loadtest";
+
+    private static final int CHUNK = 1000;
+
+    private final UserRepository userRepository;
+    private final RoleRepository roleRepository;
+    private final TicketRepository ticketRepository;
+    private final PasswordEncoder passwordEncoder;
+    private final TransactionTemplate transactionTemplate;
+
+    public LoadTestSeeder(
+            UserRepository userRepository,
+            RoleRepository roleRepository,
+            TicketRepository ticketRepository,
+            PasswordEncoder passwordEncoder,
+            TransactionTemplate transactionTemplate
+    ) {
+        this.userRepository = userRepository;
+        this.roleRepository = roleRepository;
+        this.ticketRepository = ticketRepository;
+        this.passwordEncoder = passwordEncoder;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    public record Seed(List<Long> userIds, List<String> usernames, List<Long> ticketIds) {
+    }
+
+    public Seed seed(int users, int tickets, Random random) {
+        Role role = roleRepository.findByName("USER")
+                .orElseThrow(() -> new RuntimeException("Role not found with name: USER"));
+        // hashing is deliberately slow; every seeded user shares one hash
+        String password = passwordEncoder.encode(PASSWORD);
+
+        List<User> savedUsers = new ArrayList<>(users);
+        for (int from = 0; from < users; from += CHUNK) {
+            List<User> chunk = new ArrayList<>();
+            for (int i = from; i < Math.min(users, from + CHUNK); i++) {
+                User user = new User();
+                user.setUsername("load" + i);
+                user.setPassword(password);
+                user.setFirstname("Load");
+                user.setLastname("User " + i);
+                user.setEmail("load" + i + "@example.com");
+                user.setRole(role);
+                chunk.add(user);
+            }
+            savedUsers.addAll(transactionTemplate.execute(status -> userRepository.saveAll(chunk)));
+        }
+
+        TicketStatus[] statuses = TicketStatus.values();
+        TicketPriority[] priorities = TicketPriority.values();
+        List<Long> ticketIds = new ArrayList<>(tickets);
+        for (int from = 0; from < tickets; from += CHUNK) {
+            List<Ticket> chunk = new ArrayList<>();
+            for (int i = from; i < Math.min(tickets, from + CHUNK); i++) {
+                Ticket ticket = new Ticket();
+                ticket.setTitle("Load ticket " + i);
+                ticket.setDescription("Seeded by the load test");
+                ticket.setStatus(statuses[random.nextInt(statuses.length)]);
+                ticket.setPriority(priorities[random.nextInt(priorities.length)]);
+                ticket.setCreatedBy(savedUsers.get(random.nextInt(savedUsers.size())));
+                if (random.nextBoolean()) {
+                    ticket.setAssignedTo(savedUsers.get(random.nextInt(savedUsers.size())));
+                }
+                chunk.add(ticket);
+            }
+            transactionTemplate.execute(status -> ticketRepository.saveAll(chunk))
+                    .forEach(ticket -> ticketIds.add(ticket.getId()));
+        }
+
+        return new Seed(
+                savedUsers.stream().map(User::getId).toList(),
+                savedUsers.stream().map(User::getUsername).toList(),
+                ticketIds);
+    }
+}
@@ -0,0 +1,13 @@
+package com.essa.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+// @Async methods run on Spring Boot's auto-configured applicationTaskExecutor (spring.task.execution.*),
+// @Scheduled ones (email outbox dispatcher) on the auto-configured taskScheduler (spring.task.scheduling.*)
+@Configuration
+@EnableAsync
+@EnableScheduling
+public class AsyncConfig {
+}
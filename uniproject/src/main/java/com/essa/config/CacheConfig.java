@@ -0,0 +1,24 @@
+package com.essa.config;
+
+import com.essa.util.strategy.CacheInvalidationBroadcaster;
+import com.essa.util.strategy.JdbcCacheInvalidationBroadcaster;
+import com.essa.util.strategy.LocalCacheInvalidationBroadcaster;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+@Configuration
+public class CacheConfig {
+
+    // "local" for a single node, "jdbc" when several nodes share the database and must evict each other's caches
+    @Bean
+    public CacheInvalidationBroadcaster cacheInvalidationBroadcaster(@Value("${cache.invalidation.type:local}") String type,
+                                                                     JdbcTemplate jdbcTemplate) {
+        return switch (type) {
+            case "local" -> new LocalCacheInvalidationBroadcaster();
+            case "jdbc" -> new JdbcCacheInvalidationBroadcaster(jdbcTemplate);
+            default -> throw new IllegalStateException("Unknown cache.invalidation.type: " + type);
+        };
+    }
+}
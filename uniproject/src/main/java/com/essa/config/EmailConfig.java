@@ -0,0 +1,25 @@
+package com.essa.config;
+
+import com.essa.util.strategy.EmailSender;
+import com.essa.util.strategy.FileEmailSender;
+import com.essa.util.strategy.LoggingEmailSender;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+
+@Configuration
+public class EmailConfig {
+
+    // "log" writes to the application log, "file" appends to email.sender.file
+    @Bean
+    public EmailSender emailSender(@Value("${email.sender.type:log}") String type,
+                                   @Value("${email.sender.file:logs/outbox-mail.log}") String file) {
+        return switch (type) {
+            case "log" -> new LoggingEmailSender();
+            case "file" -> new FileEmailSender(Path.of(file));
+            default -> throw new IllegalStateException("Unknown email.sender.type: " + type);
+        };
+    }
+}
@@ -0,0 +1,28 @@
+package com.essa.config;
+
+import com.essa.util.strategy.IdempotencyStore;
+import com.essa.util.strategy.InMemoryIdempotencyStore;
+import com.essa.util.strategy.JdbcIdempotencyStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+
+@Configuration
+public class IdempotencyConfig {
+
+    // "memory" for a single node, "jdbc" when several nodes serve the API and a retry may land on another one
+    @Bean
+    public IdempotencyStore idempotencyStore(@Value("${idempotency.store.type:memory}") String type,
+                                             @Value("${idempotency.memory.max-keys:100000}") long maxKeys,
+                                             @Value("${idempotency.ttl:24h}") Duration ttl,
+                                             JdbcTemplate jdbcTemplate) {
+        return switch (type) {
+            case "memory" -> new InMemoryIdempotencyStore(maxKeys, ttl);
+            case "jdbc" -> new JdbcIdempotencyStore(jdbcTemplate);
+            default -> throw new IllegalStateException("Unknown idempotency.store.type: " + type);
+        };
+    }
+}
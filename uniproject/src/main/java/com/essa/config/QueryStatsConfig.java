@@ -0,0 +1,48 @@
+package com.essa.config;
+
+import com.essa.util.proxy.QueryCountingListener;
+import net.ttddyy.dsproxy.listener.logging.JULSlowQueryListener;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+// Every DataSource goes through datasource-proxy: statements are counted into the thread's QueryStats and the ones
+// slower than query-stats.slow-threshold are logged; bind parameters only with query-stats.log-parameters=true
+@Configuration
+public class QueryStatsConfig {
+
+    // static and reading the Environment directly: post-processors are created before @Value placeholders resolve
+    @Bean
+    public static BeanPostProcessor queryStatsDataSourceProxy(Environment environment) {
+        Duration slowThreshold = DurationStyle.detectAndParse(
+                environment.getProperty("query-stats.slow-threshold", "200ms"));
+        boolean logParameters = environment.getProperty("query-stats.log-parameters", Boolean.class, false);
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof DataSource dataSource) || bean instanceof ProxyDataSource) {
+                    return bean;
+                }
+                JULSlowQueryListener slowQueryLog = new JULSlowQueryListener(slowThreshold.toMillis(),
+                        TimeUnit.MILLISECONDS);
+                slowQueryLog.setLogLevel(Level.WARNING);
+                slowQueryLog.setLogger(QueryCountingListener.class.getName());
+                slowQueryLog.setQueryLogEntryCreator(QueryCountingListener.slowQueryLogEntryCreator(logParameters));
+                return ProxyDataSourceBuilder.create(dataSource)
+                        .name(beanName)
+                        .listener(new QueryCountingListener())
+                        .listener(slowQueryLog)
+                        .build();
+            }
+        };
+    }
+}
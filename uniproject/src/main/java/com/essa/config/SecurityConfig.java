@@ -1,8 +1,14 @@
 package com.essa.config;
 
+import com.essa.controller.TicketController;
 import com.essa.security.JwtFilter;
+import com.essa.security.MetricsScrapeMatcher;
+import com.essa.util.proxy.IdempotencyFilter;
+import com.essa.util.proxy.QueryStatsFilter;
+import jakarta.servlet.DispatcherType;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -39,11 +45,14 @@ public class SecurityConfig {
     }
 
     @Bean
-    public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain securityFilterChain(HttpSecurity http, MetricsScrapeMatcher metricsScrape)
+            throws Exception {
         http
             .csrf(csrf -> csrf.disable())
             .cors(cors -> {})
             .authorizeHttpRequests(authz -> authz
+                // streamed responses finish on an ASYNC dispatch; the original request was already authorized
+                .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                 .requestMatchers(
                     "/auth/**",
                     "/swagger-ui/**",
@@ -54,7 +63,10 @@ public class SecurityConfig {
                     "/swagger-ui/favicon-32x32.png",
                     "/api-docs/swagger-config"
                 ).permitAll()
-                .requestMatchers("/admin/**").hasRole("ADMIN")
+                .requestMatchers("/actuator/health").permitAll()
+                // Prometheus with its scrape credential; anyone else needs ADMIN like the other actuator endpoints
+                .requestMatchers(metricsScrape).permitAll()
+                .requestMatchers("/admin/**", "/actuator/**").hasRole("ADMIN")
                 .anyRequest().authenticated()
             )
             .sessionManagement(sess -> sess.sessionCreationPolicy(SessionCreationPolicy.STATELESS));
@@ -68,8 +80,10 @@ public class SecurityConfig {
     public CorsConfigurationSource corsConfigurationSource() {
         CorsConfiguration configuration = new CorsConfiguration();
         configuration.setAllowedOriginPatterns(List.of("*"));
-        configuration.setAllowedMethods(List.of("GET", "POST", "PUT", "DELETE", "OPTIONS"));
+        configuration.setAllowedMethods(List.of("GET", "POST", "PUT", "PATCH", "DELETE", "OPTIONS"));
         configuration.setAllowedHeaders(List.of("*"));
+        configuration.setExposedHeaders(List.of(TicketController.NEXT_CURSOR_HEADER, QueryStatsFilter.QUERY_COUNT_HEADER,
+                HttpHeaders.ETAG, IdempotencyFilter.REPLAYED_HEADER));
         configuration.setAllowCredentials(true);
 
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
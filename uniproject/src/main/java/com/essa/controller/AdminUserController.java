@@ -1,39 +1,57 @@
 package com.essa.controller;
 
+import com.essa.dto.UserActivationRequestDTO;
+import com.essa.dto.UserActivationResultDTO;
 import com.essa.dto.UserCreateDTO;
 import com.essa.dto.UserDTO;
+import com.essa.dto.UserObserverStatsDTO;
+import com.essa.dto.UserTicketStatsDTO;
 import com.essa.dto.UserUpdateDTO;
+import com.essa.dto.UserWithStatsDTO;
 import com.essa.mapper.UserMapper;
 import com.essa.model.Role;
 import com.essa.model.User;
 import com.essa.repository.RoleRepository;
+import com.essa.service.TicketStatsService;
 import com.essa.service.UserService;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
 
 @Tag(name = "Admin Users", description = "ADMIN operations on users")
 @RestController
 @RequestMapping("/admin/users")
 public class AdminUserController {
 
+    private static final int STATS_DEFAULT_SIZE = 50;
+    private static final int STATS_MAX_SIZE = 200;
+    private static final int ACTIVATION_MAX_IDS = 10000;
+
     private final UserService userService;
     private final UserMapper userMapper;
     private final PasswordEncoder passwordEncoder;
     private final RoleRepository roleRepository;
+    private final TicketStatsService ticketStatsService;
 
     public AdminUserController(UserService userService, 
                               UserMapper userMapper,
                               PasswordEncoder passwordEncoder,
-                              RoleRepository roleRepository) {
+                              RoleRepository roleRepository,
+                              TicketStatsService ticketStatsService) {
         this.userService = userService;
         this.userMapper = userMapper;
         this.passwordEncoder = passwordEncoder;
         this.roleRepository = roleRepository;
+        this.ticketStatsService = ticketStatsService;
     }
 
     @GetMapping
@@ -45,13 +63,82 @@ public class AdminUserController {
         return ResponseEntity.ok(userDTOs);
     }
 
+    // One page of users plus their ticket counts in a single round trip for the admin dashboard
+    @GetMapping("/stats")
+    public ResponseEntity<List<UserWithStatsDTO>> getUsersWithStats(
+            @RequestParam(value = "page", defaultValue = "0") int page,
+            @RequestParam(value = "size", defaultValue = "" + STATS_DEFAULT_SIZE) int size) {
+        if (page < 0) {
+            return ResponseEntity.badRequest().build();
+        }
+        List<User> users = userService.findPage(page, Math.max(1, Math.min(size, STATS_MAX_SIZE)));
+        Map<Long, UserTicketStatsDTO> stats = ticketStatsService.getStats(
+                users.stream().map(User::getId).toList());
+        List<UserWithStatsDTO> result = users.stream()
+                .map(user -> userMapper.toStatsDTO(user, stats.get(user.getId())))
+                .toList();
+        return ResponseEntity.ok(result);
+    }
+
+    // Bulk (de)activation: coalesced and applied as set-based updates, see UserCommandInvoker
+    @PostMapping("/activation")
+    public ResponseEntity<UserActivationResultDTO> setActive(@RequestBody UserActivationRequestDTO request) {
+        List<Long> ids = request.getIds() == null ? List.of()
+                : request.getIds().stream().filter(Objects::nonNull).distinct().toList();
+        if (request.getActive() == null || ids.isEmpty() || ids.size() > ACTIVATION_MAX_IDS) {
+            return ResponseEntity.badRequest().build();
+        }
+        int changed = userService.setActive(ids, request.getActive());
+        return ResponseEntity.ok(new UserActivationResultDTO(ids.size(), changed));
+    }
+
+    // Reverts the last applied activation batch; 409 when the history is empty
+    @PostMapping("/activation/undo")
+    public ResponseEntity<UserActivationResultDTO> undoActivation() {
+        try {
+            int changed = userService.undoActivationChange();
+            return ResponseEntity.ok(new UserActivationResultDTO(changed, changed));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+    }
+
+    @PostMapping("/activation/redo")
+    public ResponseEntity<UserActivationResultDTO> redoActivation() {
+        try {
+            int changed = userService.redoActivationChange();
+            return ResponseEntity.ok(new UserActivationResultDTO(changed, changed));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+    }
+
+    // Queue depth, drops and delivery lag of every user observer
+    @GetMapping("/observers")
+    public ResponseEntity<List<UserObserverStatsDTO>> getObserverStats() {
+        return ResponseEntity.ok(userService.getObserverStats());
+    }
+
+    @GetMapping("/{id}/stats")
+    public ResponseEntity<UserWithStatsDTO> getUserStats(@PathVariable("id") Long id) {
+        User user = userService.findById(id);
+        return ResponseEntity.ok(userMapper.toStatsDTO(user, ticketStatsService.getStats(id)));
+    }
+
+    // ETag is the row version; a matching If-None-Match gets 304 without a body
     @GetMapping("/{id}")
-    public ResponseEntity<UserDTO> getUserById(@PathVariable Long id) {
+    public ResponseEntity<UserDTO> getUserById(
+            @PathVariable("id") Long id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         User user = userService.findById(id);
         if (user == null) {
             return ResponseEntity.notFound().build();
         }
-        return ResponseEntity.ok(userMapper.toDTO(user));
+        String etag = ETags.of(user.getVersion());
+        if (ETags.noneMatchFails(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        return ResponseEntity.ok().eTag(etag).body(userMapper.toDTO(user));
     }
 
     @PostMapping
@@ -75,12 +162,21 @@ public class AdminUserController {
         return new ResponseEntity<>(userMapper.toDTO(savedUser), HttpStatus.CREATED);
     }
 
+    // If-Match (the ETag of a previous GET) makes the write conditional: 412 when the user has changed since
     @PutMapping("/{id}")
-    public ResponseEntity<UserDTO> updateUser(@PathVariable Long id, @RequestBody UserUpdateDTO updateDTO) {
+    public ResponseEntity<UserDTO> updateUser(
+            @PathVariable("id") Long id,
+            @RequestBody UserUpdateDTO updateDTO,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         User existingUser = userService.findById(id);
         if (existingUser == null) {
             return ResponseEntity.notFound().build();
         }
+        if (!ETags.matches(ifMatch, existingUser.getVersion())) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED)
+                    .eTag(ETags.of(existingUser.getVersion()))
+                    .build();
+        }
         
         userMapper.updateEntityFromDto(updateDTO, existingUser);
         
@@ -94,19 +190,61 @@ public class AdminUserController {
             existingUser.setRole(role);
         }
         
-        User updatedUser = userService.update(existingUser);
+        User updatedUser;
+        try {
+            updatedUser = userService.update(existingUser);
+        } catch (OptimisticLockingFailureException e) {
+            return ETags.lostUpdate(ifMatch);
+        }
         
-        return ResponseEntity.ok(userMapper.toDTO(updatedUser));
+        return ResponseEntity.ok().eTag(ETags.of(updatedUser.getVersion())).body(userMapper.toDTO(updatedUser));
     }
 
+    // Only the fields present in the body change, in a single UPDATE without reading the user first;
+    // 204 with the new version as ETag on success, 404 when no user was affected, 412 when If-Match names an
+    // older version
+    @PatchMapping("/{id}")
+    public ResponseEntity<Void> patchUser(
+            @PathVariable("id") Long id,
+            @RequestBody UserUpdateDTO patchDTO,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        if (patchDTO.getPassword() != null && !patchDTO.getPassword().trim().isEmpty()) {
+            patchDTO.setPassword(passwordEncoder.encode(patchDTO.getPassword()));
+        } else {
+            patchDTO.setPassword(null);
+        }
+
+        // roles are in the second-level cache, so this usually costs no query
+        Role role = null;
+        if (patchDTO.getRoleId() != null) {
+            role = roleRepository.findById(patchDTO.getRoleId())
+                    .orElseThrow(() -> new RuntimeException("Role not found with id: " + patchDTO.getRoleId()));
+        }
+
+        Optional<Long> version;
+        try {
+            version = userService.patch(id, patchDTO, role, ETags.expectedVersion(ifMatch));
+        } catch (OptimisticLockingFailureException e) {
+            return ETags.lostUpdate(ifMatch);
+        }
+        return version
+                .map(v -> ResponseEntity.noContent().eTag(ETags.of(v)).<Void>build())
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    // A single DELETE guarded by the version; 404 when no user was affected, 412 when If-Match names an older
+    // version
     @DeleteMapping("/{id}")
-    public ResponseEntity<Void> deleteUser(@PathVariable Long id) {
-        User user = userService.findById(id);
-        if (user == null) {
-            return ResponseEntity.notFound().build();
+    public ResponseEntity<Void> deleteUser(
+            @PathVariable("id") Long id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        try {
+            if (!userService.delete(id, ETags.expectedVersion(ifMatch))) {
+                return ResponseEntity.notFound().build();
+            }
+        } catch (OptimisticLockingFailureException e) {
+            return ETags.lostUpdate(ifMatch);
         }
-        
-        userService.delete(id);
         return ResponseEntity.noContent().build();
     }
 }
\ No newline at end of file
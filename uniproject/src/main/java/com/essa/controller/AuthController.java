@@ -1,6 +1,8 @@
 package com.essa.controller;
 
 import com.essa.security.JwtUtil;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.Data;
 import org.springframework.http.ResponseEntity;
@@ -13,6 +15,8 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.concurrent.TimeUnit;
+
 @Tag(name = "Auth", description = "Auth operations")
 @RestController
 @RequestMapping("/auth")
@@ -21,20 +25,36 @@ public class AuthController {
     private final AuthenticationManager authenticationManager;
     private final UserDetailsService userDetailsService;
     private final JwtUtil jwtUtil;
+    private final Timer successfulLogins;
+    private final Timer failedLogins;
 
-    public AuthController(AuthenticationManager authenticationManager, UserDetailsService userDetailsService, JwtUtil jwtUtil) {
+    public AuthController(AuthenticationManager authenticationManager, UserDetailsService userDetailsService, JwtUtil jwtUtil,
+                          MeterRegistry meterRegistry) {
         this.authenticationManager = authenticationManager;
         this.userDetailsService = userDetailsService;
         this.jwtUtil = jwtUtil;
+        this.successfulLogins = loginTimer(meterRegistry, "success");
+        this.failedLogins = loginTimer(meterRegistry, "failure");
+    }
+
+    // authenticate() is the user lookup plus the BCrypt comparison, which dominates the login cost
+    private static Timer loginTimer(MeterRegistry meterRegistry, String outcome) {
+        return Timer.builder("auth.login")
+                .description("Credential check on login, including the BCrypt password comparison")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
     }
 
     @PostMapping("/login")
     public ResponseEntity<?> login(@RequestBody AuthRequest authRequest) {
+        long start = System.nanoTime();
         try {
             authenticationManager.authenticate(
                     new UsernamePasswordAuthenticationToken(authRequest.getUsername(), authRequest.getPassword())
             );
+            successfulLogins.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
         } catch (Exception e) {
+            failedLogins.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
             return ResponseEntity.badRequest().body("Invalid username or password");
         }
 
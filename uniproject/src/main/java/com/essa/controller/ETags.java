@@ -0,0 +1,60 @@
+package com.essa.controller;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+// Strong entity tags made from the row version (@Version), for conditional GETs (If-None-Match -> 304)
+// and conditional writes (If-Match -> 412)
+final class ETags {
+
+    // no row has it, so an If-Match value that cannot be read never matches
+    static final long UNMATCHABLE_VERSION = -1L;
+
+    private ETags() {
+    }
+
+    static String of(Long version) {
+        return version == null ? null : "\"" + version + "\"";
+    }
+
+    // Weak comparison as in RFC 9110: W/"3" matches "3", and * matches any current representation
+    static boolean noneMatchFails(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || etag == null) {
+            return false;
+        }
+        for (String tag : ifNoneMatch.split(",")) {
+            String candidate = tag.trim();
+            if (candidate.equals("*") || candidate.replaceFirst("^W/", "").equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Version required by If-Match, null when the header is absent or * (the resource only has to exist).
+    // Clients send back the one tag they were given; weak, listed or malformed tags never match (strong comparison)
+    static Long expectedVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.length() > 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+            try {
+                return Long.parseLong(tag.substring(1, tag.length() - 1));
+            } catch (NumberFormatException e) {
+                return UNMATCHABLE_VERSION;
+            }
+        }
+        return UNMATCHABLE_VERSION;
+    }
+
+    static boolean matches(String ifMatch, Long version) {
+        Long expected = expectedVersion(ifMatch);
+        return expected == null || expected.equals(version);
+    }
+
+    // Another write won: a failed precondition when the client sent one, a plain conflict otherwise
+    static <T> ResponseEntity<T> lostUpdate(String ifMatch) {
+        return ResponseEntity.status(ifMatch != null ? HttpStatus.PRECONDITION_FAILED : HttpStatus.CONFLICT).build();
+    }
+}
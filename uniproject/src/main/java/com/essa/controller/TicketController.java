@@ -1,48 +1,187 @@
 package com.essa.controller;
 
+import com.essa.dto.TicketBulkRequestDTO;
+import com.essa.dto.TicketBulkResultDTO;
 import com.essa.dto.TicketCreateDTO;
 import com.essa.dto.TicketDTO;
+import com.essa.dto.TicketFilterDTO;
+import com.essa.dto.TicketImportResultDTO;
+import com.essa.dto.TicketRowDTO;
 import com.essa.dto.TicketUpdateDTO;
 import com.essa.mapper.TicketMapper;
 import com.essa.model.Ticket;
+import com.essa.model.TicketPriority;
+import com.essa.model.TicketStatus;
 import com.essa.model.User;
+import com.essa.service.TicketExportService;
+import com.essa.service.TicketFeedService;
+import com.essa.service.TicketImportService;
+import com.essa.service.TicketSearchService;
 import com.essa.service.TicketService;
 import com.essa.service.UserService;
+import com.essa.util.pagination.TicketCursor;
+import com.essa.util.pagination.TicketPage;
+import com.essa.util.strategy.TicketExportFormat;
+import com.essa.util.strategy.TicketImportFormat;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 @Tag(name = "Tickets", description = "Ticket operations")
 @RestController
 @RequestMapping("/tickets")
 public class TicketController {
 
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    public static final int SEARCH_MAX_LIMIT = 100;
+
     private final TicketService ticketService;
     private final UserService userService;
     private final TicketMapper ticketMapper;
+    private final TicketExportService ticketExportService;
+    private final TicketImportService ticketImportService;
+    private final TicketSearchService ticketSearchService;
+    private final TicketFeedService ticketFeedService;
 
-    public TicketController(TicketService ticketService, UserService userService, TicketMapper ticketMapper) {
+    public TicketController(TicketService ticketService, UserService userService, TicketMapper ticketMapper,
+                            TicketExportService ticketExportService, TicketImportService ticketImportService,
+                            TicketSearchService ticketSearchService, TicketFeedService ticketFeedService) {
         this.ticketService = ticketService;
         this.userService = userService;
         this.ticketMapper = ticketMapper;
+        this.ticketExportService = ticketExportService;
+        this.ticketImportService = ticketImportService;
+        this.ticketSearchService = ticketSearchService;
+        this.ticketFeedService = ticketFeedService;
     }
 
+    // Keyset-paginated listing; pass the X-Next-Cursor response header back as ?cursor= for the next page
     @GetMapping
-    public List<TicketDTO> getAllTickets() {
-        return ticketService.findAll().stream()
+    public ResponseEntity<List<TicketDTO>> getAllTickets(
+            @RequestParam(value = "status", required = false) TicketStatus status,
+            @RequestParam(value = "priority", required = false) TicketPriority priority,
+            @RequestParam(value = "assignedToId", required = false) Long assignedToId,
+            @RequestParam(value = "createdById", required = false) Long createdById,
+            @RequestParam(value = "sort", defaultValue = "id") String sort,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "size", defaultValue = "" + TicketPage.DEFAULT_SIZE) int size) {
+        TicketFilterDTO filter = new TicketFilterDTO();
+        filter.setStatus(status);
+        filter.setPriority(priority);
+        filter.setAssignedToId(assignedToId);
+        filter.setCreatedById(createdById);
+
+        TicketPage page;
+        try {
+            TicketCursor.Sort order = switch (sort) {
+                case "id" -> TicketCursor.Sort.ID;
+                case "updatedAt" -> TicketCursor.Sort.UPDATED_AT;
+                default -> throw new IllegalArgumentException("Unknown sort: " + sort);
+            };
+            TicketCursor after = cursor != null && !cursor.isBlank() ? TicketCursor.decode(cursor) : null;
+            page = ticketService.findPage(filter, order, after, size);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return response.body(page.getTickets());
+    }
+
+    // Full-text search over title and description, best matches first; every word must match, the last may be partial
+    @GetMapping("/search")
+    public ResponseEntity<List<TicketDTO>> searchTickets(
+            @RequestParam("q") String query,
+            @RequestParam(value = "status", required = false) TicketStatus status,
+            @RequestParam(value = "priority", required = false) TicketPriority priority,
+            @RequestParam(value = "limit", defaultValue = "20") int limit) {
+        if (query.isBlank()) {
+            return ResponseEntity.badRequest().build();
+        }
+        List<TicketDTO> tickets = ticketSearchService
+                .search(query, status, priority, Math.max(1, Math.min(limit, SEARCH_MAX_LIMIT))).stream()
                 .map(ticketMapper::toDTO)
                 .toList();
+        return ResponseEntity.ok(tickets);
     }
 
+    // Live feed of committed ticket changes; a reconnect (Last-Event-ID) gets a "resync" event instead of a replay
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamTickets(
+            @RequestParam(value = "assignedToId", required = false) Long assignedToId,
+            @RequestParam(value = "status", required = false) TicketStatus status,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        try {
+            return ResponseEntity.ok(ticketFeedService.subscribe(assignedToId, status, lastEventId != null));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+    }
+
+    // Streams every matching ticket in id order without loading the result into memory
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportTickets(
+            @RequestParam(value = "format", defaultValue = "ndjson") String format,
+            @RequestParam(value = "status", required = false) TicketStatus status,
+            @RequestParam(value = "priority", required = false) TicketPriority priority,
+            @RequestParam(value = "assignedToId", required = false) Long assignedToId,
+            @RequestParam(value = "createdById", required = false) Long createdById,
+            @RequestParam(value = "createdFrom", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime createdFrom,
+            @RequestParam(value = "createdTo", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime createdTo) {
+        TicketExportFormat exportFormat;
+        try {
+            exportFormat = TicketExportFormat.fromParameter(format);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        TicketFilterDTO filter = new TicketFilterDTO();
+        filter.setStatus(status);
+        filter.setPriority(priority);
+        filter.setAssignedToId(assignedToId);
+        filter.setCreatedById(createdById);
+        filter.setCreatedFrom(createdFrom);
+        filter.setCreatedTo(createdTo);
+
+        StreamingResponseBody body = out -> ticketExportService.export(filter, exportFormat, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"tickets." + exportFormat.getFileExtension() + "\"")
+                .body(body);
+    }
+
+    // ETag is the row version; a matching If-None-Match gets 304 without a body
     @GetMapping("/{id}")
-    public ResponseEntity<TicketDTO> getTicket(@PathVariable("id") Long id) {
-        Ticket ticket = ticketService.findById(id);
+    public ResponseEntity<TicketDTO> getTicket(
+            @PathVariable("id") Long id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        TicketRowDTO ticket = ticketService.findRowById(id);
         if (ticket == null) {
             return ResponseEntity.notFound().build();
         }
-        return ResponseEntity.ok(ticketMapper.toDTO(ticket));
+        String etag = ETags.of(ticket.getVersion());
+        if (ETags.noneMatchFails(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        return ResponseEntity.ok().eTag(etag).body(ticketMapper.toDTO(ticket));
     }
 
     @PostMapping
@@ -62,12 +201,31 @@ public class TicketController {
         return ResponseEntity.ok(ticketMapper.toDTO(saved));
     }
 
+    // Body is NDJSON or CSV of TicketCreateDTO records, read incrementally; bad lines are reported, not fatal
+    @PostMapping("/import")
+    public ResponseEntity<TicketImportResultDTO> importTickets(
+            @RequestParam(value = "format", defaultValue = "ndjson") String format,
+            InputStream body) throws IOException {
+        try {
+            return ResponseEntity.ok(ticketImportService.importTickets(TicketImportFormat.fromParameter(format), body));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    // If-Match (the ETag of a previous GET) makes the write conditional: 412 when the ticket has changed since
     @PutMapping("/{id}")
-    public ResponseEntity<TicketDTO> updateTicket(@PathVariable("id") Long id, @RequestBody TicketUpdateDTO dto) {
+    public ResponseEntity<TicketDTO> updateTicket(
+            @PathVariable("id") Long id,
+            @RequestBody TicketUpdateDTO dto,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         Ticket ticket = ticketService.findById(id);
         if (ticket == null) {
             return ResponseEntity.notFound().build();
         }
+        if (!ETags.matches(ifMatch, ticket.getVersion())) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).eTag(ETags.of(ticket.getVersion())).build();
+        }
         ticketMapper.updateEntityFromDto(dto, ticket);
 
         if (dto.getAssignedToId() != null) {
@@ -75,17 +233,46 @@ public class TicketController {
             ticket.setAssignedTo(assignedTo);
         }
 
-        Ticket updated = ticketService.update(ticket);
-        return ResponseEntity.ok(ticketMapper.toDTO(updated));
+        Ticket updated;
+        try {
+            updated = ticketService.update(ticket);
+        } catch (OptimisticLockingFailureException e) {
+            return ETags.lostUpdate(ifMatch);
+        }
+        return ResponseEntity.ok().eTag(ETags.of(updated.getVersion())).body(ticketMapper.toDTO(updated));
+    }
+
+    // Only the fields present in the body change, in a single UPDATE; 404 when no ticket was affected,
+    // 412 when If-Match names an older version
+    @PatchMapping("/{id}")
+    public ResponseEntity<TicketDTO> patchTicket(
+            @PathVariable("id") Long id,
+            @RequestBody TicketUpdateDTO dto,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Optional<TicketRowDTO> patched;
+        try {
+            patched = ticketService.patch(id, dto, ETags.expectedVersion(ifMatch));
+        } catch (OptimisticLockingFailureException e) {
+            return ETags.lostUpdate(ifMatch);
+        }
+        return patched
+                .map(row -> ResponseEntity.ok().eTag(ETags.of(row.getVersion())).body(ticketMapper.toDTO(row)))
+                .orElseGet(() -> ResponseEntity.notFound().build());
     }
 
+    // A single DELETE guarded by the version; 404 when no ticket was affected, 412 when If-Match names an older
+    // version
     @DeleteMapping("/{id}")
-    public ResponseEntity<Void> deleteTicket(@PathVariable("id") Long id) {
-        Ticket ticket = ticketService.findById(id);
-        if (ticket == null) {
-            return ResponseEntity.notFound().build();
+    public ResponseEntity<Void> deleteTicket(
+            @PathVariable("id") Long id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        try {
+            if (!ticketService.delete(id, ETags.expectedVersion(ifMatch))) {
+                return ResponseEntity.notFound().build();
+            }
+        } catch (OptimisticLockingFailureException e) {
+            return ETags.lostUpdate(ifMatch);
         }
-        ticketService.delete(id);
         return ResponseEntity.noContent().build();
     }
 
@@ -115,4 +302,14 @@ public class TicketController {
         }
         return ResponseEntity.ok(ticketMapper.toDTO(ticket));
     }
-}
\ No newline at end of file
+
+    // Status, priority or assignee for many tickets in one transaction; the body lists the outcome per id
+    @PostMapping("/bulk")
+    public ResponseEntity<List<TicketBulkResultDTO>> bulkUpdate(@RequestBody TicketBulkRequestDTO request) {
+        try {
+            return ResponseEntity.ok(ticketService.bulkUpdate(request));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+}
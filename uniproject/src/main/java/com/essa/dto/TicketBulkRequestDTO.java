@@ -0,0 +1,20 @@
+package com.essa.dto;
+
+import com.essa.model.TicketPriority;
+import com.essa.model.TicketStatus;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class TicketBulkRequestDTO {
+
+    public enum Operation { STATUS, PRIORITY, ASSIGN }
+
+    private List<Long> ids;
+    private Operation operation;
+    // only the field matching the operation is read
+    private TicketStatus status;
+    private TicketPriority priority;
+    private Long assignedToId;
+}
@@ -0,0 +1,16 @@
+package com.essa.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TicketBulkResultDTO {
+
+    public enum Outcome { UPDATED, UNCHANGED, NOT_FOUND }
+
+    private Long id;
+    private Outcome outcome;
+}
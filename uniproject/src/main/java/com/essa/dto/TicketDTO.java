@@ -2,9 +2,13 @@ package com.essa.dto;
 
 import com.essa.model.TicketPriority;
 import com.essa.model.TicketStatus;
+import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 @Data
+@NoArgsConstructor
+@AllArgsConstructor
 public class TicketDTO {
     private Long id;
     private String title;
@@ -0,0 +1,24 @@
+package com.essa.dto;
+
+import com.essa.model.TicketPriority;
+import com.essa.model.TicketStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TicketExportDTO {
+    private Long id;
+    private String title;
+    private String description;
+    private TicketStatus status;
+    private TicketPriority priority;
+    private Long createdById;
+    private Long assignedToId;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+}
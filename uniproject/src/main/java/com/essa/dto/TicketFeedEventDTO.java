@@ -0,0 +1,16 @@
+package com.essa.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TicketFeedEventDTO {
+    private Long ticketId;
+    // TicketChangedEvent.Type name
+    private String type;
+    // state after the change, null for DELETED
+    private TicketDTO ticket;
+}
@@ -0,0 +1,18 @@
+package com.essa.dto;
+
+import com.essa.model.TicketPriority;
+import com.essa.model.TicketStatus;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+public class TicketFilterDTO {
+    private TicketStatus status;
+    private TicketPriority priority;
+    private Long assignedToId;
+    private Long createdById;
+    // createdAt range, from inclusive, to exclusive; only used by the export
+    private LocalDateTime createdFrom;
+    private LocalDateTime createdTo;
+}
@@ -0,0 +1,27 @@
+package com.essa.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class TicketImportResultDTO {
+
+    private long processed;
+    private long imported;
+    private long failed;
+    // only the first MAX_REPORTED_ERRORS are kept; failed still counts all of them
+    private List<LineError> errors = new ArrayList<>();
+    private boolean errorsTruncated;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class LineError {
+        private long line;
+        private String message;
+    }
+}
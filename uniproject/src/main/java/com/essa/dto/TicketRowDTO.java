@@ -0,0 +1,26 @@
+package com.essa.dto;
+
+import com.essa.model.TicketPriority;
+import com.essa.model.TicketStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// A ticket read as a projection: the TicketDTO fields plus updatedAt, the position for the next keyset cursor,
+// and version, the ETag of GET /tickets/{id}
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TicketRowDTO {
+    private Long id;
+    private String title;
+    private String description;
+    private TicketStatus status;
+    private TicketPriority priority;
+    private Long createdById;
+    private Long assignedToId;
+    private LocalDateTime updatedAt;
+    private Long version;
+}
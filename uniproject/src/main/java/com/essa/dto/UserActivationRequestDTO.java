@@ -0,0 +1,11 @@
+package com.essa.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class UserActivationRequestDTO {
+    private List<Long> ids;
+    private Boolean active;
+}
@@ -0,0 +1,14 @@
+package com.essa.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserActivationResultDTO {
+    private int requested;
+    // users whose flag actually flipped; the rest were already in the requested state or do not exist
+    private int changed;
+}
@@ -10,4 +10,5 @@ public class UserDTO {
     private String lastname;
     private String email;
     private Long roleId;
+    private boolean active;
 }
\ No newline at end of file
@@ -0,0 +1,19 @@
+package com.essa.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserObserverStatsDTO {
+    private String observer;
+    private int queueDepth;
+    private long delivered;
+    private long dropped;
+    private long failed;
+    // time from commit to delivery: latest event and worst seen
+    private long lastLagMillis;
+    private long maxLagMillis;
+}
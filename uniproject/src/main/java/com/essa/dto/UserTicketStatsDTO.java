@@ -0,0 +1,15 @@
+package com.essa.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserTicketStatsDTO {
+    private Long userId;
+    private long createdTickets;
+    private long assignedTickets;
+    private long highPriorityAssigned;
+}
@@ -0,0 +1,16 @@
+package com.essa.dto;
+
+import lombok.Data;
+
+@Data
+public class UserWithStatsDTO {
+    private Long id;
+    private String username;
+    private String firstname;
+    private String lastname;
+    private String email;
+    private Long roleId;
+    private long createdTickets;
+    private long assignedTickets;
+    private long highPriorityAssigned;
+}
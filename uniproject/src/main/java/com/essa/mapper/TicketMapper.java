@@ -2,6 +2,7 @@ package com.essa.mapper;
 
 import com.essa.dto.TicketCreateDTO;
 import com.essa.dto.TicketDTO;
+import com.essa.dto.TicketRowDTO;
 import com.essa.dto.TicketUpdateDTO;
 import com.essa.model.Ticket;
 import com.essa.model.User;
@@ -14,9 +15,12 @@ public interface TicketMapper {
     @Mapping(target = "assignedToId", source = "assignedTo.id")
     TicketDTO toDTO(Ticket ticket);
 
+    TicketDTO toDTO(TicketRowDTO row);
+
     @Mapping(target = "id", ignore = true)
     @Mapping(target = "createdAt", ignore = true)
     @Mapping(target = "updatedAt", ignore = true)
+    @Mapping(target = "version", ignore = true)
     @Mapping(target = "createdBy", ignore = true)
     @Mapping(target = "assignedTo", ignore = true)
     Ticket toEntity(TicketCreateDTO dto);
@@ -24,6 +28,7 @@ public interface TicketMapper {
     @Mapping(target = "id", ignore = true)
     @Mapping(target = "createdAt", ignore = true)
     @Mapping(target = "updatedAt", ignore = true)
+    @Mapping(target = "version", ignore = true)
     @Mapping(target = "createdBy", ignore = true)
     @Mapping(target = "assignedTo", ignore = true)
     void updateEntityFromDto(TicketUpdateDTO dto, @MappingTarget Ticket ticket);
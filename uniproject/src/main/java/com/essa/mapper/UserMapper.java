@@ -2,7 +2,9 @@ package com.essa.mapper;
 
 import com.essa.dto.UserCreateDTO;
 import com.essa.dto.UserDTO;
+import com.essa.dto.UserTicketStatsDTO;
 import com.essa.dto.UserUpdateDTO;
+import com.essa.dto.UserWithStatsDTO;
 import com.essa.model.User;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
@@ -15,20 +17,29 @@ public interface UserMapper {
     @Mapping(target = "roleId", source = "role.id")
     UserDTO toDTO(User user);
 
+    // Entity + precomputed ticket counts -> DTO
+    @Mapping(target = "id", source = "user.id")
+    @Mapping(target = "roleId", source = "user.role.id")
+    UserWithStatsDTO toStatsDTO(User user, UserTicketStatsDTO stats);
+
     // CreateDTO -> Entity
     @Mapping(target = "id", ignore = true)
     @Mapping(target = "createdAt", ignore = true)
     @Mapping(target = "updatedAt", ignore = true)
+    @Mapping(target = "version", ignore = true)
     @Mapping(target = "createdBy", ignore = true)
     @Mapping(target = "role", ignore = true) // Będzie ustawiane w service
+    @Mapping(target = "active", ignore = true)
     User toEntity(UserCreateDTO dto);
 
     // UpdateDTO -> Entity (partial update)
     @Mapping(target = "id", ignore = true)
     @Mapping(target = "createdAt", ignore = true)
     @Mapping(target = "updatedAt", ignore = true)
+    @Mapping(target = "version", ignore = true)
     @Mapping(target = "createdBy", ignore = true)
     @Mapping(target = "username", ignore = true) // Username nie może być zmieniany
     @Mapping(target = "role", ignore = true) // Będzie ustawiane w service
+    @Mapping(target = "active", ignore = true)
     void updateEntityFromDto(UserUpdateDTO dto, @MappingTarget User user);
 }
\ No newline at end of file
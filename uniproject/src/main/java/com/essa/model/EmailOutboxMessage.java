@@ -0,0 +1,64 @@
+package com.essa.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// One pending notification, see V3__Email_outbox.sql
+@Entity
+@Table(name = "email_outbox")
+@Data
+@NoArgsConstructor
+public class EmailOutboxMessage {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "emailOutboxId")
+    @SequenceGenerator(name = "emailOutboxId", sequenceName = "email_outbox_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "recipient_id", nullable = false)
+    private Long recipientId;
+
+    @Column(name = "recipient_email", nullable = false, length = 200)
+    private String recipientEmail;
+
+    @Column(name = "recipient_name", nullable = false)
+    private String recipientName;
+
+    @Column(name = "ticket_id", nullable = false)
+    private Long ticketId;
+
+    @Column(name = "ticket_title", nullable = false)
+    private String ticketTitle;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private EmailOutboxStatus status = EmailOutboxStatus.PENDING;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "sent_at")
+    private LocalDateTime sentAt;
+
+    @Column(name = "last_error", length = 500)
+    private String lastError;
+
+    public EmailOutboxMessage(User recipient, Long ticketId, String ticketTitle, LocalDateTime now) {
+        this.recipientId = recipient.getId();
+        this.recipientEmail = recipient.getEmail();
+        this.recipientName = recipient.getUsername();
+        this.ticketId = ticketId;
+        this.ticketTitle = ticketTitle;
+        this.nextAttemptAt = now;
+        this.createdAt = now;
+    }
+}
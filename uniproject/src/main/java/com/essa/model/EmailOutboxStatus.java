@@ -0,0 +1,7 @@
+package com.essa.model;
+
+public enum EmailOutboxStatus {
+    PENDING,
+    SENT,
+    FAILED
+}
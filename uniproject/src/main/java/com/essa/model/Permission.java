@@ -1,18 +1,25 @@
 package com.essa.model;
 
+import com.essa.security.RolePermissionChangeListener;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@EntityListeners(RolePermissionChangeListener.class)
 @Table(name = "permissions")
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Permission {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "permissionId")
+    @SequenceGenerator(name = "permissionId", sequenceName = "permissions_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "permission", nullable = false, unique = true)
@@ -17,7 +17,8 @@ import java.time.LocalDateTime;
 public class Ticket {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "ticketId")
+    @SequenceGenerator(name = "ticketId", sequenceName = "tickets_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -47,4 +48,9 @@ public class Ticket {
     @UpdateTimestamp
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
+
+    // optimistic lock and ETag; the bulk updates in TicketRepository increment it themselves
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
 }
\ No newline at end of file
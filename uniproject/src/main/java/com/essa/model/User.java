@@ -16,7 +16,8 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 public class User {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "userId")
+    @SequenceGenerator(name = "userId", sequenceName = "users_seq", allocationSize = 50)
     private Long id;
 
     @CreationTimestamp
@@ -49,4 +50,13 @@ public class User {
     @ManyToOne(fetch = FetchType.EAGER)
     @JoinColumn(name = "role_id", nullable = false)
     private Role role;
+
+    // only changed through UserCommandInvoker's bulk updates, so saving a stale entity cannot undo a deactivation
+    @Column(name = "active", nullable = false, updatable = false)
+    private boolean active = true;
+
+    // optimistic lock and ETag; the bulk updates in UserRepository increment it themselves
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
 }
\ No newline at end of file
@@ -1,12 +1,23 @@
 package com.essa.repository;
 
 import com.essa.model.Role;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
 
 @Repository
 public interface RoleRepository extends JpaRepository<Role, Long> {
+
+    String BY_NAME_CACHE_REGION = "roles-by-name";
+
+    // answered from the query cache; the region is evicted with the other role caches on writes
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = BY_NAME_CACHE_REGION)
+    })
     Optional<Role> findByName(String name);
-}
\ No newline at end of file
+}
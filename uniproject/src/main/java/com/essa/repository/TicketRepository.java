@@ -1,17 +1,201 @@
 package com.essa.repository;
 
+import com.essa.dto.TicketDTO;
+import com.essa.dto.TicketExportDTO;
+import com.essa.dto.TicketRowDTO;
 import com.essa.model.Ticket;
+import com.essa.model.TicketPriority;
 import com.essa.model.TicketStatus;
 import com.essa.model.User;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface TicketRepository extends JpaRepository<Ticket, Long> {
+
+    int EXPORT_FETCH_SIZE = 500;
+
     List<Ticket> findByStatus(TicketStatus status);
     List<Ticket> findByCreatedBy(User createdBy);
     List<Ticket> findByAssignedTo(User assignedTo);
-    List<Ticket> findByTitle(Ticket title);
-}
\ No newline at end of file
+    List<Ticket> findByTitle(String title);
+
+    // Keyset pages: the limit comes from the Pageable, the position from the last row of the previous page.
+    // Rows are read-only DTOs built from the foreign-key columns, no entities, snapshots or User proxies
+    @Query("""
+            SELECT new com.essa.dto.TicketRowDTO(t.id, t.title, t.description, t.status, t.priority,
+                                                 t.createdBy.id, t.assignedTo.id, t.updatedAt, t.version)
+            FROM Ticket t
+            WHERE t.id > :afterId
+              AND (:status IS NULL OR t.status = :status)
+              AND (:priority IS NULL OR t.priority = :priority)
+              AND (:assignedToId IS NULL OR t.assignedTo.id = :assignedToId)
+              AND (:createdById IS NULL OR t.createdBy.id = :createdById)
+            ORDER BY t.id ASC
+            """)
+    List<TicketRowDTO> findPageOrderById(@Param("afterId") Long afterId,
+                                         @Param("status") TicketStatus status,
+                                         @Param("priority") TicketPriority priority,
+                                         @Param("assignedToId") Long assignedToId,
+                                         @Param("createdById") Long createdById,
+                                         Pageable pageable);
+
+    @Query("""
+            SELECT new com.essa.dto.TicketRowDTO(t.id, t.title, t.description, t.status, t.priority,
+                                                 t.createdBy.id, t.assignedTo.id, t.updatedAt, t.version)
+            FROM Ticket t
+            WHERE (t.updatedAt < :afterUpdatedAt OR (t.updatedAt = :afterUpdatedAt AND t.id < :afterId))
+              AND (:status IS NULL OR t.status = :status)
+              AND (:priority IS NULL OR t.priority = :priority)
+              AND (:assignedToId IS NULL OR t.assignedTo.id = :assignedToId)
+              AND (:createdById IS NULL OR t.createdBy.id = :createdById)
+            ORDER BY t.updatedAt DESC, t.id DESC
+            """)
+    List<TicketRowDTO> findPageOrderByUpdatedAt(@Param("afterUpdatedAt") LocalDateTime afterUpdatedAt,
+                                                @Param("afterId") Long afterId,
+                                                @Param("status") TicketStatus status,
+                                                @Param("priority") TicketPriority priority,
+                                                @Param("assignedToId") Long assignedToId,
+                                                @Param("createdById") Long createdById,
+                                                Pageable pageable);
+
+    // Row as currently committed: COMMIT flush mode stops Hibernate from first flushing pending changes
+    // to a managed copy of the same ticket, so callers can diff old and new state
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FLUSH_MODE, value = "COMMIT"))
+    @Query("""
+            SELECT new com.essa.dto.TicketDTO(t.id, t.title, t.description, t.status, t.priority,
+                                              t.createdBy.id, t.assignedTo.id)
+            FROM Ticket t WHERE t.id = :id
+            """)
+    Optional<TicketDTO> findCommittedStateById(@Param("id") Long id);
+
+    @Query("""
+            SELECT new com.essa.dto.TicketRowDTO(t.id, t.title, t.description, t.status, t.priority,
+                                                 t.createdBy.id, t.assignedTo.id, t.updatedAt, t.version)
+            FROM Ticket t WHERE t.id = :id
+            """)
+    Optional<TicketRowDTO> findRowById(@Param("id") Long id);
+
+    // Locks the rows until the bulk update commits, so the before-states in its events stay true; id order keeps two
+    // overlapping bulk requests from deadlocking
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FLUSH_MODE, value = "COMMIT"))
+    @Query("""
+            SELECT new com.essa.dto.TicketDTO(t.id, t.title, t.description, t.status, t.priority,
+                                              t.createdBy.id, t.assignedTo.id)
+            FROM Ticket t WHERE t.id IN :ids ORDER BY t.id
+            """)
+    List<TicketDTO> findCommittedStatesByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Set-based updates for bulk operations. Bulk JPQL skips @UpdateTimestamp and @Version, so callers pass the time,
+    // the version is incremented here, and the persistence context is cleared afterwards because managed tickets
+    // would be stale
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("""
+            UPDATE Ticket t SET t.status = :status, t.updatedAt = :now, t.version = t.version + 1
+            WHERE t.id IN :ids
+            """)
+    int updateStatus(@Param("ids") Collection<Long> ids, @Param("status") TicketStatus status,
+                     @Param("now") LocalDateTime now);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("""
+            UPDATE Ticket t SET t.priority = :priority, t.updatedAt = :now, t.version = t.version + 1
+            WHERE t.id IN :ids
+            """)
+    int updatePriority(@Param("ids") Collection<Long> ids, @Param("priority") TicketPriority priority,
+                       @Param("now") LocalDateTime now);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("""
+            UPDATE Ticket t SET t.assignedTo = :assignee, t.updatedAt = :now, t.version = t.version + 1
+            WHERE t.id IN :ids
+            """)
+    int updateAssignee(@Param("ids") Collection<Long> ids, @Param("assignee") User assignee,
+                       @Param("now") LocalDateTime now);
+
+    // PATCH: one statement, a null parameter leaves its column as it is; 0 when the row is gone or no longer
+    // at the given version
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("""
+            UPDATE Ticket t SET t.title = COALESCE(:title, t.title),
+                                t.description = COALESCE(:description, t.description),
+                                t.status = COALESCE(:status, t.status),
+                                t.priority = COALESCE(:priority, t.priority),
+                                t.assignedTo.id = COALESCE(:assigneeId, t.assignedTo.id),
+                                t.updatedAt = :now,
+                                t.version = t.version + 1
+            WHERE t.id = :id AND t.version = :version
+            """)
+    int patch(@Param("id") Long id, @Param("version") Long version, @Param("title") String title,
+              @Param("description") String description, @Param("status") TicketStatus status,
+              @Param("priority") TicketPriority priority, @Param("assigneeId") Long assigneeId,
+              @Param("now") LocalDateTime now);
+
+    // DELETE guarded the same way: 0 when the row is gone or no longer at the given version
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM Ticket t WHERE t.id = :id AND t.version = :version")
+    int deleteByIdAndVersion(@Param("id") Long id, @Param("version") Long version);
+
+    // Forward-only read for the export: rows are DTOs, so nothing accumulates in the persistence context,
+    // and the fetch size lets the driver stream from a server-side cursor instead of buffering the result
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + EXPORT_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+    })
+    @Query("""
+            SELECT new com.essa.dto.TicketExportDTO(t.id, t.title, t.description, t.status, t.priority,
+                                                    t.createdBy.id, t.assignedTo.id, t.createdAt, t.updatedAt)
+            FROM Ticket t
+            WHERE (:status IS NULL OR t.status = :status)
+              AND (:priority IS NULL OR t.priority = :priority)
+              AND (:assignedToId IS NULL OR t.assignedTo.id = :assignedToId)
+              AND (:createdById IS NULL OR t.createdBy.id = :createdById)
+              AND (:createdFrom IS NULL OR t.createdAt >= :createdFrom)
+              AND (:createdTo IS NULL OR t.createdAt < :createdTo)
+            ORDER BY t.id ASC
+            """)
+    Stream<TicketExportDTO> streamForExport(@Param("status") TicketStatus status,
+                                            @Param("priority") TicketPriority priority,
+                                            @Param("assignedToId") Long assignedToId,
+                                            @Param("createdById") Long createdById,
+                                            @Param("createdFrom") LocalDateTime createdFrom,
+                                            @Param("createdTo") LocalDateTime createdTo);
+
+    interface UserTicketCount {
+        Long getUserId();
+        Long getTotal();
+        Long getHighPriority();
+    }
+
+    @Query("""
+            SELECT t.createdBy.id AS userId, COUNT(t) AS total, 0L AS highPriority
+            FROM Ticket t WHERE t.createdBy IS NOT NULL
+            GROUP BY t.createdBy.id
+            """)
+    List<UserTicketCount> countCreatedPerUser();
+
+    @Query("""
+            SELECT t.assignedTo.id AS userId, COUNT(t) AS total,
+                   SUM(CASE WHEN t.priority IN (com.essa.model.TicketPriority.HIGH, com.essa.model.TicketPriority.CRITICAL)
+                            THEN 1L ELSE 0L END) AS highPriority
+            FROM Ticket t WHERE t.assignedTo IS NOT NULL
+            GROUP BY t.assignedTo.id
+            """)
+    List<UserTicketCount> countAssignedPerUser();
+}
@@ -2,9 +2,16 @@ package com.essa.repository;
 
 import com.essa.model.User;
 import com.essa.model.Role;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -16,4 +23,51 @@ public interface UserRepository extends JpaRepository<User, Long> {
     List<User> findByLastname(String lastname);
     boolean existsByUsername(String username);
     boolean existsByEmail(String email);
+
+    @Query("SELECT u.id FROM User u WHERE u.id IN :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    interface UserActiveState {
+        Long getId();
+        Boolean getActive();
+        Long getVersion();
+    }
+
+    // (De)activation: locked, so the versions read here are still the rows' versions when they are updated
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT u.id AS id, u.active AS active, u.version AS version FROM User u WHERE u.id IN :ids ORDER BY u.id")
+    List<UserActiveState> lockActiveStates(@Param("ids") Collection<Long> ids);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("""
+            UPDATE User u SET u.active = :active, u.updatedAt = :now, u.version = u.version + 1
+            WHERE u.id IN :ids
+            """)
+    int updateActive(@Param("ids") Collection<Long> ids, @Param("active") boolean active,
+                     @Param("now") LocalDateTime now);
+
+    // PATCH: one statement, a null parameter leaves its column as it is; a null version skips the version check.
+    // Bulk JPQL skips @Version, so the version is incremented here
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("""
+            UPDATE User u SET u.firstname = COALESCE(:firstname, u.firstname),
+                              u.lastname = COALESCE(:lastname, u.lastname),
+                              u.email = COALESCE(:email, u.email),
+                              u.password = COALESCE(:password, u.password),
+                              u.role.id = COALESCE(:roleId, u.role.id),
+                              u.updatedAt = :now,
+                              u.version = u.version + 1
+            WHERE u.id = :id AND (:version IS NULL OR u.version = :version)
+            """)
+    int patch(@Param("id") Long id, @Param("version") Long version, @Param("firstname") String firstname,
+              @Param("lastname") String lastname, @Param("email") String email, @Param("password") String password,
+              @Param("roleId") Long roleId, @Param("now") LocalDateTime now);
+
+    @Query("SELECT u.version FROM User u WHERE u.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
+
+    // DELETE with the same optional version check as patch
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM User u WHERE u.id = :id AND (:version IS NULL OR u.version = :version)")
+    int deleteByIdAndVersion(@Param("id") Long id, @Param("version") Long version);
 }
\ No newline at end of file
@@ -0,0 +1,164 @@
+package com.essa.security;
+
+import com.essa.util.strategy.CacheInvalidationBroadcaster;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+// Decides whether authorities embedded in a token are still trustworthy.
+// Cluster-wide: tokens carry the jwt.authority-version they were issued under; bump the property to force
+// everyone to log in again. Role/permission writes move a global watermark, user writes move that user's
+// watermark; tokens issued before a watermark are rejected.
+// Both are kept in user_token_revocations (the global one as user_id 0) and written in the changing transaction;
+// a 'user-tokens' broadcast makes the other nodes read the rows newer than they have seen, a restarted node reads all.
+// A user whose watermark arrives that way is dropped from UserDetailsCache as well, as the writing node did locally
+@Component
+public class AuthorityEpoch {
+
+    public static final String USER_TOKENS = "user-tokens";
+
+    private static final Logger logger = Logger.getLogger(AuthorityEpoch.class.getName());
+
+    static final long GLOBAL = 0L;
+    // rows are stamped before their transaction commits, so a slow commit can show up older than one already read
+    private static final long LATE_COMMIT_SECONDS = 60;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final CacheInvalidationBroadcaster broadcaster;
+    private final UserDetailsCache userDetailsCache;
+    private final long tokenLifetimeSeconds;
+    private volatile long notBeforeSeconds;
+    private final Cache<Long, Long> userNotBeforeSeconds;
+    private final AtomicLong newestLoaded = new AtomicLong();
+
+    public AuthorityEpoch(@Value("${jwt.expiration:86400000}") long tokenLifetimeMillis,
+                          JdbcTemplate jdbcTemplate,
+                          CacheInvalidationBroadcaster broadcaster,
+                          UserDetailsCache userDetailsCache) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.broadcaster = broadcaster;
+        this.userDetailsCache = userDetailsCache;
+        this.tokenLifetimeSeconds = tokenLifetimeMillis / 1000;
+        // a watermark older than the token lifetime can no longer reject anything
+        this.userNotBeforeSeconds = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofMillis(tokenLifetimeMillis))
+                .maximumSize(100_000)
+                .build();
+        broadcaster.subscribe(cache -> {
+            if (USER_TOKENS.equals(cache)) {
+                loadWatermarks(Math.max(newestLoaded.get() - LATE_COMMIT_SECONDS, nowSeconds() - tokenLifetimeSeconds));
+            }
+        });
+    }
+
+    // the shared row is written in the caller's transaction, like the role/permission change itself
+    public void advanceAll() {
+        saveWatermark(GLOBAL, nowSeconds());
+        broadcaster.publish(USER_TOKENS);
+        AfterCommit.run(() -> raiseGlobal(nowSeconds()));
+    }
+
+    public void advanceUser(Long userId) {
+        advanceUsers(List.of(userId));
+    }
+
+    // the shared rows are written in the caller's transaction, so they commit or roll back with the user change
+    public void advanceUsers(Collection<Long> userIds) {
+        if (userIds.isEmpty()) {
+            return;
+        }
+        long now = nowSeconds();
+        for (Long userId : userIds) {
+            saveWatermark(userId, now);
+        }
+        broadcaster.publish(USER_TOKENS);
+        AfterCommit.run(() -> {
+            long committedAt = nowSeconds();
+            userIds.forEach(userId -> userNotBeforeSeconds.put(userId, committedAt));
+        });
+    }
+
+    public boolean isCurrent(VerifiedToken token, long requiredVersion) {
+        if (token.getAuthorityVersion() < requiredVersion || token.getIssuedAt() == null) {
+            return false;
+        }
+        // iat has second precision, so a token from the same second as the change counts as stale
+        long issuedAt = token.getIssuedAt().getTime() / 1000;
+        if (issuedAt <= notBeforeSeconds) {
+            return false;
+        }
+        Long userNotBefore = token.getUserId() != null ? userNotBeforeSeconds.getIfPresent(token.getUserId()) : null;
+        return userNotBefore == null || issuedAt > userNotBefore;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadWatermarks() {
+        loadWatermarks(nowSeconds() - tokenLifetimeSeconds);
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.revocation-purge-interval:1h}")
+    public void purgeExpired() {
+        int removed = jdbcTemplate.update("DELETE FROM user_token_revocations WHERE not_before < ?",
+                nowSeconds() - tokenLifetimeSeconds);
+        if (removed > 0) {
+            logger.fine("Purged " + removed + " expired token watermarks");
+        }
+    }
+
+    private void loadWatermarks(long since) {
+        jdbcTemplate.query("SELECT user_id, not_before FROM user_token_revocations WHERE not_before >= ?", row -> {
+            long userId = row.getLong("user_id");
+            long notBefore = row.getLong("not_before");
+            if (userId == GLOBAL) {
+                raiseGlobal(notBefore);
+            } else {
+                Long known = userNotBeforeSeconds.getIfPresent(userId);
+                if (known == null || notBefore > known) {
+                    userNotBeforeSeconds.put(userId, notBefore);
+                    userDetailsCache.evictUserId(userId);
+                }
+            }
+            newestLoaded.accumulateAndGet(notBefore, Math::max);
+        }, since);
+    }
+
+    private synchronized void raiseGlobal(long notBefore) {
+        notBeforeSeconds = Math.max(notBeforeSeconds, notBefore);
+    }
+
+    // a transaction that inserted the same user's first row meanwhile wins the insert, this one then raises it
+    private void saveWatermark(Long userId, long notBefore) {
+        if (raiseWatermark(userId, notBefore) > 0) {
+            return;
+        }
+        try {
+            jdbcTemplate.update("INSERT INTO user_token_revocations (user_id, not_before) VALUES (?, ?)",
+                    userId, notBefore);
+        } catch (DuplicateKeyException e) {
+            raiseWatermark(userId, notBefore);
+        }
+    }
+
+    private int raiseWatermark(Long userId, long notBefore) {
+        return jdbcTemplate.update(
+                "UPDATE user_token_revocations SET not_before = GREATEST(not_before, ?) WHERE user_id = ?",
+                notBefore, userId);
+    }
+
+    private static long nowSeconds() {
+        return new Date().getTime() / 1000;
+    }
+}
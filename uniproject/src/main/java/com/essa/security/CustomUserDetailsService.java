@@ -15,13 +15,19 @@ import java.util.Collection;
 public class CustomUserDetailsService implements UserDetailsService {
 
     private final UserRepository userRepository;
+    private final UserDetailsCache userDetailsCache;
 
-    public CustomUserDetailsService(UserRepository userRepository) {
+    public CustomUserDetailsService(UserRepository userRepository, UserDetailsCache userDetailsCache) {
         this.userRepository = userRepository;
+        this.userDetailsCache = userDetailsCache;
     }
 
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
+        return userDetailsCache.get(username, this::loadPrincipal);
+    }
+
+    private UserDetailsCache.CachedPrincipal loadPrincipal(String username) {
         User user = userRepository.findByUsername(username)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found with username: " + username));
 
@@ -36,9 +42,11 @@ public class CustomUserDetailsService implements UserDetailsService {
             }
         }
 
-        return new org.springframework.security.core.userdetails.User(
+        return new UserDetailsCache.CachedPrincipal(
+                user.getId(),
                 user.getUsername(),
                 user.getPassword(),
+                user.isActive(),
                 authorities);
     }
 }
\ No newline at end of file
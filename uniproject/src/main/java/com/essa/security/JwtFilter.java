@@ -1,5 +1,7 @@
 package com.essa.security;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -12,16 +14,31 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.concurrent.TimeUnit;
 
 @Component
 public class JwtFilter extends OncePerRequestFilter {
 
     private final JwtUtil jwtUtil;
     private final CustomUserDetailsService userDetailsService;
+    private final AuthorityEpoch authorityEpoch;
+    private final Timer validTokens;
+    private final Timer invalidTokens;
 
-    public JwtFilter(JwtUtil jwtUtil, CustomUserDetailsService userDetailsService) {
+    public JwtFilter(JwtUtil jwtUtil, CustomUserDetailsService userDetailsService, AuthorityEpoch authorityEpoch,
+                     MeterRegistry meterRegistry) {
         this.jwtUtil = jwtUtil;
         this.userDetailsService = userDetailsService;
+        this.authorityEpoch = authorityEpoch;
+        this.validTokens = validationTimer(meterRegistry, "valid");
+        this.invalidTokens = validationTimer(meterRegistry, "invalid");
+    }
+
+    private static Timer validationTimer(MeterRegistry meterRegistry, String outcome) {
+        return Timer.builder("auth.jwt.validation")
+                .description("Signature and claims check of bearer tokens")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
     }
 
     @Override
@@ -43,32 +60,50 @@ public class JwtFilter extends OncePerRequestFilter {
         
         final String authorizationHeader = request.getHeader("Authorization");
 
-        String username = null;
-        String jwt = null;
+        VerifiedToken token = null;
 
         if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")) {
-            jwt = authorizationHeader.substring(7);
+            String jwt = authorizationHeader.substring(7);
+            long start = System.nanoTime();
             try {
-                username = jwtUtil.extractUsername(jwt);
+                token = jwtUtil.verify(jwt);
+                validTokens.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
             } catch (Exception e) {
+                invalidTokens.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
                 logger.error("JWT Token validation failed", e);
             }
         }
 
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = this.userDetailsService.loadUserByUsername(username);
+        if (token != null && token.getUsername() != null
+                && SecurityContextHolder.getContext().getAuthentication() == null) {
+            UserDetails userDetails = resolvePrincipal(token);
 
-            if (jwtUtil.validateToken(jwt, userDetails)) {
+            if (userDetails != null) {
                 UsernamePasswordAuthenticationToken usernamePasswordAuthenticationToken =
                         new UsernamePasswordAuthenticationToken(
                                 userDetails, null, userDetails.getAuthorities());
                 usernamePasswordAuthenticationToken
                         .setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                 SecurityContextHolder.getContext().setAuthentication(usernamePasswordAuthenticationToken);
+            } else {
+                logger.debug("Rejected stale token or disabled account for " + token.getUsername());
             }
         }
         filterChain.doFilter(request, response);
         
     }
 
+    // Stateless tokens are trusted as-is unless a permission change has made them stale; others go to the user store
+    private UserDetails resolvePrincipal(VerifiedToken token) {
+        if (jwtUtil.isStatelessAuthorities() && token.hasAuthorities()) {
+            if (!authorityEpoch.isCurrent(token, jwtUtil.getAuthorityVersion())) {
+                return null;
+            }
+            return new AuthenticatedUser(token.getUserId(), token.getUsername(), "", token.getAuthorities());
+        }
+        UserDetails userDetails = this.userDetailsService.loadUserByUsername(token.getUsername());
+        // deactivated accounts lose access with their next request, not when the token expires
+        return userDetails.isEnabled() ? userDetails : null;
+    }
+
 }
\ No newline at end of file
@@ -1,31 +1,74 @@
 package com.essa.security;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Component
 public class JwtUtil {
 
+    public static final String USER_ID_CLAIM = "uid";
+    public static final String AUTHORITIES_CLAIM = "auth";
+    public static final String VERSION_CLAIM = "ver";
+
     @Value("${jwt.secret:defaultSecretKeyWhichShouldBeChangedInProduction}")
     private String secret;
 
     @Value("${jwt.expiration:86400000}") // 24 hours in milliseconds
     private Long expiration;
 
+    // Opt-in: login tokens carry the role and permissions so JwtFilter can skip the database
+    @Value("${jwt.stateless-authorities:false}")
+    private boolean statelessAuthorities;
+
+    @Value("${jwt.authority-version:1}")
+    private long authorityVersion;
+
+    // Built on first use; JwtParser is immutable and thread-safe, so one instance serves all requests
+    private volatile Key signingKey;
+    private volatile JwtParser parser;
+
     private Key getSigningKey() {
-        byte[] keyBytes = secret.getBytes();
-        return Keys.hmacShaKeyFor(keyBytes);
+        Key key = signingKey;
+        if (key == null) {
+            key = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+            signingKey = key;
+        }
+        return key;
+    }
+
+    private JwtParser getParser() {
+        JwtParser jwtParser = parser;
+        if (jwtParser == null) {
+            jwtParser = Jwts.parserBuilder()
+                    .setSigningKey(getSigningKey())
+                    .build();
+            parser = jwtParser;
+        }
+        return jwtParser;
+    }
+
+    /**
+     * Parses the token once, checking signature and expiry.
+     * @throws JwtException if the token is malformed, tampered with or expired
+     */
+    public VerifiedToken verify(String token) {
+        return new VerifiedToken(extractAllClaims(token));
     }
 
     public String extractUsername(String token) {
@@ -42,22 +85,34 @@ public class JwtUtil {
     }
 
     private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
+        return getParser()
                 .parseClaimsJws(token)
                 .getBody();
     }
 
-    private Boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
-    }
-
     public String generateToken(UserDetails userDetails) {
         Map<String, Object> claims = new HashMap<>();
+        if (statelessAuthorities) {
+            if (userDetails instanceof AuthenticatedUser authenticatedUser) {
+                claims.put(USER_ID_CLAIM, authenticatedUser.getUserId());
+            }
+            // one comma-joined string keeps the token much smaller than a JSON array of objects
+            claims.put(AUTHORITIES_CLAIM, userDetails.getAuthorities().stream()
+                    .map(GrantedAuthority::getAuthority)
+                    .collect(Collectors.joining(",")));
+            claims.put(VERSION_CLAIM, authorityVersion);
+        }
         return createToken(claims, userDetails.getUsername());
     }
 
+    public boolean isStatelessAuthorities() {
+        return statelessAuthorities;
+    }
+
+    public long getAuthorityVersion() {
+        return authorityVersion;
+    }
+
     private String createToken(Map<String, Object> claims, String subject) {
         return Jwts.builder()
                 .setClaims(claims)
@@ -68,8 +123,8 @@ public class JwtUtil {
                 .compact();
     }
 
+    // The parser already rejects expired tokens, so one parse covers both checks
     public Boolean validateToken(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
+        return verify(token).getUsername().equals(userDetails.getUsername());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,40 @@
+package com.essa.security;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Base64;
+
+// Lets Prometheus read /actuator/prometheus with the HTTP Basic credential from metrics.scrape.*, so the scraper
+// needs no user account or expiring token. Without a password nothing matches and the endpoint needs ADMIN
+@Component
+public class MetricsScrapeMatcher implements RequestMatcher {
+
+    static final String PROMETHEUS_PATH = "/actuator/prometheus";
+
+    private final byte[] expectedAuthorization;
+
+    public MetricsScrapeMatcher(@Value("${metrics.scrape.username:prometheus}") String username,
+                                @Value("${metrics.scrape.password:}") String password) {
+        this.expectedAuthorization = password.isEmpty() ? null
+                : ("Basic " + Base64.getEncoder().encodeToString((username + ":" + password)
+                        .getBytes(StandardCharsets.UTF_8))).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public boolean matches(HttpServletRequest request) {
+        if (expectedAuthorization == null
+                || !request.getRequestURI().equals(request.getContextPath() + PROMETHEUS_PATH)) {
+            return false;
+        }
+        String authorization = request.getHeader(HttpHeaders.AUTHORIZATION);
+        // constant time, the comparison must not reveal how much of the credential was right
+        return authorization != null
+                && MessageDigest.isEqual(expectedAuthorization, authorization.getBytes(StandardCharsets.UTF_8));
+    }
+}
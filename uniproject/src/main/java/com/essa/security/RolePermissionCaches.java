@@ -0,0 +1,59 @@
+package com.essa.security;
+
+import com.essa.model.Permission;
+import com.essa.model.Role;
+import com.essa.repository.RoleRepository;
+import com.essa.util.strategy.CacheInvalidationBroadcaster;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Cache;
+import org.springframework.stereotype.Component;
+
+import java.util.logging.Logger;
+
+// Everything cached from the roles and permissions tables: Hibernate's second-level regions, per-user details and
+// the token watermark. A write on this node clears them and tells the other nodes to do the same; they take the
+// watermark itself from its shared row (see AuthorityEpoch).
+@Component
+public class RolePermissionCaches {
+
+    public static final String NAME = "roles";
+
+    private static final Logger logger = Logger.getLogger(RolePermissionCaches.class.getName());
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final UserDetailsCache userDetailsCache;
+    private final AuthorityEpoch authorityEpoch;
+    private final CacheInvalidationBroadcaster broadcaster;
+
+    public RolePermissionCaches(EntityManagerFactory entityManagerFactory, UserDetailsCache userDetailsCache,
+                                AuthorityEpoch authorityEpoch, CacheInvalidationBroadcaster broadcaster) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.userDetailsCache = userDetailsCache;
+        this.authorityEpoch = authorityEpoch;
+        this.broadcaster = broadcaster;
+        broadcaster.subscribe(cache -> {
+            if (NAME.equals(cache)) {
+                logger.fine("Role/permission change announced, evicting cached copies");
+                evictRegions();
+                userDetailsCache.invalidateAll();
+            }
+        });
+    }
+
+    // Hibernate keeps its regions in step with its own writes; the explicit eviction also covers bulk statements.
+    // Regions are cleared after commit so a concurrent read cannot put the old rows back in between.
+    public void changed() {
+        userDetailsCache.invalidateAll();
+        authorityEpoch.advanceAll();
+        broadcaster.publish(NAME);
+        AfterCommit.run(this::evictRegions);
+    }
+
+    private void evictRegions() {
+        Cache cache = entityManagerFactory.getCache().unwrap(Cache.class);
+        cache.evictEntityData(Role.class);
+        cache.evictEntityData(Permission.class);
+        cache.evictCollectionData(Role.class.getName() + ".rolePermissions");
+        cache.evictQueryRegion(RoleRepository.BY_NAME_CACHE_REGION);
+    }
+}
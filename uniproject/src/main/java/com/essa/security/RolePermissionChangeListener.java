@@ -0,0 +1,24 @@
+package com.essa.security;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+
+// JPA listener on Role/Permission: both are second-level cached, and authorities derived from them are cached per
+// user and embedded in tokens (see RolePermissionCaches)
+public class RolePermissionChangeListener {
+
+    private final ObjectProvider<RolePermissionCaches> rolePermissionCaches;
+
+    public RolePermissionChangeListener(ObjectProvider<RolePermissionCaches> rolePermissionCaches) {
+        this.rolePermissionCaches = rolePermissionCaches;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onChange(Object entity) {
+        rolePermissionCaches.ifAvailable(RolePermissionCaches::changed);
+    }
+}
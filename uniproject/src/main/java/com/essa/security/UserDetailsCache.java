@@ -0,0 +1,100 @@
+package com.essa.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+// Bounded, TTL-evicting cache of resolved principals keyed by username.
+// Entries are immutable snapshots; every lookup hands out a fresh UserDetails because
+// Spring Security erases credentials on the principal it authenticated.
+// Hits, misses, size and evictions are published as the cache.* meters tagged cache=user-details.
+@Component
+public class UserDetailsCache implements MeterBinder {
+
+    public static final String NAME = "user-details";
+
+    private final Cache<String, CachedPrincipal> cache;
+
+    public UserDetailsCache(@Value("${security.user-cache.max-size:10000}") long maxSize,
+                            @Value("${security.user-cache.ttl:5m}") Duration ttl) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    public UserDetails get(String username, Function<String, CachedPrincipal> loader) {
+        return cache.get(username, loader).toUserDetails();
+    }
+
+    public void evict(String username) {
+        AfterCommit.run(() -> cache.invalidate(username));
+    }
+
+    public void evictUserId(Long userId) {
+        AfterCommit.run(() -> cache.asMap().values().removeIf(p -> userId.equals(p.getUserId())));
+    }
+
+    // one pass over the cache for a whole batch of users
+    public void evictUserIds(Collection<Long> userIds) {
+        Set<Long> ids = Set.copyOf(userIds);
+        AfterCommit.run(() -> cache.asMap().values().removeIf(p -> ids.contains(p.getUserId())));
+    }
+
+    // Roles and permissions are shared by many users, so any change drops everything
+    public void invalidateAll() {
+        AfterCommit.run(cache::invalidateAll);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, NAME);
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    public static class CachedPrincipal {
+        private final Long userId;
+        private final String username;
+        private final String password;
+        private final boolean enabled;
+        private final List<GrantedAuthority> authorities;
+
+        public CachedPrincipal(Long userId, String username, String password,
+                               Collection<? extends GrantedAuthority> authorities) {
+            this(userId, username, password, true, authorities);
+        }
+
+        public CachedPrincipal(Long userId, String username, String password, boolean enabled,
+                               Collection<? extends GrantedAuthority> authorities) {
+            this.userId = userId;
+            this.username = username;
+            this.password = password;
+            this.enabled = enabled;
+            this.authorities = List.copyOf(authorities);
+        }
+
+        public Long getUserId() {
+            return userId;
+        }
+
+        public UserDetails toUserDetails() {
+            return new AuthenticatedUser(userId, username, password, enabled, authorities);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.essa.security;
+
+import io.jsonwebtoken.Claims;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+// Claims of a token whose signature and expiry have already been checked
+public class VerifiedToken {
+
+    private final Claims claims;
+
+    public VerifiedToken(Claims claims) {
+        this.claims = claims;
+    }
+
+    public String getUsername() {
+        return claims.getSubject();
+    }
+
+    public Date getIssuedAt() {
+        return claims.getIssuedAt();
+    }
+
+    public Date getExpiration() {
+        return claims.getExpiration();
+    }
+
+    public Long getUserId() {
+        return claims.get(JwtUtil.USER_ID_CLAIM, Long.class);
+    }
+
+    public long getAuthorityVersion() {
+        Long version = claims.get(JwtUtil.VERSION_CLAIM, Long.class);
+        return version != null ? version : 0L;
+    }
+
+    // Only tokens issued in stateless-authorities mode carry their authorities
+    public boolean hasAuthorities() {
+        return claims.containsKey(JwtUtil.AUTHORITIES_CLAIM);
+    }
+
+    public List<GrantedAuthority> getAuthorities() {
+        String encoded = claims.get(JwtUtil.AUTHORITIES_CLAIM, String.class);
+        if (encoded == null || encoded.isEmpty()) {
+            return List.of();
+        }
+        return Arrays.stream(encoded.split(","))
+                .<GrantedAuthority>map(SimpleGrantedAuthority::new)
+                .toList();
+    }
+
+    public Claims getClaims() {
+        return claims;
+    }
+}
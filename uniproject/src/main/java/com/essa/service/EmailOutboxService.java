@@ -0,0 +1,13 @@
+package com.essa.service;
+
+import com.essa.dto.TicketDTO;
+import com.essa.model.User;
+
+import java.util.List;
+
+public interface EmailOutboxService {
+    void enqueueAssignments(User assignee, List<TicketDTO> tickets);
+    int dispatchDue();
+    void discardForRecipient(Long recipientId);
+    int purgeFinished();
+}
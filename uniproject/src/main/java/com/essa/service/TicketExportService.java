@@ -0,0 +1,11 @@
+package com.essa.service;
+
+import com.essa.dto.TicketFilterDTO;
+import com.essa.util.strategy.TicketExportFormat;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+public interface TicketExportService {
+    long export(TicketFilterDTO filter, TicketExportFormat format, OutputStream out) throws IOException;
+}
@@ -0,0 +1,9 @@
+package com.essa.service;
+
+import com.essa.model.TicketStatus;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+public interface TicketFeedService {
+    SseEmitter subscribe(Long assignedToId, TicketStatus status, boolean resumed);
+    int getSubscriberCount();
+}
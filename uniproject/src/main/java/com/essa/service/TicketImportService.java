@@ -0,0 +1,11 @@
+package com.essa.service;
+
+import com.essa.dto.TicketImportResultDTO;
+import com.essa.util.strategy.TicketImportFormat;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+public interface TicketImportService {
+    TicketImportResultDTO importTickets(TicketImportFormat format, InputStream in) throws IOException;
+}
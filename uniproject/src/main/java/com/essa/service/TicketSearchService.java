@@ -0,0 +1,12 @@
+package com.essa.service;
+
+import com.essa.model.Ticket;
+import com.essa.model.TicketPriority;
+import com.essa.model.TicketStatus;
+
+import java.util.List;
+
+public interface TicketSearchService {
+    List<Ticket> search(String query, TicketStatus status, TicketPriority priority, int limit);
+    void rebuild();
+}
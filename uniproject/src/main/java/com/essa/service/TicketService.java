@@ -1,24 +1,37 @@
 package com.essa.service;
 
+import com.essa.dto.TicketBulkRequestDTO;
+import com.essa.dto.TicketBulkResultDTO;
+import com.essa.dto.TicketDTO;
+import com.essa.dto.TicketFilterDTO;
+import com.essa.dto.TicketRowDTO;
+import com.essa.dto.TicketUpdateDTO;
 import com.essa.model.Ticket;
 import com.essa.model.TicketStatus;
 import com.essa.model.TicketPriority;
 import com.essa.model.User;
+import com.essa.util.pagination.TicketCursor;
+import com.essa.util.pagination.TicketPage;
 
 import java.util.List;
+import java.util.Optional;
 
 public interface TicketService {
     Ticket findById(Long id);
+    TicketRowDTO findRowById(Long id);
     List<Ticket> findAll();
+    TicketPage findPage(TicketFilterDTO filter, TicketCursor.Sort sort, TicketCursor after, int size);
     List<Ticket> findByStatus(TicketStatus status);
     List<Ticket> findByCreatedBy(User createdBy);
     List<Ticket> findByAssignedTo(User assignedTo);
     
     Ticket create(Ticket ticket);
     Ticket update(Ticket ticket);
-    void delete(Long id);
+    Optional<TicketRowDTO> patch(Long id, TicketUpdateDTO patch, Long expectedVersion);
+    boolean delete(Long id, Long expectedVersion);
     
     Ticket assignToUser(Long ticketId, Long userId);
     Ticket changeStatus(Long ticketId, TicketStatus status);
     Ticket changePriority(Long ticketId, TicketPriority priority);
+    List<TicketBulkResultDTO> bulkUpdate(TicketBulkRequestDTO request);
 }
\ No newline at end of file
@@ -0,0 +1,12 @@
+package com.essa.service;
+
+import com.essa.dto.UserTicketStatsDTO;
+
+import java.util.Collection;
+import java.util.Map;
+
+public interface TicketStatsService {
+    UserTicketStatsDTO getStats(Long userId);
+    Map<Long, UserTicketStatsDTO> getStats(Collection<Long> userIds);
+    void rebuild();
+}
@@ -1,14 +1,26 @@
 package com.essa.service;
 
+import com.essa.dto.UserObserverStatsDTO;
+import com.essa.dto.UserUpdateDTO;
+import com.essa.model.Role;
 import com.essa.model.User;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface UserService {
     User findById(Long id);
     User findByUsername(String username);
     List<User> findAll();
+    List<User> findPage(int page, int size);
     User create(User user);
     User update(User user);
-    void delete(Long id);
+    Optional<Long> patch(Long id, UserUpdateDTO patch, Role role, Long expectedVersion);
+    boolean delete(Long id, Long expectedVersion);
     boolean hasPermission(Long userId, String permissionName);
+    String getUserWithStats(Long userId);
+    List<UserObserverStatsDTO> getObserverStats();
+    int setActive(Collection<Long> userIds, boolean active);
+    int undoActivationChange();
+    int redoActivationChange();
 }
\ No newline at end of file
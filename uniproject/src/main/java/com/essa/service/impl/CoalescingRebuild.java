@@ -0,0 +1,31 @@
+package com.essa.service.impl;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Runs a rebuild on the requesting thread unless one is already running, in which case the request folds into
+// one more run by that thread; a burst of imports then costs two table reads at most, and never two at once
+final class CoalescingRebuild {
+
+    private final Runnable rebuild;
+    private final AtomicBoolean requested = new AtomicBoolean();
+    private final ReentrantLock running = new ReentrantLock();
+
+    CoalescingRebuild(Runnable rebuild) {
+        this.rebuild = rebuild;
+    }
+
+    void request() {
+        requested.set(true);
+        // checked again after unlocking: a request made just before the unlock found the lock taken
+        while (requested.get() && running.tryLock()) {
+            try {
+                while (requested.getAndSet(false)) {
+                    rebuild.run();
+                }
+            } finally {
+                running.unlock();
+            }
+        }
+    }
+}
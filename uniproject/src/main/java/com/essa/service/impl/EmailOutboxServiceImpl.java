@@ -0,0 +1,187 @@
+package com.essa.service.impl;
+
+import com.essa.dto.TicketDTO;
+import com.essa.model.EmailOutboxMessage;
+import com.essa.model.EmailOutboxStatus;
+import com.essa.model.User;
+import com.essa.repository.EmailOutboxRepository;
+import com.essa.service.EmailOutboxService;
+import com.essa.util.builder.EmailMessageBuilder;
+import com.essa.util.strategy.EmailSender;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+// Writes notification rows inside the caller's transaction and delivers them later from a scheduled dispatcher.
+// A batch is claimed (leased) in one short transaction, sent with no transaction open, and the outcome
+// recorded in another, so slow delivery never holds database locks.
+@Service
+public class EmailOutboxServiceImpl implements EmailOutboxService {
+
+    private static final Logger logger = Logger.getLogger(EmailOutboxServiceImpl.class.getName());
+
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    private final EmailOutboxRepository outboxRepository;
+    private final EmailSender emailSender;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final Duration lease;
+    private final Duration retention;
+
+    public EmailOutboxServiceImpl(EmailOutboxRepository outboxRepository, EmailSender emailSender,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${email.outbox.batch-size:100}") int batchSize,
+                                  @Value("${email.outbox.max-attempts:8}") int maxAttempts,
+                                  @Value("${email.outbox.initial-backoff:30s}") Duration initialBackoff,
+                                  @Value("${email.outbox.max-backoff:1h}") Duration maxBackoff,
+                                  @Value("${email.outbox.lease:5m}") Duration lease,
+                                  @Value("${email.outbox.retention:7d}") Duration retention) {
+        this.outboxRepository = outboxRepository;
+        this.emailSender = emailSender;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+        this.lease = lease;
+        this.retention = retention;
+    }
+
+    // Joins the caller's transaction: the notification exists exactly when the assignment commits
+    @Override
+    @Transactional
+    public void enqueueAssignments(User assignee, List<TicketDTO> tickets) {
+        if (tickets.isEmpty()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        outboxRepository.saveAll(tickets.stream()
+                .map(ticket -> new EmailOutboxMessage(assignee, ticket.getId(), ticket.getTitle(), now))
+                .toList());
+    }
+
+    // Keeps claiming while full batches come back, so a backlog drains within one poll
+    @Scheduled(fixedDelayString = "${email.outbox.poll-interval:5s}",
+            initialDelayString = "${email.outbox.poll-interval:5s}")
+    public void drain() {
+        int claimed;
+        do {
+            claimed = dispatchDue();
+        } while (claimed == batchSize);
+    }
+
+    @Override
+    public int dispatchDue() {
+        List<EmailOutboxMessage> batch = transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<EmailOutboxMessage> due = outboxRepository.findDue(EmailOutboxStatus.PENDING, now,
+                    PageRequest.of(0, batchSize));
+            if (!due.isEmpty()) {
+                // hidden from other dispatchers until the lease runs out; a crash mid-send means a retry, not a loss
+                outboxRepository.lease(due.stream().map(EmailOutboxMessage::getId).toList(), now.plus(lease));
+            }
+            return due;
+        });
+        if (batch == null || batch.isEmpty()) {
+            return 0;
+        }
+
+        // several assignments to the same person become one digest
+        Map<String, List<EmailOutboxMessage>> byRecipient = new LinkedHashMap<>();
+        batch.forEach(message -> byRecipient
+                .computeIfAbsent(message.getRecipientEmail(), recipient -> new ArrayList<>())
+                .add(message));
+
+        List<Long> sent = new ArrayList<>();
+        Map<String, Exception> failed = new LinkedHashMap<>();
+        byRecipient.forEach((recipient, messages) -> {
+            try {
+                emailSender.send(recipient, compose(recipient, messages));
+                messages.forEach(message -> sent.add(message.getId()));
+            } catch (Exception e) {
+                failed.put(recipient, e);
+            }
+        });
+
+        transactionTemplate.executeWithoutResult(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            if (!sent.isEmpty()) {
+                outboxRepository.markSent(sent, now);
+            }
+            failed.forEach((recipient, error) -> recordFailure(byRecipient.get(recipient), error, now));
+        });
+        if (!failed.isEmpty()) {
+            logger.warning("Email outbox: " + sent.size() + " sent, " + failed.size() + " recipients failed");
+        }
+        return batch.size();
+    }
+
+    // the rows reference the user, and mail to someone who no longer has an account has nobody to go to
+    @Override
+    @Transactional
+    public void discardForRecipient(Long recipientId) {
+        outboxRepository.deleteByRecipient(recipientId);
+    }
+
+    // sent and given-up rows are only kept for a while to look into delivery problems
+    @Override
+    @Scheduled(fixedDelayString = "${email.outbox.purge-interval:1h}")
+    @Transactional
+    public int purgeFinished() {
+        int removed = outboxRepository.deleteFinishedBefore(
+                List.of(EmailOutboxStatus.SENT, EmailOutboxStatus.FAILED), LocalDateTime.now().minus(retention));
+        if (removed > 0) {
+            logger.fine("Purged " + removed + " finished outbox rows");
+        }
+        return removed;
+    }
+
+    private void recordFailure(List<EmailOutboxMessage> messages, Exception error, LocalDateTime now) {
+        int attempt = messages.stream().mapToInt(EmailOutboxMessage::getAttempts).max().orElse(0) + 1;
+        EmailOutboxStatus status = attempt >= maxAttempts ? EmailOutboxStatus.FAILED : EmailOutboxStatus.PENDING;
+        String reason = String.valueOf(error.getMessage());
+        if (reason.length() > MAX_ERROR_LENGTH) {
+            reason = reason.substring(0, MAX_ERROR_LENGTH);
+        }
+        outboxRepository.markFailedAttempt(messages.stream().map(EmailOutboxMessage::getId).toList(), status,
+                now.plus(backoff(attempt)), reason);
+        if (status == EmailOutboxStatus.FAILED) {
+            logger.severe("Giving up on email to " + messages.get(0).getRecipientEmail() + " after "
+                    + attempt + " attempts: " + reason);
+        }
+    }
+
+    // initialBackoff, doubled per failed attempt, capped at maxBackoff
+    public Duration backoff(int attempt) {
+        Duration delay = initialBackoff.multipliedBy(1L << Math.min(attempt - 1, 20));
+        return delay.compareTo(maxBackoff) > 0 ? maxBackoff : delay;
+    }
+
+    private static String compose(String recipient, List<EmailOutboxMessage> messages) {
+        String name = messages.get(0).getRecipientName();
+        List<String> titles = messages.stream()
+                .map(EmailOutboxMessage::getTicketTitle)
+                .distinct()
+                .toList();
+        EmailMessageBuilder builder = new EmailMessageBuilder().to(recipient).priority("high");
+        return (titles.size() == 1 ? builder.ticketAssigned(titles.get(0), name) : builder.ticketsAssigned(titles, name))
+                .build();
+    }
+}
@@ -0,0 +1,58 @@
+package com.essa.service.impl;
+
+import com.essa.dto.TicketExportDTO;
+import com.essa.dto.TicketFilterDTO;
+import com.essa.repository.TicketRepository;
+import com.essa.service.TicketExportService;
+import com.essa.util.strategy.TicketExportFormat;
+import com.essa.util.strategy.TicketExportWriter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+@Service
+public class TicketExportServiceImpl implements TicketExportService {
+
+    // rows written between flushes, so the client receives data while the cursor is still open
+    static final int FLUSH_EVERY_ROWS = 500;
+
+    private static final Logger logger = Logger.getLogger(TicketExportServiceImpl.class.getName());
+
+    private final TicketRepository ticketRepository;
+    private final ObjectMapper objectMapper;
+
+    public TicketExportServiceImpl(TicketRepository ticketRepository, ObjectMapper objectMapper) {
+        this.ticketRepository = ticketRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    // The stream must be consumed inside this transaction, so callers pass the output stream in.
+    // Rows are constructor projections, not entities: nothing is attached to the persistence context,
+    // so there is nothing to clear() every N rows however long the export runs
+    @Override
+    @Transactional(readOnly = true)
+    public long export(TicketFilterDTO filter, TicketExportFormat format, OutputStream out) throws IOException {
+        long count = 0;
+        try (Stream<TicketExportDTO> rows = ticketRepository.streamForExport(
+                     filter.getStatus(), filter.getPriority(), filter.getAssignedToId(), filter.getCreatedById(),
+                     filter.getCreatedFrom(), filter.getCreatedTo());
+             TicketExportWriter writer = format.open(out, objectMapper)) {
+            Iterator<TicketExportDTO> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                writer.write(iterator.next());
+                if (++count % FLUSH_EVERY_ROWS == 0) {
+                    writer.flush();
+                }
+            }
+        }
+        logger.info("Exported " + count + " tickets as " + format);
+        return count;
+    }
+}
@@ -0,0 +1,115 @@
+package com.essa.service.impl;
+
+import com.essa.dto.TicketFeedEventDTO;
+import com.essa.model.TicketStatus;
+import com.essa.service.TicketFeedService;
+import com.essa.util.observer.TicketChangedEvent;
+import com.essa.util.observer.TicketFeedSubscriber;
+import com.essa.util.observer.TicketsImportedEvent;
+import jakarta.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+// Pushes committed ticket changes to open SSE connections. An idle connection holds no thread, only its
+// emitter and a small queue; writes happen on virtual threads, one short drain task per subscriber with pending events.
+@Service
+public class TicketFeedServiceImpl implements TicketFeedService {
+
+    private static final Logger logger = Logger.getLogger(TicketFeedServiceImpl.class.getName());
+
+    private final Set<TicketFeedSubscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor();
+    private final ScheduledExecutorService heartbeats = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("ticket-feed-heartbeat").daemon().factory());
+    private final AtomicLong eventIds = new AtomicLong();
+    private final int bufferSize;
+    private final int maxSubscribers;
+
+    public TicketFeedServiceImpl(@Value("${ticket-feed.buffer-size:256}") int bufferSize,
+                                 @Value("${ticket-feed.max-subscribers:10000}") int maxSubscribers,
+                                 @Value("${ticket-feed.heartbeat:30s}") Duration heartbeat) {
+        this.bufferSize = bufferSize;
+        this.maxSubscribers = maxSubscribers;
+        heartbeats.scheduleAtFixedRate(this::sendHeartbeats, heartbeat.toMillis(), heartbeat.toMillis(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    // resumed: the client reconnected (Last-Event-ID); events are not replayed, so it is told to resync
+    @Override
+    public SseEmitter subscribe(Long assignedToId, TicketStatus status, boolean resumed) {
+        if (subscribers.size() >= maxSubscribers) {
+            throw new IllegalStateException("Ticket feed is full: " + maxSubscribers + " subscribers");
+        }
+        // timeout comes from spring.mvc.async.request-timeout; EventSource clients reconnect on their own
+        SseEmitter emitter = new SseEmitter();
+        TicketFeedSubscriber subscriber = new TicketFeedSubscriber(emitter, assignedToId, status, bufferSize, eventIds);
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(() -> remove(subscriber));
+        emitter.onError(e -> remove(subscriber));
+        subscribers.add(subscriber);
+        if (resumed) {
+            subscriber.requestResync(senders);
+        }
+        return emitter;
+    }
+
+    @Override
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTicketChanged(TicketChangedEvent event) {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        TicketFeedEventDTO payload = new TicketFeedEventDTO(event.getTicketId(), event.getType().name(),
+                event.getAfter());
+        for (TicketFeedSubscriber subscriber : subscribers) {
+            if (subscriber.matches(event)) {
+                subscriber.offer(payload, senders);
+            }
+        }
+    }
+
+    @EventListener
+    public void onTicketsImported(TicketsImportedEvent event) {
+        subscribers.forEach(subscriber -> subscriber.requestResync(senders));
+    }
+
+    private void sendHeartbeats() {
+        // on the sender threads, so one stalled socket cannot hold up the schedule
+        subscribers.forEach(subscriber -> senders.execute(subscriber::heartbeat));
+    }
+
+    private void remove(TicketFeedSubscriber subscriber) {
+        subscriber.close();
+        subscribers.remove(subscriber);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        heartbeats.shutdownNow();
+        subscribers.forEach(subscriber -> {
+            subscriber.close();
+            subscriber.getEmitter().complete();
+        });
+        subscribers.clear();
+        senders.shutdownNow();
+        logger.info("Ticket feed closed");
+    }
+}
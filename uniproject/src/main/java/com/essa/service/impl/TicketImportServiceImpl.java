@@ -0,0 +1,197 @@
+package com.essa.service.impl;
+
+import com.essa.dto.TicketCreateDTO;
+import com.essa.dto.TicketImportResultDTO;
+import com.essa.mapper.TicketMapper;
+import com.essa.model.Ticket;
+import com.essa.model.TicketPriority;
+import com.essa.model.TicketStatus;
+import com.essa.repository.TicketRepository;
+import com.essa.repository.UserRepository;
+import com.essa.service.TicketImportService;
+import com.essa.util.observer.TicketsImportedEvent;
+import com.essa.util.strategy.TicketImportFormat;
+import com.essa.util.strategy.TicketImportReader;
+import com.essa.util.strategy.TicketImportRow;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Logger;
+
+// Reads the body record by record and commits every BATCH_SIZE valid rows in their own transaction,
+// so a long import neither holds one huge transaction nor keeps persisted tickets in memory
+@Service
+public class TicketImportServiceImpl implements TicketImportService {
+
+    static final int BATCH_SIZE = 500;
+    static final int MAX_REPORTED_ERRORS = 1000;
+
+    private static final Logger logger = Logger.getLogger(TicketImportServiceImpl.class.getName());
+
+    private final TicketRepository ticketRepository;
+    private final UserRepository userRepository;
+    private final TicketMapper ticketMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectMapper objectMapper;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+
+    public TicketImportServiceImpl(TicketRepository ticketRepository, UserRepository userRepository,
+                                   TicketMapper ticketMapper, ApplicationEventPublisher eventPublisher,
+                                   ObjectMapper objectMapper,
+                                   EntityManager entityManager, PlatformTransactionManager transactionManager) {
+        this.ticketRepository = ticketRepository;
+        this.userRepository = userRepository;
+        this.ticketMapper = ticketMapper;
+        this.eventPublisher = eventPublisher;
+        this.objectMapper = objectMapper;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    public TicketImportResultDTO importTickets(TicketImportFormat format, InputStream in) throws IOException {
+        TicketImportResultDTO result = new TicketImportResultDTO();
+        // per import: user id -> exists, so each referenced user is checked once, not once per row
+        Map<Long, Boolean> knownUsers = new HashMap<>();
+        List<TicketImportRow> batch = new ArrayList<>(BATCH_SIZE);
+
+        try {
+            TicketImportReader reader = format.open(in, objectMapper);
+            TicketImportRow row;
+            while ((row = reader.next()) != null) {
+                result.setProcessed(result.getProcessed() + 1);
+                String error = row.getError() != null ? row.getError() : validate(row.getTicket());
+                if (error != null) {
+                    reject(result, row.getLine(), error);
+                    continue;
+                }
+                batch.add(row);
+                if (batch.size() == BATCH_SIZE) {
+                    persist(batch, knownUsers, result);
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty()) {
+                persist(batch, knownUsers, result);
+            }
+        } finally {
+            // also when the body breaks off: the batches committed before that are in the table
+            if (result.getImported() > 0) {
+                // imported rows bypass TicketChangedEvent; statistics, search and the live feed reload once instead
+                eventPublisher.publishEvent(new TicketsImportedEvent(result.getImported()));
+            }
+        }
+        logger.info("Ticket import finished: " + result.getImported() + " imported, "
+                + result.getFailed() + " failed of " + result.getProcessed());
+        return result;
+    }
+
+    static String validate(TicketCreateDTO ticket) {
+        if (ticket.getTitle() == null || ticket.getTitle().isBlank()) {
+            return "Title is required";
+        }
+        if (ticket.getTitle().length() > 255) {
+            return "Title is longer than 255 characters";
+        }
+        if (ticket.getDescription() != null && ticket.getDescription().length() > 2000) {
+            return "Description is longer than 2000 characters";
+        }
+        return null;
+    }
+
+    private void persist(List<TicketImportRow> batch, Map<Long, Boolean> knownUsers, TicketImportResultDTO result) {
+        resolveUsers(batch, knownUsers);
+
+        List<TicketImportRow> accepted = new ArrayList<>(batch.size());
+        for (TicketImportRow row : batch) {
+            TicketCreateDTO dto = row.getTicket();
+            if (dto.getCreatedById() != null && !knownUsers.get(dto.getCreatedById())) {
+                reject(result, row.getLine(), "User not found with id: " + dto.getCreatedById());
+            } else if (dto.getAssignedToId() != null && !knownUsers.get(dto.getAssignedToId())) {
+                reject(result, row.getLine(), "User not found with id: " + dto.getAssignedToId());
+            } else {
+                accepted.add(row);
+            }
+        }
+        if (accepted.isEmpty()) {
+            return;
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                List<Ticket> tickets = new ArrayList<>(accepted.size());
+                for (TicketImportRow row : accepted) {
+                    tickets.add(toTicket(row.getTicket()));
+                }
+                ticketRepository.saveAll(tickets);
+                entityManager.flush();
+                entityManager.clear();
+            });
+            result.setImported(result.getImported() + accepted.size());
+        } catch (RuntimeException e) {
+            String message = "Batch failed: " + e.getMessage();
+            accepted.forEach(row -> reject(result, row.getLine(), message));
+        }
+    }
+
+    // one IN query per batch for ids this import has not seen yet
+    private void resolveUsers(List<TicketImportRow> batch, Map<Long, Boolean> knownUsers) {
+        Set<Long> unknown = new HashSet<>();
+        for (TicketImportRow row : batch) {
+            Long createdById = row.getTicket().getCreatedById();
+            Long assignedToId = row.getTicket().getAssignedToId();
+            if (createdById != null && !knownUsers.containsKey(createdById)) {
+                unknown.add(createdById);
+            }
+            if (assignedToId != null && !knownUsers.containsKey(assignedToId)) {
+                unknown.add(assignedToId);
+            }
+        }
+        if (unknown.isEmpty()) {
+            return;
+        }
+        unknown.forEach(id -> knownUsers.put(id, false));
+        userRepository.findExistingIds(unknown).forEach(id -> knownUsers.put(id, true));
+    }
+
+    private Ticket toTicket(TicketCreateDTO dto) {
+        Ticket ticket = ticketMapper.toEntity(dto);
+        if (ticket.getStatus() == null) {
+            ticket.setStatus(TicketStatus.OPEN);
+        }
+        if (ticket.getPriority() == null) {
+            ticket.setPriority(TicketPriority.MEDIUM);
+        }
+        // references only; the ids were checked in resolveUsers
+        if (dto.getCreatedById() != null) {
+            ticket.setCreatedBy(userRepository.getReferenceById(dto.getCreatedById()));
+        }
+        if (dto.getAssignedToId() != null) {
+            ticket.setAssignedTo(userRepository.getReferenceById(dto.getAssignedToId()));
+        }
+        return ticket;
+    }
+
+    private static void reject(TicketImportResultDTO result, long line, String message) {
+        result.setFailed(result.getFailed() + 1);
+        if (result.getErrors().size() < MAX_REPORTED_ERRORS) {
+            result.getErrors().add(new TicketImportResultDTO.LineError(line, message));
+        } else {
+            result.setErrorsTruncated(true);
+        }
+    }
+}
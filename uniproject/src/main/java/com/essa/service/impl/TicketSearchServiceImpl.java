@@ -0,0 +1,134 @@
+package com.essa.service.impl;
+
+import com.essa.dto.TicketDTO;
+import com.essa.dto.TicketExportDTO;
+import com.essa.model.Ticket;
+import com.essa.model.TicketPriority;
+import com.essa.model.TicketStatus;
+import com.essa.repository.TicketRepository;
+import com.essa.service.TicketSearchService;
+import com.essa.util.observer.TicketChangedEvent;
+import com.essa.util.observer.TicketsImportedEvent;
+import com.essa.util.search.TicketSearchIndex;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// Full-text search served from memory: the index is built from the tickets table at startup
+// and then follows committed ticket changes, so a search only hits the database to load the results
+@Service
+public class TicketSearchServiceImpl implements TicketSearchService {
+
+    private static final Logger logger = Logger.getLogger(TicketSearchServiceImpl.class.getName());
+
+    private final TicketRepository ticketRepository;
+    private final TransactionTemplate readTransaction;
+    private volatile TicketSearchIndex index = new TicketSearchIndex();
+    // changes committed while a rebuild reads the table; replayed into the fresh index before it is swapped in
+    private final Object changeLock = new Object();
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+    private List<TicketChangedEvent> changedDuringRebuild;
+    private final CoalescingRebuild importRebuild = new CoalescingRebuild(this::rebuild);
+
+    public TicketSearchServiceImpl(TicketRepository ticketRepository, PlatformTransactionManager transactionManager) {
+        this.ticketRepository = ticketRepository;
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setReadOnly(true);
+    }
+
+    @Override
+    public List<Ticket> search(String query, TicketStatus status, TicketPriority priority, int limit) {
+        List<Long> ids = index.search(query, status, priority, limit);
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Ticket> loaded = ticketRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Ticket::getId, Function.identity()));
+        // keep the ranking; a ticket deleted since the lookup is simply skipped
+        List<Ticket> result = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Ticket ticket = loaded.get(id);
+            if (ticket != null) {
+                result.add(ticket);
+            }
+        }
+        return result;
+    }
+
+    // Builds a fresh index and swaps it in, searches keep using the old one meanwhile. Events carry the ticket's
+    // whole new state, so replaying one the table read already saw does no harm
+    @Override
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        rebuildLock.lock();
+        try {
+            synchronized (changeLock) {
+                changedDuringRebuild = new ArrayList<>();
+            }
+            TicketSearchIndex fresh = new TicketSearchIndex();
+            // a transaction of its own, also when the rebuild runs through importRebuild on this bean
+            readTransaction.executeWithoutResult(status -> {
+                try (Stream<TicketExportDTO> rows = ticketRepository.streamForExport(null, null, null, null, null,
+                        null)) {
+                    rows.forEach(row -> fresh.put(row.getId(), row.getTitle(), row.getDescription(),
+                            row.getStatus(), row.getPriority()));
+                }
+            });
+            synchronized (changeLock) {
+                changedDuringRebuild.forEach(event -> apply(fresh, event));
+                index = fresh;
+            }
+            logger.info("Ticket search index rebuilt with " + fresh.size() + " tickets");
+        } finally {
+            synchronized (changeLock) {
+                changedDuringRebuild = null;
+            }
+            rebuildLock.unlock();
+        }
+    }
+
+    // off the importing request, which has its answer as soon as its batches are committed
+    @Async
+    @EventListener
+    public void onTicketsImported(TicketsImportedEvent event) {
+        importRebuild.request();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTicketChanged(TicketChangedEvent event) {
+        synchronized (changeLock) {
+            apply(index, event);
+            if (changedDuringRebuild != null) {
+                changedDuringRebuild.add(event);
+            }
+        }
+    }
+
+    private static void apply(TicketSearchIndex index, TicketChangedEvent event) {
+        TicketDTO before = event.getBefore();
+        TicketDTO after = event.getAfter();
+        if (after == null) {
+            index.remove(event.getTicketId());
+        } else if (before != null && Objects.equals(before.getTitle(), after.getTitle())
+                && Objects.equals(before.getDescription(), after.getDescription())) {
+            index.updateFilters(after.getId(), after.getStatus(), after.getPriority());
+        } else {
+            index.put(after.getId(), after.getTitle(), after.getDescription(), after.getStatus(), after.getPriority());
+        }
+    }
+}
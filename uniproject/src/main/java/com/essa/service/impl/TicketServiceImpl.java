@@ -1,38 +1,71 @@
 package com.essa.service.impl;
 
+import com.essa.dto.TicketBulkRequestDTO;
+import com.essa.dto.TicketBulkResultDTO;
+import com.essa.dto.TicketDTO;
+import com.essa.dto.TicketFilterDTO;
+import com.essa.dto.TicketRowDTO;
+import com.essa.dto.TicketUpdateDTO;
+import com.essa.mapper.TicketMapper;
 import com.essa.model.Ticket;
 import com.essa.model.TicketPriority;
 import com.essa.model.TicketStatus;
 import com.essa.model.User;
 import com.essa.repository.TicketRepository;
 import com.essa.repository.UserRepository;
+import com.essa.service.EmailOutboxService;
 import com.essa.service.TicketService;
-import com.essa.util.builder.EmailMessageBuilder;
-import com.essa.util.facade.TicketOperationsFacade;
+import com.essa.util.observer.TicketChangedEvent;
+import com.essa.util.pagination.TicketCursor;
+import com.essa.util.pagination.TicketPage;
 import com.essa.util.singleton.FormatValidator;
 
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.context.annotation.Lazy;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
 import java.util.logging.Logger;
 
 @Service
 public class TicketServiceImpl implements TicketService {
 
+    public static final int BULK_MAX_IDS = 1000;
+
+    private static final LocalDateTime NEWEST_UPDATED_AT = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+
     private final TicketRepository ticketRepository;
     private final UserRepository userRepository;
-    private final TicketOperationsFacade ticketOperationsFacade;
+    private final TicketMapper ticketMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final EmailOutboxService emailOutboxService;
 
     public TicketServiceImpl(
             TicketRepository ticketRepository,
             UserRepository userRepository,
-            @Lazy TicketOperationsFacade ticketOperationsFacade
+            TicketMapper ticketMapper,
+            ApplicationEventPublisher eventPublisher,
+            EmailOutboxService emailOutboxService
     ) {
         this.ticketRepository = ticketRepository;
         this.userRepository = userRepository;
-        this.ticketOperationsFacade = ticketOperationsFacade;
+        this.ticketMapper = ticketMapper;
+        this.eventPublisher = eventPublisher;
+        this.emailOutboxService = emailOutboxService;
+    }
+
+    // Listeners (statistics, summary report) run after commit, see TicketChangedEvent
+    private void publish(TicketChangedEvent.Type type, TicketDTO before, TicketDTO after) {
+        eventPublisher.publishEvent(new TicketChangedEvent(type, before, after));
     }
 
     public boolean validateTicketData(String email, String username) {
@@ -46,11 +79,58 @@ public class TicketServiceImpl implements TicketService {
                 .orElseThrow(() -> new RuntimeException("Ticket not found with id: " + id));
     }
 
+    // Read path for the API: a DTO straight from the columns, nothing enters the persistence context
+    @Override
+    @Transactional(readOnly = true)
+    public TicketRowDTO findRowById(Long id) {
+        return ticketRepository.findRowById(id)
+                .orElseThrow(() -> new RuntimeException("Ticket not found with id: " + id));
+    }
+
     @Override
     public List<Ticket> findAll() {
         return ticketRepository.findAll();
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public TicketPage findPage(TicketFilterDTO filter, TicketCursor.Sort sort, TicketCursor after, int size) {
+        if (after != null && after.getSort() != sort) {
+            throw new IllegalArgumentException("Cursor was issued for sort " + after.getSort() + ", not " + sort);
+        }
+        int limit = TicketPage.clampSize(size);
+        // one extra row tells us whether another page exists without a count query
+        PageRequest fetch = PageRequest.of(0, limit + 1);
+
+        List<TicketRowDTO> rows;
+        if (sort == TicketCursor.Sort.UPDATED_AT) {
+            rows = ticketRepository.findPageOrderByUpdatedAt(
+                    after != null ? after.getLastUpdatedAt() : NEWEST_UPDATED_AT,
+                    after != null ? after.getLastId() : Long.MAX_VALUE,
+                    filter.getStatus(), filter.getPriority(), filter.getAssignedToId(), filter.getCreatedById(),
+                    fetch);
+        } else {
+            rows = ticketRepository.findPageOrderById(
+                    after != null ? after.getLastId() : 0L,
+                    filter.getStatus(), filter.getPriority(), filter.getAssignedToId(), filter.getCreatedById(),
+                    fetch);
+        }
+
+        if (rows.size() <= limit) {
+            return new TicketPage(toDTOs(rows), null);
+        }
+        List<TicketRowDTO> page = rows.subList(0, limit);
+        TicketRowDTO last = page.get(limit - 1);
+        TicketCursor next = sort == TicketCursor.Sort.UPDATED_AT
+                ? TicketCursor.afterUpdatedAt(last.getUpdatedAt(), last.getId())
+                : TicketCursor.afterId(last.getId());
+        return new TicketPage(toDTOs(page), next.encode());
+    }
+
+    private List<TicketDTO> toDTOs(List<TicketRowDTO> rows) {
+        return rows.stream().map(ticketMapper::toDTO).toList();
+    }
+
     @Override
     public List<Ticket> findByStatus(TicketStatus status) {
         return ticketRepository.findByStatus(status);
@@ -66,13 +146,8 @@ public class TicketServiceImpl implements TicketService {
         return ticketRepository.findByAssignedTo(assignedTo);
     }
 
-    // should be moved
-    public String createAssignmentEmail(String userEmail, String ticketTitle, String assigneeName) {
-        return new EmailMessageBuilder()
-                .to(userEmail)
-                .ticketAssigned(ticketTitle, assigneeName)
-                .priority("high")
-                .build();
+    private static boolean notifiesAssignee(TicketDTO ticket) {
+        return ticket.getPriority() == TicketPriority.HIGH || ticket.getPriority() == TicketPriority.CRITICAL;
     }
 
     @Override
@@ -96,29 +171,89 @@ public class TicketServiceImpl implements TicketService {
         }
 
         Ticket savedTicket = ticketRepository.save(ticket);
-
-        if (savedTicket.getCreatedBy() != null) {
-            ticketOperationsFacade.generateTicketSummary(savedTicket.getCreatedBy().getId());
-        }
+        publish(TicketChangedEvent.Type.CREATED, null, ticketMapper.toDTO(savedTicket));
         return savedTicket;
     }
 
     @Override
     @Transactional
     public Ticket update(Ticket ticket) {
-        if (!ticketRepository.existsById(ticket.getId())) {
-            throw new RuntimeException("Ticket not found with id: " + ticket.getId());
+        TicketDTO before = ticketRepository.findCommittedStateById(ticket.getId())
+                .orElseThrow(() -> new RuntimeException("Ticket not found with id: " + ticket.getId()));
+        Ticket updated = ticketRepository.save(ticket);
+        publish(TicketChangedEvent.Type.UPDATED, before, ticketMapper.toDTO(updated));
+        return updated;
+    }
+
+    // Fields missing from the body keep their value. The current row is read as a DTO for the change event,
+    // the change itself is a single UPDATE guarded by the version that was read; empty when the ticket does not
+    // exist. A version other than expectedVersion (If-Match), or a write that got in between, is a conflict
+    @Override
+    @Transactional
+    public Optional<TicketRowDTO> patch(Long id, TicketUpdateDTO patch, Long expectedVersion) {
+        TicketRowDTO current = ticketRepository.findRowById(id).orElse(null);
+        if (current == null) {
+            return Optional.empty();
+        }
+        if (expectedVersion != null && !expectedVersion.equals(current.getVersion())) {
+            throw new OptimisticLockingFailureException("Ticket " + id + " is at version " + current.getVersion()
+                    + ", not " + expectedVersion);
+        }
+        TicketDTO before = ticketMapper.toDTO(current);
+        TicketDTO after = applyPatch(patch, before);
+        if (after.equals(before)) {
+            return Optional.of(current);
+        }
+        User assignee = Objects.equals(after.getAssignedToId(), before.getAssignedToId()) ? null
+                : userRepository.findById(after.getAssignedToId())
+                        .orElseThrow(() -> new RuntimeException("User not found with id: " + after.getAssignedToId()));
+
+        LocalDateTime now = LocalDateTime.now();
+        int updated = ticketRepository.patch(id, current.getVersion(), patch.getTitle(), patch.getDescription(),
+                patch.getStatus(), patch.getPriority(), assignee != null ? assignee.getId() : null, now);
+        if (updated == 0) {
+            throw new OptimisticLockingFailureException("Ticket " + id + " changed while it was being patched");
+        }
+        if (assignee != null && notifiesAssignee(after)) {
+            emailOutboxService.enqueueAssignments(assignee, List.of(after));
         }
-        return ticketRepository.save(ticket);
+        publish(TicketChangedEvent.Type.UPDATED, before, after);
+        return Optional.of(new TicketRowDTO(id, after.getTitle(), after.getDescription(), after.getStatus(),
+                after.getPriority(), after.getCreatedById(), after.getAssignedToId(), now, current.getVersion() + 1));
     }
 
+    private static TicketDTO applyPatch(TicketUpdateDTO patch, TicketDTO current) {
+        return new TicketDTO(current.getId(),
+                patched(patch.getTitle(), current.getTitle()),
+                patched(patch.getDescription(), current.getDescription()),
+                patched(patch.getStatus(), current.getStatus()),
+                patched(patch.getPriority(), current.getPriority()),
+                current.getCreatedById(),
+                patched(patch.getAssignedToId(), current.getAssignedToId()));
+    }
+
+    private static <T> T patched(T value, T current) {
+        return value != null ? value : current;
+    }
+
+    // Like patch: a single DELETE guarded by the version that was read, false when the ticket does not exist,
+    // a conflict when it is not at expectedVersion (If-Match) or changed in between
     @Override
     @Transactional
-    public void delete(Long id) {
-        if (!ticketRepository.existsById(id)) {
-            throw new RuntimeException("Ticket not found with id: " + id);
+    public boolean delete(Long id, Long expectedVersion) {
+        TicketRowDTO current = ticketRepository.findRowById(id).orElse(null);
+        if (current == null) {
+            return false;
         }
-        ticketRepository.deleteById(id);
+        if (expectedVersion != null && !expectedVersion.equals(current.getVersion())) {
+            throw new OptimisticLockingFailureException("Ticket " + id + " is at version " + current.getVersion()
+                    + ", not " + expectedVersion);
+        }
+        if (ticketRepository.deleteByIdAndVersion(id, current.getVersion()) == 0) {
+            throw new OptimisticLockingFailureException("Ticket " + id + " changed while it was being deleted");
+        }
+        publish(TicketChangedEvent.Type.DELETED, ticketMapper.toDTO(current), null);
+        return true;
     }
 
     @Override
@@ -127,36 +262,117 @@ public class TicketServiceImpl implements TicketService {
         Ticket ticket = findById(ticketId);
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("User not found with id: " + userId));
+        TicketDTO before = ticketMapper.toDTO(ticket);
         ticket.setAssignedTo(user);
-        
-        if (ticket.getPriority() == TicketPriority.HIGH || ticket.getPriority() == TicketPriority.CRITICAL) {
-            String email = createAssignmentEmail(
-                user.getEmail(),
-                ticket.getTitle(),
-                user.getUsername()
-            );
-            // Here service would send the email
-            Logger.getLogger(TicketServiceImpl.class.getName())
-                    .info("Sending assignment email: " + email);
-        } else {
-            Logger.getLogger("Email not sent for low priority ticket: " + ticket.getTitle() + ticket.getPriority());
+        Ticket saved = ticketRepository.save(ticket);
+        TicketDTO after = ticketMapper.toDTO(saved);
+        // queued in this transaction, composed and delivered by the outbox dispatcher
+        if (notifiesAssignee(after)) {
+            emailOutboxService.enqueueAssignments(user, List.of(after));
         }
-        return ticketRepository.save(ticket);
+        publish(TicketChangedEvent.Type.ASSIGNED, before, after);
+        return saved;
     }
 
     @Override
     @Transactional
     public Ticket changeStatus(Long ticketId, TicketStatus status) {
         Ticket ticket = findById(ticketId);
+        TicketDTO before = ticketMapper.toDTO(ticket);
         ticket.setStatus(status);
-        return ticketRepository.save(ticket);
+        Ticket saved = ticketRepository.save(ticket);
+        publish(TicketChangedEvent.Type.STATUS_CHANGED, before, ticketMapper.toDTO(saved));
+        return saved;
     }
 
     @Override
     @Transactional
     public Ticket changePriority(Long ticketId, TicketPriority priority) {
         Ticket ticket = findById(ticketId);
+        TicketDTO before = ticketMapper.toDTO(ticket);
         ticket.setPriority(priority);
-        return ticketRepository.save(ticket);
+        Ticket saved = ticketRepository.save(ticket);
+        publish(TicketChangedEvent.Type.PRIORITY_CHANGED, before, ticketMapper.toDTO(saved));
+        return saved;
+    }
+
+    // One projection query for the current state, one UPDATE ... WHERE id IN for the rows that actually change
+    @Override
+    @Transactional
+    public List<TicketBulkResultDTO> bulkUpdate(TicketBulkRequestDTO request) {
+        List<Long> ids = request.getIds() == null ? List.of()
+                : request.getIds().stream().filter(Objects::nonNull).distinct().toList();
+        if (ids.isEmpty() || ids.size() > BULK_MAX_IDS) {
+            throw new IllegalArgumentException("Bulk request needs between 1 and " + BULK_MAX_IDS + " ticket ids");
+        }
+        TicketBulkRequestDTO.Operation operation = request.getOperation();
+        if (operation == null
+                || (operation == TicketBulkRequestDTO.Operation.STATUS && request.getStatus() == null)
+                || (operation == TicketBulkRequestDTO.Operation.PRIORITY && request.getPriority() == null)
+                || (operation == TicketBulkRequestDTO.Operation.ASSIGN && request.getAssignedToId() == null)) {
+            throw new IllegalArgumentException("Bulk operation " + operation + " is missing its value");
+        }
+        User assignee = operation != TicketBulkRequestDTO.Operation.ASSIGN ? null
+                : userRepository.findById(request.getAssignedToId())
+                        .orElseThrow(() -> new RuntimeException("User not found with id: " + request.getAssignedToId()));
+
+        Map<Long, TicketDTO> before = new HashMap<>();
+        ticketRepository.findCommittedStatesByIdIn(ids).forEach(state -> before.put(state.getId(), state));
+
+        List<TicketBulkResultDTO> results = new ArrayList<>(ids.size());
+        Map<Long, TicketDTO> after = new LinkedHashMap<>();
+        for (Long id : ids) {
+            TicketDTO current = before.get(id);
+            if (current == null) {
+                results.add(new TicketBulkResultDTO(id, TicketBulkResultDTO.Outcome.NOT_FOUND));
+                continue;
+            }
+            TicketDTO changed = applyBulkChange(request, current);
+            if (changed.equals(current)) {
+                results.add(new TicketBulkResultDTO(id, TicketBulkResultDTO.Outcome.UNCHANGED));
+            } else {
+                results.add(new TicketBulkResultDTO(id, TicketBulkResultDTO.Outcome.UPDATED));
+                after.put(id, changed);
+            }
+        }
+        if (after.isEmpty()) {
+            return results;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        TicketChangedEvent.Type type = switch (operation) {
+            case STATUS -> {
+                ticketRepository.updateStatus(after.keySet(), request.getStatus(), now);
+                yield TicketChangedEvent.Type.STATUS_CHANGED;
+            }
+            case PRIORITY -> {
+                ticketRepository.updatePriority(after.keySet(), request.getPriority(), now);
+                yield TicketChangedEvent.Type.PRIORITY_CHANGED;
+            }
+            case ASSIGN -> {
+                ticketRepository.updateAssignee(after.keySet(), assignee, now);
+                yield TicketChangedEvent.Type.ASSIGNED;
+            }
+        };
+        after.forEach((id, changed) -> publish(type, before.get(id), changed));
+
+        if (assignee != null) {
+            // the dispatcher folds these into one digest per assignee
+            emailOutboxService.enqueueAssignments(assignee, after.values().stream()
+                    .filter(TicketServiceImpl::notifiesAssignee)
+                    .toList());
+        }
+        return results;
+    }
+
+    private static TicketDTO applyBulkChange(TicketBulkRequestDTO request, TicketDTO current) {
+        TicketDTO changed = new TicketDTO(current.getId(), current.getTitle(), current.getDescription(),
+                current.getStatus(), current.getPriority(), current.getCreatedById(), current.getAssignedToId());
+        switch (request.getOperation()) {
+            case STATUS -> changed.setStatus(request.getStatus());
+            case PRIORITY -> changed.setPriority(request.getPriority());
+            case ASSIGN -> changed.setAssignedToId(request.getAssignedToId());
+        }
+        return changed;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,197 @@
+package com.essa.service.impl;
+
+import com.essa.dto.TicketDTO;
+import com.essa.dto.UserTicketStatsDTO;
+import com.essa.model.TicketPriority;
+import com.essa.repository.TicketRepository;
+import com.essa.service.TicketStatsService;
+import com.essa.util.observer.TicketChangedEvent;
+import com.essa.util.observer.TicketsImportedEvent;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.logging.Logger;
+
+// Per-user ticket counters kept in memory: seeded from two grouped queries at startup,
+// then moved by +1/-1 from committed ticket changes, so reads never touch the tickets table.
+// A rebuild swaps in a whole new map, and only one that no change overlapped: a change committed while the grouped
+// queries ran may or may not be in their result, so that rebuild is repeated. A change counts from its before-commit
+// until its delta is applied, so one that committed before the queries but is applied after them is caught as well
+@Service
+public class TicketStatsServiceImpl implements TicketStatsService {
+
+    private static final Logger logger = Logger.getLogger(TicketStatsServiceImpl.class.getName());
+
+    private static final int REBUILD_ATTEMPTS = 3;
+    private static final long IN_FLIGHT_WAIT_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final TicketRepository ticketRepository;
+    private final TransactionTemplate loadTransaction;
+    private final CoalescingRebuild importRebuild = new CoalescingRebuild(this::rebuild);
+    private volatile Map<Long, Counters> counters = new ConcurrentHashMap<>();
+    // changes apply under the read lock and count themselves, the swap takes the write lock
+    private final ReadWriteLock swapLock = new ReentrantReadWriteLock();
+    private final AtomicLong appliedChanges = new AtomicLong();
+    // changes between their before-commit and their applied delta (or rollback)
+    private final AtomicInteger changesInFlight = new AtomicInteger();
+
+    public TicketStatsServiceImpl(TicketRepository ticketRepository, PlatformTransactionManager transactionManager) {
+        this.ticketRepository = ticketRepository;
+        // every attempt reads in a transaction of its own, so a retry sees a fresh snapshot
+        this.loadTransaction = new TransactionTemplate(transactionManager);
+        this.loadTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.loadTransaction.setReadOnly(true);
+    }
+
+    @Override
+    public UserTicketStatsDTO getStats(Long userId) {
+        Counters c = counters.get(userId);
+        return c != null ? c.toDTO(userId) : new UserTicketStatsDTO(userId, 0, 0, 0);
+    }
+
+    @Override
+    public Map<Long, UserTicketStatsDTO> getStats(Collection<Long> userIds) {
+        Map<Long, UserTicketStatsDTO> result = new LinkedHashMap<>();
+        for (Long userId : userIds) {
+            result.put(userId, getStats(userId));
+        }
+        return result;
+    }
+
+    @Override
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        for (int attempt = 1; ; attempt++) {
+            long changesBefore = appliedChanges.get();
+            Map<Long, Counters> fresh = loadTransaction.execute(status -> load());
+            awaitChangesInFlight();
+            swapLock.writeLock().lock();
+            try {
+                boolean overlapped = appliedChanges.get() != changesBefore || changesInFlight.get() > 0;
+                if (overlapped && attempt < REBUILD_ATTEMPTS) {
+                    continue;
+                }
+                if (overlapped) {
+                    // the last attempt is taken anyway, the next rebuild corrects the drift
+                    logger.warning("Ticket statistics rebuilt while tickets kept changing, counts may be off");
+                }
+                counters = fresh;
+            } finally {
+                swapLock.writeLock().unlock();
+            }
+            logger.info("Ticket statistics rebuilt for " + fresh.size() + " users");
+            return;
+        }
+    }
+
+    // off the importing request, which has its answer as soon as its batches are committed
+    @Async
+    @EventListener
+    public void onTicketsImported(TicketsImportedEvent event) {
+        importRebuild.request();
+    }
+
+    // committing changes are only a few statements away from their delta, so waiting a little saves a repeated load
+    private void awaitChangesInFlight() {
+        long deadline = System.nanoTime() + IN_FLIGHT_WAIT_NANOS;
+        while (changesInFlight.get() > 0 && System.nanoTime() < deadline) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+    }
+
+    private Map<Long, Counters> load() {
+        Map<Long, Counters> fresh = new ConcurrentHashMap<>();
+        ticketRepository.countCreatedPerUser().forEach(row ->
+                fresh.computeIfAbsent(row.getUserId(), id -> new Counters()).created.set(row.getTotal()));
+        ticketRepository.countAssignedPerUser().forEach(row -> {
+            Counters c = fresh.computeIfAbsent(row.getUserId(), id -> new Counters());
+            c.assigned.set(row.getTotal());
+            c.highPriorityAssigned.set(row.getHighPriority());
+        });
+        return fresh;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void onTicketCommitting(TicketChangedEvent event) {
+        changesInFlight.incrementAndGet();
+        // ordered after the after-commit listener below, and also called on rollback
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                changesInFlight.decrementAndGet();
+            }
+
+            @Override
+            public int getOrder() {
+                return Ordered.LOWEST_PRECEDENCE;
+            }
+        });
+    }
+
+    // Runs before other after-commit listeners so they read up-to-date counts
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTicketChanged(TicketChangedEvent event) {
+        swapLock.readLock().lock();
+        try {
+            Map<Long, Counters> counters = this.counters;
+            apply(counters, event.getBefore(), -1);
+            apply(counters, event.getAfter(), 1);
+            appliedChanges.incrementAndGet();
+        } finally {
+            swapLock.readLock().unlock();
+        }
+    }
+
+    private static void apply(Map<Long, Counters> counters, TicketDTO ticket, int delta) {
+        if (ticket == null) {
+            return;
+        }
+        if (ticket.getCreatedById() != null) {
+            counters.computeIfAbsent(ticket.getCreatedById(), id -> new Counters()).created.addAndGet(delta);
+        }
+        if (ticket.getAssignedToId() != null) {
+            Counters c = counters.computeIfAbsent(ticket.getAssignedToId(), id -> new Counters());
+            c.assigned.addAndGet(delta);
+            if (isHighPriority(ticket.getPriority())) {
+                c.highPriorityAssigned.addAndGet(delta);
+            }
+        }
+    }
+
+    static boolean isHighPriority(TicketPriority priority) {
+        return priority == TicketPriority.HIGH || priority == TicketPriority.CRITICAL;
+    }
+
+    private static class Counters {
+        final AtomicLong created = new AtomicLong();
+        final AtomicLong assigned = new AtomicLong();
+        final AtomicLong highPriorityAssigned = new AtomicLong();
+
+        UserTicketStatsDTO toDTO(Long userId) {
+            return new UserTicketStatsDTO(userId, created.get(), assigned.get(), highPriorityAssigned.get());
+        }
+    }
+}
@@ -1,31 +1,55 @@
 package com.essa.service.impl;
 
+import com.essa.dto.UserObserverStatsDTO;
+import com.essa.dto.UserTicketStatsDTO;
+import com.essa.dto.UserUpdateDTO;
+import com.essa.model.Role;
 import com.essa.model.User;
 import com.essa.repository.UserRepository;
+import com.essa.security.AuthorityEpoch;
+import com.essa.security.UserDetailsCache;
+import com.essa.service.EmailOutboxService;
+import com.essa.service.TicketStatsService;
 import com.essa.service.UserService;
 import com.essa.util.decorator.UserWithStatsDecorator;
-import com.essa.util.observer.UserLoggingObserver;
 import com.essa.util.observer.UserSubject;
 import com.essa.util.command.*;
 
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 import java.util.logging.Logger;
 
 @Service
 public class UserServiceImpl implements UserService {
 
     private final UserRepository userRepository;
+    private final UserDetailsCache userDetailsCache;
+    private final AuthorityEpoch authorityEpoch;
+    private final TicketStatsService ticketStatsService;
     private final UserSubject userSubject;
-    private final UserCommandInvoker commandInvoker = new UserCommandInvoker();
+    private final UserCommandInvoker commandInvoker;
+    private final EmailOutboxService emailOutboxService;
 
-    public UserServiceImpl(UserRepository userRepository) {
+    public UserServiceImpl(UserRepository userRepository, UserDetailsCache userDetailsCache,
+                           AuthorityEpoch authorityEpoch, TicketStatsService ticketStatsService,
+                           UserSubject userSubject, UserCommandInvoker commandInvoker,
+                           EmailOutboxService emailOutboxService) {
         this.userRepository = userRepository;
-
-        this.userSubject = new UserSubject();
-        this.userSubject.addObserver(new UserLoggingObserver()); // Observer for logging
+        this.userDetailsCache = userDetailsCache;
+        this.authorityEpoch = authorityEpoch;
+        this.ticketStatsService = ticketStatsService;
+        // every UserObserver bean (e.g. UserLoggingObserver) is registered with the subject
+        this.userSubject = userSubject;
+        this.commandInvoker = commandInvoker;
+        this.emailOutboxService = emailOutboxService;
     }
 
     @Override
@@ -45,6 +69,11 @@ public class UserServiceImpl implements UserService {
         return userRepository.findAll();
     }
 
+    @Override
+    public List<User> findPage(int page, int size) {
+        return userRepository.findAll(PageRequest.of(page, size, Sort.by("id"))).getContent();
+    }
+
     @Override
     @Transactional
     public User create(User user) {
@@ -58,11 +87,9 @@ public class UserServiceImpl implements UserService {
         
         User savedUser = userRepository.save(user);
 
-        
+        // new accounts start active (users.active defaults to true), no activation command needed
         if (savedUser.getId() != null) {
             userSubject.notifyUserCreated(savedUser.getId(), savedUser.getUsername());
-            deactivateUserWithCommand(savedUser.getId()); // Deactivate for showing purpose
-            activateUserWithCommand(savedUser.getId()); // Activate user after creation for showing purpose
         }
        
         return savedUser;
@@ -92,20 +119,64 @@ public class UserServiceImpl implements UserService {
         }
         
         User updatedUser = userRepository.save(user);
+        userDetailsCache.evict(updatedUser.getUsername());
+        authorityEpoch.advanceUser(updatedUser.getId());
         
         userSubject.notifyUserUpdated(updatedUser.getId(), updatedUser.getUsername());
     
         return updatedUser;
     }
 
+    // Fields missing from the patch (null) keep their value; the password arrives encoded. A single UPDATE,
+    // returning the version the user is at afterwards, empty when the user does not exist. The row is never read,
+    // so observers get the id without a username (see UserObserver); a failed expectedVersion (If-Match) check
+    // costs a second query to tell it from a missing user, and so does learning the new version without one
     @Override
     @Transactional
-    public void delete(Long id) {
-        if (!userRepository.existsById(id)) {
-            throw new RuntimeException("User not found with id: " + id);
+    public Optional<Long> patch(Long id, UserUpdateDTO patch, Role role, Long expectedVersion) {
+        if (patch.getEmail() != null) {
+            userRepository.findByEmail(patch.getEmail())
+                    .ifPresent(existingUser -> {
+                        if (!existingUser.getId().equals(id)) {
+                            throw new RuntimeException("Email already taken: " + patch.getEmail());
+                        }
+                    });
         }
-        
-        userRepository.deleteById(id);
+
+        int updated = userRepository.patch(id, expectedVersion, patch.getFirstname(), patch.getLastname(),
+                patch.getEmail(), patch.getPassword(), role != null ? role.getId() : null, LocalDateTime.now());
+        if (updated == 0) {
+            if (expectedVersion != null && userRepository.existsById(id)) {
+                throw new OptimisticLockingFailureException("User " + id + " is no longer at version "
+                        + expectedVersion);
+            }
+            return Optional.empty();
+        }
+        userDetailsCache.evictUserId(id);
+        authorityEpoch.advanceUser(id);
+
+        userSubject.notifyUserUpdated(id, null);
+        return Optional.of(expectedVersion != null ? expectedVersion + 1
+                : userRepository.findVersionById(id).orElseThrow());
+    }
+
+    // A single DELETE with the same version check as patch: false when the user does not exist, a conflict when
+    // it is not at expectedVersion (If-Match)
+    @Override
+    @Transactional
+    public boolean delete(Long id, Long expectedVersion) {
+        // outbox rows reference the user; a conflict rolls their removal back with the rest
+        emailOutboxService.discardForRecipient(id);
+        if (userRepository.deleteByIdAndVersion(id, expectedVersion) == 0) {
+            if (expectedVersion != null && userRepository.existsById(id)) {
+                throw new OptimisticLockingFailureException("User " + id + " is no longer at version "
+                        + expectedVersion);
+            }
+            return false;
+        }
+        userDetailsCache.evictUserId(id);
+        authorityEpoch.advanceUser(id);
+        return true;
     }
 
     @Override
@@ -116,28 +187,40 @@ public class UserServiceImpl implements UserService {
                 .anyMatch(rp -> rp.getPermission().equals(permissionName));
     }
     
+    @Override
     public String getUserWithStats(Long userId) {
         User user = findById(userId);
-        //Mocking due circular dependency with TicketService
-        int createdTickets = Math.abs(user.getUsername().hashCode() % 10); // Deterministic mock value
-        int assignedTickets = Math.abs(user.getEmail().hashCode() % 5); // Deterministic mock value
-        
-        UserWithStatsDecorator decorator = new UserWithStatsDecorator(user, createdTickets, assignedTickets);
+        // Counters are precomputed, so this is a map lookup rather than a query per user
+        UserTicketStatsDTO stats = ticketStatsService.getStats(userId);
+
+        UserWithStatsDecorator decorator = new UserWithStatsDecorator(user,
+                stats.getCreatedTickets(), stats.getAssignedTickets());
         String info = decorator.getDisplayInfo();
         
         Logger.getLogger(UserServiceImpl.class.getName()).info("DECORATOR: " + info);
         return info;
     }
 
-    public void activateUserWithCommand(Long userId) {
-        User user = findById(userId);
-        UserCommand command = new ActivateUserCommand(user);
-        commandInvoker.executeCommand(command);
+    @Override
+    public List<UserObserverStatsDTO> getObserverStats() {
+        return userSubject.getStats();
     }
 
-    public void deactivateUserWithCommand(Long userId) {
-        User user = findById(userId);
-        UserCommand command = new DeactivateUserCommand(user);
-        commandInvoker.executeCommand(command);
+    // Applied right away through the invoker, a few statements per thousand users
+    @Override
+    public int setActive(Collection<Long> userIds, boolean active) {
+        return commandInvoker.executeNow(userIds.stream()
+                .map(id -> active ? new ActivateUserCommand(id) : new DeactivateUserCommand(id))
+                .toList());
+    }
+
+    @Override
+    public int undoActivationChange() {
+        return commandInvoker.undo();
+    }
+
+    @Override
+    public int redoActivationChange() {
+        return commandInvoker.redo();
     }
 }
@@ -1,4 +1,7 @@
 package com.essa.util.builder;
+
+import java.util.List;
+
 //builder class for creating email messages
 public class EmailMessageBuilder {
     private String to;
@@ -37,11 +40,15 @@ public class EmailMessageBuilder {
                .addLine("Assigned to: " + assigneeName);
     }
     
+    public EmailMessageBuilder ticketsAssigned(List<String> ticketTitles, String assigneeName) {
+        subject(ticketTitles.size() + " Tickets Assigned to You")
+               .addLine("The following tickets have been assigned to you:");
+        ticketTitles.forEach(title -> addLine("Title: " + title));
+        return addLine("Assigned to: " + assigneeName);
+    }
+    
     public String build() {
-        String emailContent = String.format("TO: %s\nSUBJECT: %s\nPRIORITY: %s\n\n%s", 
+        return String.format("TO: %s\nSUBJECT: %s\nPRIORITY: %s\n\n%s",
                             to, subject, priority, body.toString());
-        
-        System.out.println("Email created with content: " + emailContent);
-        return emailContent;
     }
 }
\ No newline at end of file
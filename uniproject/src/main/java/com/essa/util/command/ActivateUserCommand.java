@@ -1,25 +1,29 @@
 package com.essa.util.command;
 
-import com.essa.model.User;
-
-import java.util.logging.Logger;
-
 public class ActivateUserCommand implements UserCommand {
-    private static final Logger logger = Logger.getLogger(ActivateUserCommand.class.getName());
-    private User user;
+    private final Long userId;
+    
+    public ActivateUserCommand(Long userId) {
+        this.userId = userId;
+    }
     
-    public ActivateUserCommand(User user) {
-        this.user = user;
+    @Override
+    public Long getUserId() {
+        return userId;
     }
     
     @Override
-    public void execute() {
-        logger.info("COMMAND: Activating user: " + user.getUsername());
-        // No actual activation logic here, just logging
+    public boolean isActivation() {
+        return true;
     }
     
     @Override
     public String getCommandName() {
         return "ACTIVATE_USER";
     }
-}
\ No newline at end of file
+    
+    @Override
+    public UserCommand inverse() {
+        return new DeactivateUserCommand(userId);
+    }
+}
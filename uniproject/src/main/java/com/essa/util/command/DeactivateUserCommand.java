@@ -1,25 +1,29 @@
 package com.essa.util.command;
 
-import com.essa.model.User;
-
-import java.util.logging.Logger;
-
 public class DeactivateUserCommand implements UserCommand {
-    private static final Logger logger = Logger.getLogger(DeactivateUserCommand.class.getName());
-    private User user;
+    private final Long userId;
+    
+    public DeactivateUserCommand(Long userId) {
+        this.userId = userId;
+    }
     
-    public DeactivateUserCommand(User user) {
-        this.user = user;
+    @Override
+    public Long getUserId() {
+        return userId;
     }
     
     @Override
-    public void execute() {
-        logger.info("COMMAND: Deactivating user: " + user.getUsername());
-        // No logic just logging
+    public boolean isActivation() {
+        return false;
     }
     
     @Override
     public String getCommandName() {
         return "DEACTIVATE_USER";
     }
+    
+    @Override
+    public UserCommand inverse() {
+        return new ActivateUserCommand(userId);
+    }
 }
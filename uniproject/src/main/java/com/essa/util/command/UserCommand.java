@@ -1,6 +1,11 @@
 package com.essa.util.command;
 
+// A requested change to one user's active flag; UserCommandInvoker queues, coalesces and applies them in bulk
 public interface UserCommand {
-    void execute();
+    Long getUserId();
+    // value of users.active once the command is applied
+    boolean isActivation();
     String getCommandName();
-}
\ No newline at end of file
+    // the command that reverts this one, used by the undo log
+    UserCommand inverse();
+}
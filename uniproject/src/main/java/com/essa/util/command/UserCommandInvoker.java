@@ -1,10 +1,202 @@
 package com.essa.util.command;
 
+import com.essa.repository.UserRepository;
+import com.essa.security.AuthorityEpoch;
+import com.essa.security.UserDetailsCache;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Logger;
 
+// Command pipeline for the users.active flag. Commands are applied in batches, each batch in one transaction with
+// one locking SELECT and at most two UPDATE ... WHERE id IN statements, whatever its size.
+// Every request leaves its inverse in a bounded undo log together with the row versions it left behind; undo and
+// redo only touch users still at that version, so a change made to a user since is never overwritten.
+@Component
 public class UserCommandInvoker {
-    public void executeCommand(UserCommand command) {
-        Logger.getLogger(UserCommandInvoker.class.getName()).info("COMMAND: Executing " + command.getCommandName());
-        command.execute();
+
+    private static final Logger logger = Logger.getLogger(UserCommandInvoker.class.getName());
+
+    private final UserRepository userRepository;
+    private final UserDetailsCache userDetailsCache;
+    private final AuthorityEpoch authorityEpoch;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final int historySize;
+    // requests are applied one at a time, so the logs follow commit order
+    private final ReentrantLock applyLock = new ReentrantLock();
+    private final Deque<LoggedChange> undoLog = new ArrayDeque<>();
+    private final Deque<LoggedChange> redoLog = new ArrayDeque<>();
+
+    public UserCommandInvoker(UserRepository userRepository, UserDetailsCache userDetailsCache,
+                              AuthorityEpoch authorityEpoch, PlatformTransactionManager transactionManager,
+                              @Value("${user-commands.batch-size:1000}") int batchSize,
+                              @Value("${user-commands.history-size:50}") int historySize) {
+        this.userRepository = userRepository;
+        this.userDetailsCache = userDetailsCache;
+        this.authorityEpoch = authorityEpoch;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.historySize = historySize;
+    }
+
+    // Applies the commands on the calling thread; returns how many users changed
+    public int executeNow(List<? extends UserCommand> commands) {
+        applyLock.lock();
+        try {
+            List<Applied> applied = new ArrayList<>();
+            try {
+                applyInBatches(coalesce(new ArrayList<>(commands)), null, applied);
+            } finally {
+                // batches committed before a failure can still be undone
+                if (!applied.isEmpty()) {
+                    push(undoLog, applied);
+                    redoLog.clear();
+                }
+            }
+            return applied.size();
+        } finally {
+            applyLock.unlock();
+        }
+    }
+
+    // Reverts the most recently applied request; returns how many users changed back
+    public int undo() {
+        return replay(undoLog, redoLog, "Nothing to undo");
+    }
+
+    public int redo() {
+        return replay(redoLog, undoLog, "Nothing to redo");
+    }
+
+    private int replay(Deque<LoggedChange> from, Deque<LoggedChange> to, String emptyMessage) {
+        applyLock.lock();
+        try {
+            LoggedChange change = from.pollLast();
+            if (change == null) {
+                throw new IllegalStateException(emptyMessage);
+            }
+            Collection<UserCommand> commands = coalesce(change.commands());
+            List<Applied> applied = new ArrayList<>();
+            try {
+                applyInBatches(commands, change.versions(), applied);
+            } finally {
+                if (!applied.isEmpty()) {
+                    push(to, applied);
+                }
+            }
+            if (applied.size() < commands.size()) {
+                logger.info("COMMAND: Left " + (commands.size() - applied.size())
+                        + " users alone that changed since the command ran");
+            }
+            return applied.size();
+        } finally {
+            applyLock.unlock();
+        }
+    }
+
+    // One transaction per batchSize users, each committed batch is added to applied
+    private void applyInBatches(Collection<UserCommand> commands, Map<Long, Long> expectedVersions,
+                                List<Applied> applied) {
+        List<UserCommand> pending = new ArrayList<>(commands);
+        for (int from = 0; from < pending.size(); from += batchSize) {
+            applied.addAll(apply(pending.subList(from, Math.min(from + batchSize, pending.size())),
+                    expectedVersions));
+        }
+    }
+
+    // The last command per user wins, so a deactivate followed by an activate collapses into one activate,
+    // which then costs nothing for a user who is already active
+    static Collection<UserCommand> coalesce(List<UserCommand> batch) {
+        Map<Long, UserCommand> latest = new LinkedHashMap<>();
+        for (UserCommand command : batch) {
+            latest.remove(command.getUserId());
+            latest.put(command.getUserId(), command);
+        }
+        return latest.values();
+    }
+
+    // Returns the commands that changed a row; the others were already in the requested state, or, with
+    // expectedVersions, were changed by someone else since
+    private List<Applied> apply(Collection<UserCommand> commands, Map<Long, Long> expectedVersions) {
+        List<Applied> applied = transactionTemplate.execute(status -> {
+            Map<Long, UserRepository.UserActiveState> states = new HashMap<>();
+            userRepository.lockActiveStates(commands.stream().map(UserCommand::getUserId).toList())
+                    .forEach(state -> states.put(state.getId(), state));
+            List<Applied> changed = new ArrayList<>();
+            Set<Long> flipped = new HashSet<>();
+            LocalDateTime now = LocalDateTime.now();
+            for (boolean active : new boolean[]{true, false}) {
+                Set<Long> flipping = new HashSet<>();
+                for (UserCommand command : commands) {
+                    UserRepository.UserActiveState state = states.get(command.getUserId());
+                    if (command.isActivation() != active || state == null || state.getActive() == active) {
+                        continue;
+                    }
+                    if (expectedVersions != null
+                            && !state.getVersion().equals(expectedVersions.get(command.getUserId()))) {
+                        continue;
+                    }
+                    flipping.add(command.getUserId());
+                    // updateActive moves the version by one
+                    changed.add(new Applied(command, state.getVersion() + 1));
+                }
+                if (flipping.isEmpty()) {
+                    continue;
+                }
+                userRepository.updateActive(flipping, active, now);
+                if (!active) {
+                    // outstanding tokens of deactivated users stop working
+                    authorityEpoch.advanceUsers(flipping);
+                }
+                flipped.addAll(flipping);
+            }
+            if (!flipped.isEmpty()) {
+                userDetailsCache.evictUserIds(flipped);
+            }
+            return changed;
+        });
+        if (applied != null && !applied.isEmpty()) {
+            logger.info("COMMAND: Applied " + applied.size() + " of " + commands.size() + " user commands");
+        }
+        return applied == null ? List.of() : applied;
+    }
+
+    // newest first, so if a user appears twice coalescing the inverse restores the earliest state
+    private void push(Deque<LoggedChange> log, List<Applied> applied) {
+        List<UserCommand> inverse = new ArrayList<>(applied.size());
+        Map<Long, Long> versions = new HashMap<>();
+        for (int i = applied.size() - 1; i >= 0; i--) {
+            inverse.add(applied.get(i).command().inverse());
+        }
+        for (Applied change : applied) {
+            versions.put(change.command().getUserId(), change.version());
+        }
+        log.addLast(new LoggedChange(inverse, versions));
+        while (log.size() > historySize) {
+            log.removeFirst();
+        }
+    }
+
+    private record Applied(UserCommand command, long version) {
+    }
+
+    // the inverse of one request and the version each of its users was left at
+    private record LoggedChange(List<UserCommand> commands, Map<Long, Long> versions) {
     }
-}
\ No newline at end of file
+}
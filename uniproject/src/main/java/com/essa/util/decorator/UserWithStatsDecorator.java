@@ -3,10 +3,10 @@ package com.essa.util.decorator;
 import com.essa.model.User;
 
 public class UserWithStatsDecorator extends UserDecorator {
-    private int ticketCount;
-    private int assignedCount;
+    private long ticketCount;
+    private long assignedCount;
     
-    public UserWithStatsDecorator(User user, int ticketCount, int assignedCount) {
+    public UserWithStatsDecorator(User user, long ticketCount, long assignedCount) {
         super(user);
         this.ticketCount = ticketCount;
         this.assignedCount = assignedCount;
@@ -21,6 +21,6 @@ public class UserWithStatsDecorator extends UserDecorator {
                            assignedCount);
     }
     
-    public int getTicketCount() { return ticketCount; }
-    public int getAssignedCount() { return assignedCount; }
+    public long getTicketCount() { return ticketCount; }
+    public long getAssignedCount() { return assignedCount; }
 }
\ No newline at end of file
@@ -1,13 +1,15 @@
 package com.essa.util.facade;
 
-import com.essa.model.TicketPriority;
+import com.essa.dto.UserTicketStatsDTO;
 import com.essa.model.User;
-import com.essa.service.TicketService;
+import com.essa.service.TicketStatsService;
 import com.essa.service.UserService;
+import com.essa.util.observer.TicketChangedEvent;
 
-import org.hibernate.validator.internal.util.stereotypes.Lazy;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
 
 import java.util.logging.Logger;
 
@@ -15,30 +17,31 @@ import java.util.logging.Logger;
 public class TicketOperationsFacade {
     
     @Autowired
-    @Lazy 
-    private TicketService ticketService;
+    private TicketStatsService ticketStatsService;
     
     @Autowired
     private UserService userService;
+
+    // Off the request thread and after commit, so ticket creation no longer waits for the report
+    @Async
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTicketChanged(TicketChangedEvent event) {
+        if (event.getType() == TicketChangedEvent.Type.CREATED && event.getAfter().getCreatedById() != null) {
+            generateTicketSummary(event.getAfter().getCreatedById());
+        }
+    }
     
     // FACADE - raporting
     public void generateTicketSummary(Long userId) {
         Logger.getLogger(TicketOperationsFacade.class.getName()).info("=== FACADE: Generating ticket summary ===");
         
         User user = userService.findById(userId);
-        var createdTickets = ticketService.findByCreatedBy(user);
-        var assignedTickets = ticketService.findByAssignedTo(user);
+        UserTicketStatsDTO stats = ticketStatsService.getStats(userId);
         
         Logger.getLogger(TicketOperationsFacade.class.getName()).info("User: " + user.getUsername());
-        Logger.getLogger(TicketOperationsFacade.class.getName()).info("Created tickets: " + createdTickets.size());
-        Logger.getLogger(TicketOperationsFacade.class.getName()).info("Assigned tickets: " + assignedTickets.size());
-        
-        long highPriorityCount = assignedTickets.stream()
-                .filter(t -> t.getPriority() == TicketPriority.HIGH || 
-                           t.getPriority() == TicketPriority.CRITICAL)
-                .count();
-        
-        Logger.getLogger(TicketOperationsFacade.class.getName()).info("High priority assigned: " + highPriorityCount);
+        Logger.getLogger(TicketOperationsFacade.class.getName()).info("Created tickets: " + stats.getCreatedTickets());
+        Logger.getLogger(TicketOperationsFacade.class.getName()).info("Assigned tickets: " + stats.getAssignedTickets());
+        Logger.getLogger(TicketOperationsFacade.class.getName()).info("High priority assigned: " + stats.getHighPriorityAssigned());
         Logger.getLogger(TicketOperationsFacade.class.getName()).info("=== FACADE: Summary completed ===");
     }
-}
\ No newline at end of file
+}
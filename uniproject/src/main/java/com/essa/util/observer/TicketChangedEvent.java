@@ -0,0 +1,43 @@
+package com.essa.util.observer;
+
+import com.essa.dto.TicketDTO;
+
+// Published by TicketServiceImpl for every ticket mutation; listeners should react after commit.
+// before is null for CREATED, after is null for DELETED.
+public class TicketChangedEvent {
+
+    public enum Type {
+        CREATED,
+        UPDATED,
+        ASSIGNED,
+        STATUS_CHANGED,
+        PRIORITY_CHANGED,
+        DELETED
+    }
+
+    private final Type type;
+    private final TicketDTO before;
+    private final TicketDTO after;
+
+    public TicketChangedEvent(Type type, TicketDTO before, TicketDTO after) {
+        this.type = type;
+        this.before = before;
+        this.after = after;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public TicketDTO getBefore() {
+        return before;
+    }
+
+    public TicketDTO getAfter() {
+        return after;
+    }
+
+    public Long getTicketId() {
+        return after != null ? after.getId() : before.getId();
+    }
+}
@@ -0,0 +1,125 @@
+package com.essa.util.observer;
+
+import com.essa.dto.TicketDTO;
+import com.essa.dto.TicketFeedEventDTO;
+import com.essa.model.TicketStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+// One open SSE connection. Events wait in a bounded queue and are written by a short-lived drain task,
+// so a slow client never blocks the publisher. If the queue overflows the backlog is dropped
+// and the client gets a single "resync" event telling it to reload.
+public class TicketFeedSubscriber {
+
+    public static final String RESYNC_EVENT = "resync";
+
+    private final SseEmitter emitter;
+    private final Long assignedToId;
+    private final TicketStatus status;
+    private final BlockingQueue<TicketFeedEventDTO> queue;
+    private final AtomicBoolean resyncPending = new AtomicBoolean();
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private final AtomicLong eventIds;
+    private volatile boolean closed;
+
+    public TicketFeedSubscriber(SseEmitter emitter, Long assignedToId, TicketStatus status, int bufferSize,
+                                AtomicLong eventIds) {
+        this.emitter = emitter;
+        this.assignedToId = assignedToId;
+        this.status = status;
+        this.queue = new ArrayBlockingQueue<>(bufferSize);
+        this.eventIds = eventIds;
+    }
+
+    public SseEmitter getEmitter() {
+        return emitter;
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    // A change is relevant if the ticket matched the filter before or after it, so clients also see tickets leave
+    public boolean matches(TicketChangedEvent event) {
+        return matches(event.getBefore()) || matches(event.getAfter());
+    }
+
+    private boolean matches(TicketDTO ticket) {
+        return ticket != null
+                && (assignedToId == null || assignedToId.equals(ticket.getAssignedToId()))
+                && (status == null || status == ticket.getStatus());
+    }
+
+    public void offer(TicketFeedEventDTO event, Executor executor) {
+        if (closed) {
+            return;
+        }
+        if (!queue.offer(event)) {
+            queue.clear();
+            resyncPending.set(true);
+        }
+        schedule(executor);
+    }
+
+    public void requestResync(Executor executor) {
+        queue.clear();
+        resyncPending.set(true);
+        schedule(executor);
+    }
+
+    // SSE comment line; keeps proxies from closing idle connections and reveals dead ones
+    public void heartbeat() {
+        send(SseEmitter.event().comment("keep-alive"));
+    }
+
+    public void close() {
+        closed = true;
+        queue.clear();
+    }
+
+    private void schedule(Executor executor) {
+        if (draining.compareAndSet(false, true)) {
+            executor.execute(this::drain);
+        }
+    }
+
+    private void drain() {
+        while (!closed) {
+            if (resyncPending.getAndSet(false)) {
+                send(SseEmitter.event().id(Long.toString(eventIds.incrementAndGet())).name(RESYNC_EVENT).data(""));
+                continue;
+            }
+            TicketFeedEventDTO event = queue.poll();
+            if (event == null) {
+                draining.set(false);
+                // an offer may have slipped in between poll() and set(false)
+                if ((queue.isEmpty() && !resyncPending.get()) || !draining.compareAndSet(false, true)) {
+                    return;
+                }
+                continue;
+            }
+            send(SseEmitter.event().id(Long.toString(eventIds.incrementAndGet()))
+                    .name(event.getType()).data(event, MediaType.APPLICATION_JSON));
+        }
+    }
+
+    private void send(SseEmitter.SseEventBuilder event) {
+        if (closed) {
+            return;
+        }
+        try {
+            emitter.send(event);
+        } catch (IOException | IllegalStateException e) {
+            // client went away; the emitter callbacks remove this subscriber
+            close();
+            emitter.completeWithError(e);
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.essa.util.observer;
+
+// Published once after a bulk import; imported rows do not get a TicketChangedEvent each,
+// so listeners that mirror the tickets table reload it instead
+public class TicketsImportedEvent {
+
+    private final long imported;
+
+    public TicketsImportedEvent(long imported) {
+        this.imported = imported;
+    }
+
+    public long getImported() {
+        return imported;
+    }
+}
@@ -1,7 +1,10 @@
 package com.essa.util.observer;
 
+import org.springframework.stereotype.Component;
+
 import java.util.logging.Logger;
 
+@Component
 public class UserLoggingObserver implements UserObserver {
     private static final Logger logger = Logger.getLogger(UserLoggingObserver.class.getName());
     
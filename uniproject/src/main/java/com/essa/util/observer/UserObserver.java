@@ -2,5 +2,7 @@ package com.essa.util.observer;
 
 public interface UserObserver {
     void onUserCreated(Long userId, String username);
+
+    // username is null after a PATCH: that update never reads the row, so load the user by id if it is needed
     void onUserUpdated(Long userId, String username);
 }
\ No newline at end of file
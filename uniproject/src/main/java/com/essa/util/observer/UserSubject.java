@@ -1,28 +1,290 @@
 package com.essa.util.observer;
 
+import com.essa.dto.UserObserverStatsDTO;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// Event bus for user changes. Events are handed over after commit and delivered on the executor, never on
+// the caller's thread. Every observer has its own bounded queues split into lanes by user id: one user's
+// events arrive in order, different users are delivered in parallel, and a slow observer only delays itself.
+// Per observer, queue depth, lag and the delivered/dropped/failed counts are published as user.events.* meters.
+@Component
+public class UserSubject implements MeterBinder {
+
+    // What happens when an observer's lane is full
+    public enum OverflowPolicy {
+        DROP_NEWEST,
+        DROP_OLDEST,
+        // caller waits for room, then the event is dropped; block-timeout bounds the wait for all observers
+        // together, so the committing thread is held that long at most however many observers are full
+        BLOCK
+    }
+
+    private enum EventType { CREATED, UPDATED }
+
+    private record UserEvent(EventType type, Long userId, String username, long enqueuedAt) {
+    }
+
+    private static final Logger logger = Logger.getLogger(UserSubject.class.getName());
+
+    private final List<Registration> registrations = new CopyOnWriteArrayList<>();
+    private final Executor executor;
+    private final int lanes;
+    private final int capacity;
+    private final OverflowPolicy overflowPolicy;
+    private final Duration blockTimeout;
+    private volatile MeterRegistry meterRegistry;
+
+    @Autowired
+    public UserSubject(List<UserObserver> observers,
+                       @Value("${user-events.lanes:4}") int lanes,
+                       @Value("${user-events.queue-capacity:1024}") int capacity,
+                       @Value("${user-events.overflow-policy:BLOCK}") OverflowPolicy overflowPolicy,
+                       @Value("${user-events.block-timeout:50ms}") Duration blockTimeout) {
+        this(Executors.newVirtualThreadPerTaskExecutor(), lanes, capacity, overflowPolicy, blockTimeout);
+        observers.forEach(this::addObserver);
+    }
+
+    public UserSubject(Executor executor, int lanes, int capacity, OverflowPolicy overflowPolicy,
+                       Duration blockTimeout) {
+        this.executor = executor;
+        this.lanes = lanes;
+        this.capacity = capacity;
+        this.overflowPolicy = overflowPolicy;
+        this.blockTimeout = blockTimeout;
+    }
 
-public class UserSubject {
-    private List<UserObserver> observers = new ArrayList<>();
-    
     public void addObserver(UserObserver observer) {
-        observers.add(observer);
+        Registration registration = new Registration(observer);
+        registrations.add(registration);
+        MeterRegistry registry = meterRegistry;
+        if (registry != null) {
+            registration.bindTo(registry);
+        }
     }
-    
+
     public void removeObserver(UserObserver observer) {
-        observers.remove(observer);
+        registrations.removeIf(registration -> {
+            if (registration.observer == observer) {
+                registration.close();
+                return true;
+            }
+            return false;
+        });
+    }
+
+    // observers added later are bound as they register
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        meterRegistry = registry;
+        registrations.forEach(registration -> registration.bindTo(registry));
     }
-    
+
     public void notifyUserCreated(Long userId, String username) {
-        for (UserObserver observer : observers) {
-            observer.onUserCreated(userId, username);
-        }
+        publish(EventType.CREATED, userId, username);
     }
-    
+
     public void notifyUserUpdated(Long userId, String username) {
-        for (UserObserver observer : observers) {
-            observer.onUserUpdated(userId, username);
+        publish(EventType.UPDATED, userId, username);
+    }
+
+    public List<UserObserverStatsDTO> getStats() {
+        return registrations.stream().map(Registration::stats).toList();
+    }
+
+    private void publish(EventType type, Long userId, String username) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // a rolled back change is never announced
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    dispatch(new UserEvent(type, userId, username, System.nanoTime()));
+                }
+            });
+        } else {
+            dispatch(new UserEvent(type, userId, username, System.nanoTime()));
+        }
+    }
+
+    private void dispatch(UserEvent event) {
+        long deadline = System.nanoTime() + blockTimeout.toNanos();
+        for (Registration registration : registrations) {
+            registration.offer(event, deadline);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        registrations.forEach(Registration::close);
+        if (executor instanceof ExecutorService service) {
+            service.shutdown();
+        }
+    }
+
+    private final class Registration {
+
+        private final UserObserver observer;
+        private final Lane[] laneQueues;
+        private final LongAdder delivered = new LongAdder();
+        private final LongAdder dropped = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+        private final AtomicLong maxLagNanos = new AtomicLong();
+        private final List<Meter> meters = new ArrayList<>();
+        private volatile long lastLagNanos;
+        private volatile boolean closed;
+
+        private Registration(UserObserver observer) {
+            this.observer = observer;
+            this.laneQueues = new Lane[lanes];
+            for (int i = 0; i < lanes; i++) {
+                laneQueues[i] = new Lane(capacity);
+            }
+        }
+
+        private void offer(UserEvent event, long deadline) {
+            if (closed) {
+                return;
+            }
+            Lane lane = laneQueues[Math.floorMod(event.userId().hashCode(), laneQueues.length)];
+            if (!enqueue(lane.queue, event, deadline)) {
+                dropped.increment();
+            }
+            if (lane.draining.compareAndSet(false, true)) {
+                executor.execute(() -> drain(lane));
+            }
+        }
+
+        private boolean enqueue(BlockingQueue<UserEvent> queue, UserEvent event, long deadline) {
+            switch (overflowPolicy) {
+                case DROP_NEWEST:
+                    return queue.offer(event);
+                case DROP_OLDEST:
+                    while (!queue.offer(event)) {
+                        if (queue.poll() != null) {
+                            dropped.increment();
+                        }
+                    }
+                    return true;
+                default:
+                    try {
+                        return queue.offer(event, Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return false;
+                    }
+            }
+        }
+
+        // at most one drain per lane at a time, which is what keeps a user's events in order
+        private void drain(Lane lane) {
+            while (!closed) {
+                UserEvent event = lane.queue.poll();
+                if (event == null) {
+                    lane.draining.set(false);
+                    if (lane.queue.isEmpty() || !lane.draining.compareAndSet(false, true)) {
+                        return;
+                    }
+                    continue;
+                }
+                deliver(event);
+            }
+        }
+
+        private void deliver(UserEvent event) {
+            try {
+                if (event.type() == EventType.CREATED) {
+                    observer.onUserCreated(event.userId(), event.username());
+                } else {
+                    observer.onUserUpdated(event.userId(), event.username());
+                }
+                delivered.increment();
+            } catch (RuntimeException e) {
+                failed.increment();
+                logger.log(Level.WARNING, "User observer " + observer.getClass().getSimpleName()
+                        + " failed for user " + event.userId(), e);
+            }
+            long lag = System.nanoTime() - event.enqueuedAt();
+            lastLagNanos = lag;
+            maxLagNanos.accumulateAndGet(lag, Math::max);
+        }
+
+        private void close() {
+            closed = true;
+            for (Lane lane : laneQueues) {
+                lane.queue.clear();
+            }
+            MeterRegistry registry = meterRegistry;
+            if (registry != null) {
+                meters.forEach(registry::remove);
+            }
+        }
+
+        private void bindTo(MeterRegistry registry) {
+            String name = observer.getClass().getSimpleName();
+            meters.add(Gauge.builder("user.events.queue.depth", this, Registration::queueDepth)
+                    .tag("observer", name).description("Events waiting for the observer").register(registry));
+            meters.add(TimeGauge.builder("user.events.lag", this, TimeUnit.NANOSECONDS, r -> r.lastLagNanos)
+                    .tag("observer", name).description("Commit to delivery time of the latest event")
+                    .register(registry));
+            meters.add(TimeGauge.builder("user.events.lag.max", this, TimeUnit.NANOSECONDS, r -> r.maxLagNanos.get())
+                    .tag("observer", name).register(registry));
+            meters.add(FunctionCounter.builder("user.events.delivered", delivered, LongAdder::sum)
+                    .tag("observer", name).register(registry));
+            meters.add(FunctionCounter.builder("user.events.dropped", dropped, LongAdder::sum)
+                    .tag("observer", name).register(registry));
+            meters.add(FunctionCounter.builder("user.events.failed", failed, LongAdder::sum)
+                    .tag("observer", name).register(registry));
+        }
+
+        private int queueDepth() {
+            int depth = 0;
+            for (Lane lane : laneQueues) {
+                depth += lane.queue.size();
+            }
+            return depth;
+        }
+
+        private UserObserverStatsDTO stats() {
+            int depth = queueDepth();
+            return new UserObserverStatsDTO(observer.getClass().getSimpleName(), depth, delivered.sum(),
+                    dropped.sum(), failed.sum(), TimeUnit.NANOSECONDS.toMillis(lastLagNanos),
+                    TimeUnit.NANOSECONDS.toMillis(maxLagNanos.get()));
+        }
+    }
+
+    private static final class Lane {
+        private final BlockingQueue<UserEvent> queue;
+        private final AtomicBoolean draining = new AtomicBoolean();
+
+        private Lane(int capacity) {
+            this.queue = new ArrayBlockingQueue<>(capacity);
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,71 @@
+package com.essa.util.pagination;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+// Opaque keyset position for ticket listings: the sort column values of the last row of a page
+public class TicketCursor {
+
+    public enum Sort {
+        ID,
+        UPDATED_AT
+    }
+
+    private static final String SEPARATOR = "|";
+
+    private final Sort sort;
+    private final Long lastId;
+    private final LocalDateTime lastUpdatedAt;
+
+    private TicketCursor(Sort sort, Long lastId, LocalDateTime lastUpdatedAt) {
+        this.sort = sort;
+        this.lastId = lastId;
+        this.lastUpdatedAt = lastUpdatedAt;
+    }
+
+    public static TicketCursor afterId(Long lastId) {
+        return new TicketCursor(Sort.ID, lastId, null);
+    }
+
+    public static TicketCursor afterUpdatedAt(LocalDateTime lastUpdatedAt, Long lastId) {
+        return new TicketCursor(Sort.UPDATED_AT, lastId, lastUpdatedAt);
+    }
+
+    public Sort getSort() {
+        return sort;
+    }
+
+    public Long getLastId() {
+        return lastId;
+    }
+
+    public LocalDateTime getLastUpdatedAt() {
+        return lastUpdatedAt;
+    }
+
+    public String encode() {
+        String raw = sort == Sort.ID
+                ? sort.name() + SEPARATOR + lastId
+                : sort.name() + SEPARATOR + lastUpdatedAt + SEPARATOR + lastId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static TicketCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\" + SEPARATOR);
+            Sort sort = Sort.valueOf(parts[0]);
+            if (sort == Sort.ID && parts.length == 2) {
+                return afterId(Long.parseLong(parts[1]));
+            }
+            if (sort == Sort.UPDATED_AT && parts.length == 3) {
+                return afterUpdatedAt(LocalDateTime.parse(parts[1]), Long.parseLong(parts[2]));
+            }
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + token, e);
+        }
+        throw new IllegalArgumentException("Invalid cursor: " + token);
+    }
+}
@@ -0,0 +1,32 @@
+package com.essa.util.pagination;
+
+import com.essa.dto.TicketDTO;
+
+import java.util.List;
+
+public class TicketPage {
+
+    public static final int DEFAULT_SIZE = 50;
+    public static final int MAX_SIZE = 200;
+
+    private final List<TicketDTO> tickets;
+    private final String nextCursor;
+
+    public TicketPage(List<TicketDTO> tickets, String nextCursor) {
+        this.tickets = tickets;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<TicketDTO> getTickets() {
+        return tickets;
+    }
+
+    // null when this is the last page
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public static int clampSize(int requested) {
+        return Math.max(1, Math.min(requested, MAX_SIZE));
+    }
+}
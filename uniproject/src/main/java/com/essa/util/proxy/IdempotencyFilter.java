@@ -0,0 +1,241 @@
+package com.essa.util.proxy;
+
+import com.essa.util.strategy.IdempotencyStore;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.Principal;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+// Makes the create endpoints safe to retry: a POST carrying an Idempotency-Key runs once per key, caller and endpoint,
+// a repeat gets the stored response back and a repeat arriving while the first request still runs waits for it.
+// Registered after the security filter chain, so only authenticated and authorized requests claim a key
+@Component
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final int MAX_KEY_LENGTH = 255;
+    private static final Set<String> PATHS = Set.of("/tickets", "/admin/users");
+    // headers a retry gets back along with status and body
+    private static final List<String> STORED_HEADERS = List.of(HttpHeaders.ETAG, HttpHeaders.LOCATION);
+
+    private static final Logger logger = Logger.getLogger(IdempotencyFilter.class.getName());
+
+    private final IdempotencyStore store;
+    private final Duration ttl;
+    private final Duration lease;
+    private final Duration waitTimeout;
+
+    public IdempotencyFilter(IdempotencyStore store,
+                             @Value("${idempotency.ttl:24h}") Duration ttl,
+                             @Value("${idempotency.lease:1m}") Duration lease,
+                             @Value("${idempotency.wait-timeout:10s}") Duration waitTimeout) {
+        this.store = store;
+        this.ttl = ttl;
+        this.lease = lease;
+        this.waitTimeout = waitTimeout;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) throws ServletException {
+        return !"POST".equals(request.getMethod())
+            || request.getHeader(IDEMPOTENCY_KEY_HEADER) == null
+            || !PATHS.contains(request.getRequestURI().substring(request.getContextPath().length()));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String idempotencyKey = request.getHeader(IDEMPOTENCY_KEY_HEADER).trim();
+        if (idempotencyKey.isEmpty() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            response.setStatus(HttpStatus.BAD_REQUEST.value());
+            return;
+        }
+        byte[] body = StreamUtils.copyToByteArray(request.getInputStream());
+        // keys are per caller and endpoint, two clients picking the same key never see each other's responses
+        Principal principal = request.getUserPrincipal();
+        String caller = principal != null ? principal.getName() : "";
+        IdempotencyStore.Key key = new IdempotencyStore.Key(caller, sha256(caller + "\n" + request.getMethod() + " "
+                + request.getRequestURI() + "\n" + idempotencyKey));
+        String fingerprint = sha256(body);
+        String token = UUID.randomUUID().toString();
+
+        long deadline = System.nanoTime() + waitTimeout.toNanos();
+        while (true) {
+            IdempotencyStore.Entry entry = store.claim(key, fingerprint, token, lease);
+            if (entry == null) {
+                execute(new CachedBodyRequest(request, body), response, filterChain, key, token);
+                return;
+            }
+            if (!entry.fingerprint().equals(fingerprint)) {
+                // the key was already used for a different request
+                response.setStatus(HttpStatus.UNPROCESSABLE_ENTITY.value());
+                return;
+            }
+            if (!entry.isCompleted()) {
+                entry = awaitFirst(key, entry, deadline);
+                if (entry == null) {
+                    // the first request failed and gave the key up, this one runs instead
+                    continue;
+                }
+                if (!entry.isCompleted()) {
+                    response.setStatus(HttpStatus.CONFLICT.value());
+                    return;
+                }
+            }
+            replay(entry.response(), response);
+            return;
+        }
+    }
+
+    // server errors are not kept: the key is released and the client's next retry runs the request again
+    private void execute(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain,
+                         IdempotencyStore.Key key, String token) throws ServletException, IOException {
+        ContentCachingResponseWrapper recorded = new ContentCachingResponseWrapper(response);
+        try {
+            filterChain.doFilter(request, recorded);
+        } catch (ServletException | IOException | RuntimeException e) {
+            store.release(key, token);
+            throw e;
+        }
+        if (recorded.getStatus() < HttpStatus.INTERNAL_SERVER_ERROR.value()) {
+            Map<String, String> headers = new LinkedHashMap<>();
+            for (String name : STORED_HEADERS) {
+                String value = recorded.getHeader(name);
+                if (value != null) {
+                    headers.put(name, value);
+                }
+            }
+            store.complete(key, token, new IdempotencyStore.StoredResponse(recorded.getStatus(),
+                    recorded.getContentType(), headers, recorded.getContentAsByteArray()), ttl);
+        } else {
+            store.release(key, token);
+        }
+        recorded.copyBodyToResponse();
+    }
+
+    // returns the unfinished entry unchanged once the wait is over
+    private IdempotencyStore.Entry awaitFirst(IdempotencyStore.Key key, IdempotencyStore.Entry unfinished, long deadline) {
+        long remaining = deadline - System.nanoTime();
+        if (remaining <= 0) {
+            return unfinished;
+        }
+        try {
+            return store.await(key, Duration.ofNanos(remaining));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return unfinished;
+        }
+    }
+
+    private static void replay(IdempotencyStore.StoredResponse stored, HttpServletResponse response)
+            throws IOException {
+        response.setStatus(stored.status());
+        if (stored.contentType() != null) {
+            response.setContentType(stored.contentType());
+        }
+        stored.headers().forEach(response::setHeader);
+        response.setHeader(REPLAYED_HEADER, "true");
+        response.setContentLength(stored.body().length);
+        response.getOutputStream().write(stored.body());
+    }
+
+    @Scheduled(fixedDelayString = "${idempotency.purge-interval:5m}")
+    public void purgeExpired() {
+        int removed = store.purgeExpired();
+        if (removed > 0) {
+            logger.fine("Purged " + removed + " expired idempotency keys");
+        }
+    }
+
+    private static String sha256(String value) {
+        return sha256(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String sha256(byte[] value) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(value));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    // the body was read for the fingerprint, the handler reads this copy
+    private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+
+        private CachedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream in = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public boolean isFinished() {
+                    return in.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    throw new UnsupportedOperationException("Blocking reads only");
+                }
+
+                @Override
+                public int read() {
+                    return in.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return in.read(b, off, len);
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            String encoding = getCharacterEncoding();
+            return new BufferedReader(new InputStreamReader(new ByteArrayInputStream(body),
+                    encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8));
+        }
+    }
+}
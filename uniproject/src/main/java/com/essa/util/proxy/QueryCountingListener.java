@@ -0,0 +1,65 @@
+package com.essa.util.proxy;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.listener.logging.DefaultQueryLogEntryCreator;
+import net.ttddyy.dsproxy.listener.logging.QueryLogEntryCreator;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+// Feeds every statement the DataSource proxy sees into the thread's open QueryStats, if any
+public class QueryCountingListener implements QueryExecutionListener {
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        QueryStats stats = QueryStats.current();
+        if (stats == null) {
+            return;
+        }
+        // a JDBC batch is one round trip, its elapsed time is charged to the first statement
+        long elapsed = execInfo.getElapsedTime();
+        for (QueryInfo query : queryInfoList) {
+            stats.record(query.getQuery(), elapsed);
+            elapsed = 0;
+            if (stats.isCapturing()) {
+                stats.capture(new QueryStats.Statement(query.getQuery(), parametersOf(query)));
+            }
+        }
+    }
+
+    // Slow query log lines: SQL, elapsed time and batch size. Bind values carry password hashes, emails and ticket
+    // text, so they are only written when logParameters is set (query-stats.log-parameters)
+    public static QueryLogEntryCreator slowQueryLogEntryCreator(boolean logParameters) {
+        if (logParameters) {
+            return new DefaultQueryLogEntryCreator();
+        }
+        return new DefaultQueryLogEntryCreator() {
+            @Override
+            protected void writeParamsEntry(StringBuilder sb, ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+            }
+        };
+    }
+
+    // values of the first parameter set (a batch repeats the same shape), ordered by parameter index
+    private static List<Object> parametersOf(QueryInfo query) {
+        if (query.getParametersList().isEmpty()) {
+            return List.of();
+        }
+        List<ParameterSetOperation> operations = new ArrayList<>(query.getParametersList().get(0));
+        operations.removeIf(operation -> !(operation.getArgs()[0] instanceof Integer));
+        operations.sort(Comparator.comparingInt(operation -> (Integer) operation.getArgs()[0]));
+        List<Object> values = new ArrayList<>(operations.size());
+        for (ParameterSetOperation operation : operations) {
+            values.add(ParameterSetOperation.isSetNullParameterOperation(operation) ? null : operation.getArgs()[1]);
+        }
+        return values;
+    }
+}
@@ -0,0 +1,152 @@
+package com.essa.util.proxy;
+
+import com.essa.model.TicketStatus;
+import com.essa.model.User;
+import com.essa.repository.TicketRepository;
+import com.essa.repository.UserRepository;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.ResultSetMetaData;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+// Startup self-check for the index-check profile (part of the dev group): runs the hot ticket queries once,
+// captures the SQL Hibernate generated for them and warns when the database plans a full table scan
+@Component
+@Profile(QueryPlanCheck.PROFILE)
+public class QueryPlanCheck {
+
+    public static final String PROFILE = "index-check";
+
+    private static final Logger logger = Logger.getLogger(QueryPlanCheck.class.getName());
+
+    private static final long SAMPLE_USER_ID = 1L;
+    private static final int SAMPLE_PAGE_SIZE = 51;
+
+    private final TicketRepository ticketRepository;
+    private final UserRepository userRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public QueryPlanCheck(
+            TicketRepository ticketRepository,
+            UserRepository userRepository,
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager
+    ) {
+        this.ticketRepository = ticketRepository;
+        this.userRepository = userRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        List<String> fullScans = check();
+        if (fullScans.isEmpty()) {
+            logger.info("Query plan check: no full table scans in the checked ticket queries");
+        }
+    }
+
+    // Returns one line per query that scans a whole table, each is also logged as a warning
+    public List<String> check() {
+        String database = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                connection.getMetaData().getDatabaseProductName());
+        List<String> fullScans = new ArrayList<>();
+        probes().forEach((name, probe) -> {
+            for (QueryStats.Statement statement : capture(probe)) {
+                if (!statement.sql().trim().toLowerCase(Locale.ROOT).startsWith("select")) {
+                    continue;
+                }
+                List<String> plan = explain(statement);
+                if (isFullScan(database, plan)) {
+                    String finding = name + ": " + statement.sql();
+                    logger.warning("Full table scan in " + finding + "\n  plan: " + String.join("\n  plan: ", plan));
+                    fullScans.add(finding);
+                }
+            }
+        });
+        return fullScans;
+    }
+
+    // Bound values only need to be plausible, the planner picks the access path from the predicates
+    private Map<String, Runnable> probes() {
+        Map<String, Runnable> probes = new LinkedHashMap<>();
+        probes.put("findByStatus", () -> ticketRepository.findByStatus(TicketStatus.OPEN));
+        probes.put("findByAssignedTo", () -> ticketRepository.findByAssignedTo(sampleUser()));
+        probes.put("findByCreatedBy", () -> ticketRepository.findByCreatedBy(sampleUser()));
+        probes.put("findPageOrderById by status", () -> ticketRepository.findPageOrderById(
+                0L, TicketStatus.OPEN, null, null, null, PageRequest.of(0, SAMPLE_PAGE_SIZE)));
+        probes.put("findPageOrderById by assignee", () -> ticketRepository.findPageOrderById(
+                0L, null, null, SAMPLE_USER_ID, null, PageRequest.of(0, SAMPLE_PAGE_SIZE)));
+        probes.put("findPageOrderByUpdatedAt", () -> ticketRepository.findPageOrderByUpdatedAt(
+                LocalDateTime.now(), Long.MAX_VALUE, null, null, null, null, PageRequest.of(0, SAMPLE_PAGE_SIZE)));
+        probes.put("streamForExport by creation date", () -> {
+            try (Stream<?> rows = ticketRepository.streamForExport(
+                    null, null, null, null, LocalDateTime.now().minusDays(1), null)) {
+                rows.forEach(row -> { });
+            }
+        });
+        return probes;
+    }
+
+    // a reference is bound by id without being loaded
+    private User sampleUser() {
+        return userRepository.getReferenceById(SAMPLE_USER_ID);
+    }
+
+    private List<QueryStats.Statement> capture(Runnable probe) {
+        QueryStats stats = QueryStats.beginCapturing();
+        try {
+            transactionTemplate.executeWithoutResult(status -> probe.run());
+        } finally {
+            stats.end();
+        }
+        return stats.getStatements();
+    }
+
+    // EXPLAIN rows flattened to "column=value" lines, the shape differs per database
+    private List<String> explain(QueryStats.Statement statement) {
+        return jdbcTemplate.query("EXPLAIN " + statement.sql(), ps -> {
+            List<Object> parameters = statement.parameters();
+            for (int i = 0; i < parameters.size(); i++) {
+                ps.setObject(i + 1, parameters.get(i));
+            }
+        }, (rs, rowNum) -> {
+            ResultSetMetaData meta = rs.getMetaData();
+            StringJoiner line = new StringJoiner(" ");
+            for (int column = 1; column <= meta.getColumnCount(); column++) {
+                line.add(meta.getColumnCount() == 1 ? rs.getString(column)
+                        : meta.getColumnLabel(column).toLowerCase(Locale.ROOT) + "=" + rs.getString(column));
+            }
+            return line.toString();
+        });
+    }
+
+    static boolean isFullScan(String database, List<String> plan) {
+        String marker = switch (database) {
+            case "H2" -> ".tableScan";
+            case "PostgreSQL" -> "Seq Scan";
+            // MariaDB and MySQL report the access type per table, ALL is a full scan
+            default -> "type=ALL";
+        };
+        return plan.stream().anyMatch(line -> line.contains(marker));
+    }
+}
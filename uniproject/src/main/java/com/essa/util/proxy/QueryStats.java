@@ -0,0 +1,112 @@
+package com.essa.util.proxy;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Statements executed on the current thread between begin() and end(); QueryStatsFilter opens one per HTTP request,
+// tests can open their own to assert a query budget
+public final class QueryStats {
+
+    private static final ThreadLocal<QueryStats> CURRENT = new ThreadLocal<>();
+
+    private final QueryStats previous;
+    private final Map<String, Integer> shapes = new HashMap<>();
+    // null unless opened with beginCapturing()
+    private final List<Statement> statements;
+    private int statementCount;
+    private long elapsedMillis;
+
+    // One executed statement with the values bound to it, in parameter order
+    public record Statement(String sql, List<Object> parameters) {
+    }
+
+    private QueryStats(QueryStats previous, boolean capturing) {
+        this.previous = previous;
+        this.statements = capturing ? new ArrayList<>() : null;
+    }
+
+    public static QueryStats begin() {
+        return open(false);
+    }
+
+    // Also keeps every statement with its bind parameters, for diagnostics that replay them (QueryPlanCheck)
+    public static QueryStats beginCapturing() {
+        return open(true);
+    }
+
+    private static QueryStats open(boolean capturing) {
+        QueryStats stats = new QueryStats(CURRENT.get(), capturing);
+        CURRENT.set(stats);
+        return stats;
+    }
+
+    static QueryStats current() {
+        return CURRENT.get();
+    }
+
+    public void end() {
+        if (CURRENT.get() != this) {
+            return;
+        }
+        if (previous != null) {
+            CURRENT.set(previous);
+        } else {
+            CURRENT.remove();
+        }
+    }
+
+    // statements run inside a nested scope count for the enclosing ones too
+    void record(String sql, long elapsed) {
+        for (QueryStats stats = this; stats != null; stats = stats.previous) {
+            stats.statementCount++;
+            stats.elapsedMillis += elapsed;
+            stats.shapes.merge(sql, 1, Integer::sum);
+        }
+    }
+
+    boolean isCapturing() {
+        for (QueryStats stats = this; stats != null; stats = stats.previous) {
+            if (stats.statements != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    void capture(Statement statement) {
+        for (QueryStats stats = this; stats != null; stats = stats.previous) {
+            if (stats.statements != null) {
+                stats.statements.add(statement);
+            }
+        }
+    }
+
+    public List<Statement> getStatements() {
+        return statements == null ? List.of() : List.copyOf(statements);
+    }
+
+    public int getStatementCount() {
+        return statementCount;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public int getExecutions(String sql) {
+        return shapes.getOrDefault(sql, 0);
+    }
+
+    // Statements are bound with parameters, so the same SQL text repeated within one request is the N+1 signature
+    public Map<String, Integer> getRepeatedShapes(int threshold) {
+        Map<String, Integer> repeated = new LinkedHashMap<>();
+        shapes.entrySet().stream()
+                .filter(entry -> entry.getValue() >= threshold)
+                .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
+                .forEach(entry -> repeated.put(entry.getKey(), entry.getValue()));
+        return repeated;
+    }
+}
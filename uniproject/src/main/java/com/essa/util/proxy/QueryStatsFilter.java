@@ -0,0 +1,77 @@
+package com.essa.util.proxy;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.logging.Logger;
+
+// Counts the statements of each request (security filters included), records them per endpoint as
+// http.server.requests.statements and warns when one statement shape repeats often enough to look like N+1
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class QueryStatsFilter extends OncePerRequestFilter {
+
+    public static final String QUERY_COUNT_HEADER = "X-Query-Count";
+
+    private static final Logger logger = Logger.getLogger(QueryStatsFilter.class.getName());
+
+    private final MeterRegistry meterRegistry;
+    private final int repeatThreshold;
+    private final boolean responseHeader;
+
+    public QueryStatsFilter(MeterRegistry meterRegistry,
+                            @Value("${query-stats.repeat-threshold:10}") int repeatThreshold,
+                            @Value("${query-stats.response-header:false}") boolean responseHeader) {
+        this.meterRegistry = meterRegistry;
+        this.repeatThreshold = repeatThreshold;
+        this.responseHeader = responseHeader;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        QueryStats stats = QueryStats.begin();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            stats.end();
+            // responses with a body got the header from QueryCountHeaderAdvice before they were committed
+            if (responseHeader && !response.isCommitted()) {
+                response.setIntHeader(QUERY_COUNT_HEADER, stats.getStatementCount());
+            }
+            report(request, stats);
+        }
+    }
+
+    private void report(HttpServletRequest request, QueryStats stats) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern != null ? pattern.toString() : "UNKNOWN";
+        DistributionSummary.builder("http.server.requests.statements")
+                .description("JDBC statements executed per request")
+                .tag("method", request.getMethod())
+                .tag("uri", uri)
+                .register(meterRegistry)
+                .record(stats.getStatementCount());
+
+        Map<String, Integer> repeated = stats.getRepeatedShapes(repeatThreshold);
+        if (!repeated.isEmpty()) {
+            StringBuilder message = new StringBuilder("Possible N+1 in ")
+                    .append(request.getMethod()).append(' ').append(uri)
+                    .append(" (").append(stats.getStatementCount()).append(" statements):");
+            repeated.forEach((sql, count) -> message.append("\n  ").append(count).append("x ").append(sql));
+            logger.warning(message.toString());
+        }
+    }
+}
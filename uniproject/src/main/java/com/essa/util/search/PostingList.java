@@ -0,0 +1,88 @@
+package com.essa.util.search;
+
+import java.util.Arrays;
+
+// Documents containing one term, in ascending doc order. Each entry is the gap to the previous doc
+// followed by the term frequency, both as variable-length ints, so most entries take two bytes.
+final class PostingList {
+
+    interface Visitor {
+        void accept(int doc, int termFrequency);
+    }
+
+    private byte[] data = new byte[8];
+    private int size;
+    private int lastDoc = -1;
+    // live docs only: removed docs stay in the data until compaction but no longer count here
+    private int documentFrequency;
+
+    // docs must be added in increasing order, which holds because the index only appends new docs
+    void add(int doc, int termFrequency) {
+        writeVarInt(doc - lastDoc);
+        writeVarInt(termFrequency);
+        lastDoc = doc;
+        documentFrequency++;
+    }
+
+    void removeDoc() {
+        documentFrequency--;
+    }
+
+    int getDocumentFrequency() {
+        return documentFrequency;
+    }
+
+    boolean isEmpty() {
+        return documentFrequency == 0;
+    }
+
+    void forEach(Visitor visitor) {
+        int position = 0;
+        int doc = -1;
+        while (position < size) {
+            int gap = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = data[position++];
+                gap |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            int termFrequency = 0;
+            shift = 0;
+            do {
+                b = data[position++];
+                termFrequency |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            doc += gap;
+            visitor.accept(doc, termFrequency);
+        }
+    }
+
+    // rewrite in place without removed docs, so docs referring to this list keep a valid reference;
+    // newDocs[doc] is the renumbered doc or -1
+    void compact(int[] newDocs) {
+        PostingList compacted = new PostingList();
+        forEach((doc, termFrequency) -> {
+            if (newDocs[doc] >= 0) {
+                compacted.add(newDocs[doc], termFrequency);
+            }
+        });
+        data = Arrays.copyOf(compacted.data, Math.max(compacted.size, 1));
+        size = compacted.size;
+        lastDoc = compacted.lastDoc;
+        documentFrequency = compacted.documentFrequency;
+    }
+
+    private void writeVarInt(int value) {
+        if (size + 5 > data.length) {
+            data = Arrays.copyOf(data, Math.max(data.length * 2, size + 5));
+        }
+        while ((value & ~0x7F) != 0) {
+            data[size++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        data[size++] = (byte) value;
+    }
+}
@@ -0,0 +1,368 @@
+package com.essa.util.search;
+
+import com.essa.model.TicketPriority;
+import com.essa.model.TicketStatus;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Inverted index over ticket title and description. Tickets are numbered with dense int doc ids in insertion order;
+// re-indexing a ticket marks its old doc deleted and appends a new one, so posting lists only ever grow at the end.
+// Deleted docs are dropped in one pass once they outnumber the live ones. Each doc keeps its posting lists so
+// removing it takes it out of their document frequencies right away.
+public class TicketSearchIndex {
+
+    static final int TITLE_WEIGHT = 3;
+    static final int MAX_QUERY_TOKENS = 8;
+    static final int MAX_PREFIX_TERMS = 64;
+    static final float PREFIX_MATCH_WEIGHT = 0.5f;
+    static final int MIN_DELETED_FOR_COMPACTION = 1024;
+
+    // BM25 parameters
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final NavigableMap<String, PostingList> postings = new TreeMap<>();
+    private final Map<Long, Integer> docByTicketId = new HashMap<>();
+    private final BitSet deleted = new BitSet();
+
+    private long[] ticketIds = new long[1024];
+    private PostingList[][] docTerms = new PostingList[1024][];
+    private int[] lengths = new int[1024];
+    private byte[] statuses = new byte[1024];
+    private byte[] priorities = new byte[1024];
+    private int docCount;
+    private int deletedCount;
+    private long totalLength;
+
+    public void put(long ticketId, String title, String description, TicketStatus status, TicketPriority priority) {
+        Map<String, Integer> termFrequencies = new HashMap<>();
+        TicketTokenizer.tokenize(title).forEach(term -> termFrequencies.merge(term, TITLE_WEIGHT, Integer::sum));
+        TicketTokenizer.tokenize(description).forEach(term -> termFrequencies.merge(term, 1, Integer::sum));
+
+        lock.writeLock().lock();
+        try {
+            removeDoc(ticketId);
+            int doc = docCount++;
+            ensureCapacity(docCount);
+            int length = 0;
+            PostingList[] terms = new PostingList[termFrequencies.size()];
+            int t = 0;
+            for (Map.Entry<String, Integer> entry : termFrequencies.entrySet()) {
+                PostingList list = postings.computeIfAbsent(entry.getKey(), term -> new PostingList());
+                list.add(doc, entry.getValue());
+                terms[t++] = list;
+                length += entry.getValue();
+            }
+            ticketIds[doc] = ticketId;
+            docTerms[doc] = terms;
+            lengths[doc] = length;
+            statuses[doc] = ordinal(status);
+            priorities[doc] = ordinal(priority);
+            totalLength += length;
+            docByTicketId.put(ticketId, doc);
+            // re-indexing leaves the old doc behind, so updates alone can fill the index with deleted docs
+            compactIfMostlyDeleted();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // status/priority changes keep the postings, only the filter columns move
+    public void updateFilters(long ticketId, TicketStatus status, TicketPriority priority) {
+        lock.writeLock().lock();
+        try {
+            Integer doc = docByTicketId.get(ticketId);
+            if (doc != null) {
+                statuses[doc] = ordinal(status);
+                priorities[doc] = ordinal(priority);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long ticketId) {
+        lock.writeLock().lock();
+        try {
+            removeDoc(ticketId);
+            compactIfMostlyDeleted();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return docCount - deletedCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Every query token has to match, exactly or as a prefix of an indexed term; results are ranked by BM25
+    // with title terms counted TITLE_WEIGHT times and prefix matches scored lower than exact ones.
+    // Candidates start as the docs of the rarest token and every other token narrows them with a merge walk
+    // over its postings, so a query costs the postings it reads rather than the whole doc range.
+    public List<Long> search(String query, TicketStatus status, TicketPriority priority, int limit) {
+        List<String> tokens = new ArrayList<>(new LinkedHashSet<>(TicketTokenizer.tokenize(query)));
+        if (tokens.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        if (tokens.size() > MAX_QUERY_TOKENS) {
+            tokens = tokens.subList(0, MAX_QUERY_TOKENS);
+        }
+
+        lock.readLock().lock();
+        try {
+            int live = docCount - deletedCount;
+            if (live == 0) {
+                return List.of();
+            }
+            List<List<TermMatch>> matches = new ArrayList<>(tokens.size());
+            for (String token : tokens) {
+                List<TermMatch> expansions = expand(token, live);
+                if (expansions.isEmpty()) {
+                    return List.of();
+                }
+                matches.add(expansions);
+            }
+            matches.sort(Comparator.comparingLong(TicketSearchIndex::documentFrequency));
+
+            float averageLength = Math.max(1f, (float) totalLength / live);
+            Candidates candidates = new Candidates();
+            byte statusFilter = ordinal(status);
+            byte priorityFilter = ordinal(priority);
+            for (TermMatch match : matches.get(0)) {
+                match.list().forEach((doc, termFrequency) -> {
+                    if (!deleted.get(doc)
+                            && (status == null || statuses[doc] == statusFilter)
+                            && (priority == null || priorities[doc] == priorityFilter)) {
+                        candidates.add(doc, score(match.weight(), termFrequency, doc, averageLength));
+                    }
+                });
+            }
+            candidates.mergeDuplicates();
+            for (int i = 1; i < matches.size() && candidates.size > 0; i++) {
+                for (TermMatch match : matches.get(i)) {
+                    candidates.accumulate(match.list(), (doc, termFrequency) ->
+                            score(match.weight(), termFrequency, doc, averageLength));
+                }
+                candidates.keepMatched();
+            }
+
+            float[] scores = candidates.scores;
+            // candidates are in doc order, so ties keep the newer doc as before
+            PriorityQueue<Integer> top = new PriorityQueue<>(limit + 1,
+                    (a, b) -> scores[a] != scores[b] ? Float.compare(scores[a], scores[b]) : Integer.compare(a, b));
+            for (int c = 0; c < candidates.size; c++) {
+                top.add(c);
+                if (top.size() > limit) {
+                    top.poll();
+                }
+            }
+
+            Long[] ranked = new Long[top.size()];
+            for (int i = ranked.length - 1; i >= 0; i--) {
+                ranked[i] = ticketIds[candidates.docs[top.poll()]];
+            }
+            return Arrays.asList(ranked);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private List<TermMatch> expand(String token, int live) {
+        List<TermMatch> expansions = new ArrayList<>();
+        Iterator<Map.Entry<String, PostingList>> terms = postings
+                .subMap(token, true, token + Character.MAX_VALUE, false).entrySet().iterator();
+        for (int expanded = 0; terms.hasNext() && expanded < MAX_PREFIX_TERMS; expanded++) {
+            Map.Entry<String, PostingList> term = terms.next();
+            PostingList list = term.getValue();
+            if (list.getDocumentFrequency() > 0) {
+                float weight = idf(list.getDocumentFrequency(), live)
+                        * (term.getKey().equals(token) ? 1f : PREFIX_MATCH_WEIGHT);
+                expansions.add(new TermMatch(list, weight));
+            }
+        }
+        return expansions;
+    }
+
+    private static long documentFrequency(List<TermMatch> expansions) {
+        long total = 0;
+        for (TermMatch match : expansions) {
+            total += match.list().getDocumentFrequency();
+        }
+        return total;
+    }
+
+    private float score(float weight, int termFrequency, int doc, float averageLength) {
+        float norm = K1 * (1 - B + B * lengths[doc] / averageLength);
+        return weight * termFrequency * (K1 + 1) / (termFrequency + norm);
+    }
+
+    private static float idf(int documentFrequency, int live) {
+        return (float) Math.log(1 + (live - documentFrequency + 0.5) / (documentFrequency + 0.5));
+    }
+
+    private void removeDoc(long ticketId) {
+        Integer doc = docByTicketId.remove(ticketId);
+        if (doc != null) {
+            deleted.set(doc);
+            deletedCount++;
+            totalLength -= lengths[doc];
+            for (PostingList list : docTerms[doc]) {
+                list.removeDoc();
+            }
+            docTerms[doc] = null;
+        }
+    }
+
+    private void compactIfMostlyDeleted() {
+        if (deletedCount >= MIN_DELETED_FOR_COMPACTION && deletedCount > docCount - deletedCount) {
+            compact();
+        }
+    }
+
+    // renumber live docs densely and rewrite every posting list without the deleted ones
+    private void compact() {
+        int[] newDocs = new int[docCount];
+        int next = 0;
+        for (int doc = 0; doc < docCount; doc++) {
+            if (deleted.get(doc)) {
+                newDocs[doc] = -1;
+            } else {
+                newDocs[doc] = next;
+                ticketIds[next] = ticketIds[doc];
+                docTerms[next] = docTerms[doc];
+                lengths[next] = lengths[doc];
+                statuses[next] = statuses[doc];
+                priorities[next] = priorities[doc];
+                next++;
+            }
+        }
+        Iterator<Map.Entry<String, PostingList>> entries = postings.entrySet().iterator();
+        while (entries.hasNext()) {
+            Map.Entry<String, PostingList> entry = entries.next();
+            entry.getValue().compact(newDocs);
+            if (entry.getValue().isEmpty()) {
+                entries.remove();
+            }
+        }
+        Arrays.fill(docTerms, next, docCount, null);
+        docByTicketId.replaceAll((ticketId, doc) -> newDocs[doc]);
+        docCount = next;
+        deletedCount = 0;
+        deleted.clear();
+    }
+
+    private void ensureCapacity(int required) {
+        if (required > ticketIds.length) {
+            int capacity = Math.max(required, ticketIds.length * 2);
+            ticketIds = Arrays.copyOf(ticketIds, capacity);
+            docTerms = Arrays.copyOf(docTerms, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+            statuses = Arrays.copyOf(statuses, capacity);
+            priorities = Arrays.copyOf(priorities, capacity);
+        }
+    }
+
+    private static byte ordinal(Enum<?> value) {
+        return value != null ? (byte) value.ordinal() : -1;
+    }
+
+    private record TermMatch(PostingList list, float weight) {
+    }
+
+    private interface Scorer {
+        float score(int doc, int termFrequency);
+    }
+
+    // docs still in the running with their scores so far, sorted by doc once the first token is in
+    private static final class Candidates {
+        int[] docs = new int[16];
+        float[] scores = new float[16];
+        int size;
+        private boolean[] matched;
+
+        void add(int doc, float score) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                scores = Arrays.copyOf(scores, size * 2);
+            }
+            docs[size] = doc;
+            scores[size] = score;
+            size++;
+        }
+
+        // prefix expansions of the first token each add their docs, so the same doc can come more than once
+        void mergeDuplicates() {
+            long[] order = new long[size];
+            for (int c = 0; c < size; c++) {
+                order[c] = (long) docs[c] << 32 | c;
+            }
+            Arrays.sort(order);
+            int[] mergedDocs = new int[size];
+            float[] mergedScores = new float[size];
+            int merged = 0;
+            for (long entry : order) {
+                int doc = (int) (entry >>> 32);
+                float score = scores[(int) entry];
+                if (merged > 0 && mergedDocs[merged - 1] == doc) {
+                    mergedScores[merged - 1] += score;
+                } else {
+                    mergedDocs[merged] = doc;
+                    mergedScores[merged] = score;
+                    merged++;
+                }
+            }
+            docs = mergedDocs;
+            scores = mergedScores;
+            size = merged;
+            matched = new boolean[size];
+        }
+
+        // both the postings and the candidates ascend by doc, so one pass pairs them up
+        void accumulate(PostingList list, Scorer scorer) {
+            int[] cursor = {0};
+            list.forEach((doc, termFrequency) -> {
+                int c = cursor[0];
+                while (c < size && docs[c] < doc) {
+                    c++;
+                }
+                cursor[0] = c;
+                if (c < size && docs[c] == doc) {
+                    matched[c] = true;
+                    scores[c] += scorer.score(doc, termFrequency);
+                }
+            });
+        }
+
+        void keepMatched() {
+            int kept = 0;
+            for (int c = 0; c < size; c++) {
+                if (matched[c]) {
+                    docs[kept] = docs[c];
+                    scores[kept] = scores[c];
+                    kept++;
+                }
+            }
+            size = kept;
+            Arrays.fill(matched, 0, size, false);
+        }
+    }
+}
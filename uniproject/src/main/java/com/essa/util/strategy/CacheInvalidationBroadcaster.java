@@ -0,0 +1,13 @@
+package com.essa.util.strategy;
+
+import java.util.function.Consumer;
+
+// Tells other application nodes that a node-local cache is stale; chosen with cache.invalidation.type (see CacheConfig)
+public interface CacheInvalidationBroadcaster {
+
+    // called by the writing node, inside the transaction that made the change when there is one
+    void publish(String cache);
+
+    // handler runs for invalidations coming from any node, possibly this one
+    void subscribe(Consumer<String> handler);
+}
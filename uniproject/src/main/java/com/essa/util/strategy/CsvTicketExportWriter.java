@@ -0,0 +1,58 @@
+package com.essa.util.strategy;
+
+import com.essa.dto.TicketExportDTO;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+// RFC 4180 CSV with a header row; the stream is left open for the caller
+public class CsvTicketExportWriter implements TicketExportWriter {
+
+    static final String HEADER = "id,title,description,status,priority,createdById,assignedToId,createdAt,updatedAt";
+
+    private final Writer out;
+
+    public CsvTicketExportWriter(OutputStream out) throws IOException {
+        this.out = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        this.out.write(HEADER);
+        this.out.write("\r\n");
+    }
+
+    @Override
+    public void write(TicketExportDTO ticket) throws IOException {
+        Object[] fields = {
+                ticket.getId(), ticket.getTitle(), ticket.getDescription(), ticket.getStatus(), ticket.getPriority(),
+                ticket.getCreatedById(), ticket.getAssignedToId(), ticket.getCreatedAt(), ticket.getUpdatedAt()
+        };
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) {
+                out.write(',');
+            }
+            if (fields[i] != null) {
+                out.write(escape(fields[i].toString()));
+            }
+        }
+        out.write("\r\n");
+    }
+
+    static String escape(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.flush();
+    }
+}
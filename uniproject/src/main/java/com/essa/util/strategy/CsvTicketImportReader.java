@@ -0,0 +1,117 @@
+package com.essa.util.strategy;
+
+import com.essa.dto.TicketCreateDTO;
+import com.essa.model.TicketPriority;
+import com.essa.model.TicketStatus;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// RFC 4180 CSV; the header row names the TicketCreateDTO fields, in any order, unknown columns are ignored
+public class CsvTicketImportReader implements TicketImportReader {
+
+    private final BufferedReader in;
+    private final Map<String, Integer> columns = new HashMap<>();
+    private long line = 1;
+
+    public CsvTicketImportReader(InputStream in) throws IOException {
+        this.in = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        List<String> header = readRecord();
+        if (header != null) {
+            for (int i = 0; i < header.size(); i++) {
+                columns.put(header.get(i).trim(), i);
+            }
+        }
+        if (!columns.containsKey("title")) {
+            throw new IllegalArgumentException("CSV header must contain a title column");
+        }
+    }
+
+    @Override
+    public TicketImportRow next() throws IOException {
+        List<String> record;
+        long start;
+        do {
+            start = line;
+            record = readRecord();
+            if (record == null) {
+                return null;
+            }
+        } while (record.size() == 1 && record.get(0).isEmpty());
+
+        try {
+            TicketCreateDTO ticket = new TicketCreateDTO();
+            ticket.setTitle(value(record, "title"));
+            ticket.setDescription(value(record, "description"));
+            String status = value(record, "status");
+            ticket.setStatus(status != null ? TicketStatus.valueOf(status.toUpperCase(Locale.ROOT)) : null);
+            String priority = value(record, "priority");
+            ticket.setPriority(priority != null ? TicketPriority.valueOf(priority.toUpperCase(Locale.ROOT)) : null);
+            String createdById = value(record, "createdById");
+            ticket.setCreatedById(createdById != null ? Long.valueOf(createdById) : null);
+            String assignedToId = value(record, "assignedToId");
+            ticket.setAssignedToId(assignedToId != null ? Long.valueOf(assignedToId) : null);
+            return TicketImportRow.of(start, ticket);
+        } catch (IllegalArgumentException e) {
+            return TicketImportRow.error(start, "Invalid value: " + e.getMessage());
+        }
+    }
+
+    private String value(List<String> record, String column) {
+        Integer index = columns.get(column);
+        if (index == null || index >= record.size() || record.get(index).isEmpty()) {
+            return null;
+        }
+        return record.get(index);
+    }
+
+    // Quoted fields may contain separators, doubled quotes and line breaks
+    private List<String> readRecord() throws IOException {
+        int c = in.read();
+        if (c == -1) {
+            return null;
+        }
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        while (c != -1) {
+            if (quoted) {
+                if (c == '"') {
+                    in.mark(1);
+                    if (in.read() == '"') {
+                        field.append('"');
+                    } else {
+                        in.reset();
+                        quoted = false;
+                    }
+                } else {
+                    if (c == '\n') {
+                        line++;
+                    }
+                    field.append((char) c);
+                }
+            } else if (c == '"' && field.isEmpty()) {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n') {
+                line++;
+                break;
+            } else if (c != '\r') {
+                field.append((char) c);
+            }
+            c = in.read();
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
@@ -0,0 +1,9 @@
+package com.essa.util.strategy;
+
+import java.io.IOException;
+
+// Delivery channel for composed emails; chosen with email.sender.type (see EmailConfig)
+@FunctionalInterface
+public interface EmailSender {
+    void send(String recipient, String message) throws IOException;
+}
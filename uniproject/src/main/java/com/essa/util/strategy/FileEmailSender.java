@@ -0,0 +1,27 @@
+package com.essa.util.strategy;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Local stand-in for an SMTP relay: appends every message to one file, separated by a blank line
+public class FileEmailSender implements EmailSender {
+
+    private final Path file;
+
+    public FileEmailSender(Path file) {
+        this.file = file;
+    }
+
+    @Override
+    public synchronized void send(String recipient, String message) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Files.writeString(file, message + "\n\n", StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+}
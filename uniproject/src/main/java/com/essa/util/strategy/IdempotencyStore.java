@@ -0,0 +1,45 @@
+package com.essa.util.strategy;
+
+import java.time.Duration;
+import java.util.Map;
+
+// Remembers requests sent with an Idempotency-Key and the response they got, so a retry is answered without running
+// the request again; chosen with idempotency.store.type (see IdempotencyConfig)
+public interface IdempotencyStore {
+
+    // Claims key for a request with this fingerprint and returns null: the caller runs it and then completes or
+    // releases the claim with the same token. When the key is already claimed, nothing changes and the existing
+    // entry is returned. An unfinished claim is dropped after lease, in case its node died before completing it
+    Entry claim(Key key, String fingerprint, String token, Duration lease);
+
+    // Stores the response of the claim made with token and keeps it for ttl. Does nothing when that claim is gone,
+    // e.g. its lease ran out and another request claimed the key
+    void complete(Key key, String token, StoredResponse response, Duration ttl);
+
+    // drops the unfinished claim made with token, a retry runs the request again
+    void release(Key key, String token);
+
+    // Waits for an unfinished claim: the completed entry, null when the claim was released or has expired,
+    // or the still unfinished entry when timeout runs out
+    Entry await(Key key, Duration timeout) throws InterruptedException;
+
+    // removes expired entries and unfinished claims past their lease, returns how many
+    int purgeExpired();
+
+    // caller is the authenticated principal ("" without one); hash covers the caller, the endpoint and the
+    // Idempotency-Key header
+    record Key(String caller, String hash) {
+    }
+
+    // headers holds the ones a retry needs again, such as ETag and Location
+    record StoredResponse(int status, String contentType, Map<String, String> headers, byte[] body) {
+    }
+
+    // response is null while the request that claimed the key is still running
+    record Entry(String fingerprint, StoredResponse response) {
+
+        public boolean isCompleted() {
+            return response != null;
+        }
+    }
+}
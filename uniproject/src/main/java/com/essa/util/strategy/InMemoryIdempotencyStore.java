@@ -0,0 +1,125 @@
+package com.essa.util.strategy;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+// Single node: keys live in a bounded cache, per caller, and a duplicate waits on the future the first request
+// completes. maximumSize caps the memory held by stored responses, expireAfterWrite drops them after ttl even
+// between purges
+public class InMemoryIdempotencyStore implements IdempotencyStore {
+
+    private final Cache<Key, Slot> slots;
+
+    public InMemoryIdempotencyStore(long maximumSize, Duration ttl) {
+        this.slots = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                // a request still waiting on an evicted or removed claim wakes up with null and tries to claim
+                // the key itself; complete() replaces a slot with itself, which leaves it waiting
+                .removalListener((Key key, Slot slot, RemovalCause cause) -> {
+                    if (slot != null && cause != RemovalCause.REPLACED) {
+                        slot.response.complete(null);
+                    }
+                })
+                .executor(Runnable::run)
+                .build();
+    }
+
+    @Override
+    public Entry claim(Key key, String fingerprint, String token, Duration lease) {
+        Slot claimed = new Slot(fingerprint, token, Instant.now().plus(lease));
+        while (true) {
+            Slot existing = slots.asMap().putIfAbsent(key, claimed);
+            if (existing == null) {
+                return null;
+            }
+            if (!existing.isExpired(Instant.now())) {
+                return existing.entry();
+            }
+            slots.asMap().remove(key, existing);
+        }
+    }
+
+    @Override
+    public void complete(Key key, String token, StoredResponse response, Duration ttl) {
+        Slot slot = slots.getIfPresent(key);
+        if (slot == null || !slot.token.equals(token)) {
+            return;
+        }
+        slot.expiresAt = Instant.now().plus(ttl);
+        // rewriting the same slot restarts expireAfterWrite for the stored response, and fails when the claim was
+        // removed in between
+        if (slots.asMap().replace(key, slot, slot)) {
+            slot.response.complete(response);
+        }
+    }
+
+    @Override
+    public void release(Key key, String token) {
+        Slot slot = slots.getIfPresent(key);
+        if (slot != null && slot.token.equals(token) && !slot.response.isDone()) {
+            slots.asMap().remove(key, slot);
+        }
+    }
+
+    @Override
+    public Entry await(Key key, Duration timeout) throws InterruptedException {
+        Slot slot = slots.getIfPresent(key);
+        if (slot == null) {
+            return null;
+        }
+        try {
+            StoredResponse response = slot.response.get(timeout.toNanos(), TimeUnit.NANOSECONDS);
+            return response != null ? new Entry(slot.fingerprint, response) : null;
+        } catch (TimeoutException e) {
+            return slot.entry();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Idempotency slot failed for key " + key.hash(), e.getCause());
+        }
+    }
+
+    @Override
+    public int purgeExpired() {
+        Instant now = Instant.now();
+        int removed = 0;
+        for (Map.Entry<Key, Slot> entry : slots.asMap().entrySet()) {
+            if (entry.getValue().isExpired(now) && slots.asMap().remove(entry.getKey(), entry.getValue())) {
+                removed++;
+            }
+        }
+        slots.cleanUp();
+        return removed;
+    }
+
+    private static final class Slot {
+        private final String fingerprint;
+        // identifies the claim, so a request whose lease ran out cannot complete or release its successor's
+        private final String token;
+        private final CompletableFuture<StoredResponse> response = new CompletableFuture<>();
+        // the lease until the response is stored, then the end of its ttl
+        private volatile Instant expiresAt;
+
+        private Slot(String fingerprint, String token, Instant expiresAt) {
+            this.fingerprint = fingerprint;
+            this.token = token;
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean isExpired(Instant now) {
+            return !now.isBefore(expiresAt);
+        }
+
+        private Entry entry() {
+            return new Entry(fingerprint, response.getNow(null));
+        }
+    }
+}
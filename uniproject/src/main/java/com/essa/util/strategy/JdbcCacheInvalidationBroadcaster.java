@@ -0,0 +1,51 @@
+package com.essa.util.strategy;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+
+// Cluster invalidation through the shared database: publish bumps the cache's row in cache_versions, every node
+// polls the table and notifies its handlers when a version has moved since the last poll
+public class JdbcCacheInvalidationBroadcaster implements CacheInvalidationBroadcaster {
+
+    private static final Logger logger = Logger.getLogger(JdbcCacheInvalidationBroadcaster.class.getName());
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Map<String, Long> seenVersions = new ConcurrentHashMap<>();
+    private final List<Consumer<String>> handlers = new CopyOnWriteArrayList<>();
+
+    public JdbcCacheInvalidationBroadcaster(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void publish(String cache) {
+        if (jdbcTemplate.update("UPDATE cache_versions SET version = version + 1 WHERE name = ?", cache) == 0) {
+            logger.warning("No cache_versions row for cache " + cache + ", other nodes will not be told");
+        }
+    }
+
+    @Override
+    public void subscribe(Consumer<String> handler) {
+        handlers.add(handler);
+    }
+
+    // the first poll only records the versions; the writing node is notified of its own change too, which is harmless
+    @Scheduled(fixedDelayString = "${cache.invalidation.poll-interval:5s}")
+    public void poll() {
+        jdbcTemplate.query("SELECT name, version FROM cache_versions", row -> {
+            String cache = row.getString("name");
+            long version = row.getLong("version");
+            Long previous = seenVersions.put(cache, version);
+            if (previous != null && previous != version) {
+                handlers.forEach(handler -> handler.accept(cache));
+            }
+        });
+    }
+}
@@ -0,0 +1,120 @@
+package com.essa.util.strategy;
+
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Several nodes: keys are rows in idempotency_keys, the primary key decides which request claims a key and a
+// duplicate on another node polls the row until the first one has stored its response. Rows are keyed by the hash,
+// which already covers the caller. Bodies are kept as text, which is what the JSON endpoints behind the filter return
+public class JdbcIdempotencyStore implements IdempotencyStore {
+
+    private static final long AWAIT_POLL_MILLIS = 50;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public JdbcIdempotencyStore(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public Entry claim(Key key, String fingerprint, String token, Duration lease) {
+        while (true) {
+            LocalDateTime now = LocalDateTime.now();
+            try {
+                jdbcTemplate.update("""
+                        INSERT INTO idempotency_keys (key_hash, fingerprint, claim_token, expires_at)
+                        VALUES (?, ?, ?, ?)""",
+                        key.hash(), fingerprint, token, Timestamp.valueOf(now.plus(lease)));
+                return null;
+            } catch (DuplicateKeyException e) {
+                Entry existing = find(key, now);
+                if (existing != null) {
+                    return existing;
+                }
+                // expired or released in the meantime, the next insert may win the key
+                jdbcTemplate.update("DELETE FROM idempotency_keys WHERE key_hash = ? AND expires_at <= ?",
+                        key.hash(), Timestamp.valueOf(now));
+            }
+        }
+    }
+
+    @Override
+    public void complete(Key key, String token, StoredResponse response, Duration ttl) {
+        jdbcTemplate.update("""
+                UPDATE idempotency_keys SET status = ?, content_type = ?, headers = ?, body = ?, expires_at = ?
+                WHERE key_hash = ? AND claim_token = ? AND status IS NULL""",
+                response.status(), response.contentType(), formatHeaders(response.headers()),
+                new String(response.body(), StandardCharsets.UTF_8), Timestamp.valueOf(LocalDateTime.now().plus(ttl)),
+                key.hash(), token);
+    }
+
+    @Override
+    public void release(Key key, String token) {
+        jdbcTemplate.update("DELETE FROM idempotency_keys WHERE key_hash = ? AND claim_token = ? AND status IS NULL",
+                key.hash(), token);
+    }
+
+    @Override
+    public Entry await(Key key, Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (true) {
+            Entry entry = find(key, LocalDateTime.now());
+            if (entry == null || entry.isCompleted() || System.nanoTime() >= deadline) {
+                return entry;
+            }
+            Thread.sleep(AWAIT_POLL_MILLIS);
+        }
+    }
+
+    @Override
+    public int purgeExpired() {
+        return jdbcTemplate.update("DELETE FROM idempotency_keys WHERE expires_at <= ?",
+                Timestamp.valueOf(LocalDateTime.now()));
+    }
+
+    // null when there is no row or it has expired
+    private Entry find(Key key, LocalDateTime now) {
+        List<Entry> entries = jdbcTemplate.query("""
+                SELECT fingerprint, status, content_type, headers, body FROM idempotency_keys
+                WHERE key_hash = ? AND expires_at > ?""", (rs, rowNum) -> {
+            String fingerprint = rs.getString("fingerprint");
+            int status = rs.getInt("status");
+            if (rs.wasNull()) {
+                return new Entry(fingerprint, null);
+            }
+            String body = rs.getString("body");
+            return new Entry(fingerprint, new StoredResponse(status, rs.getString("content_type"),
+                    parseHeaders(rs.getString("headers")),
+                    body != null ? body.getBytes(StandardCharsets.UTF_8) : new byte[0]));
+        }, key.hash(), Timestamp.valueOf(now));
+        return entries.isEmpty() ? null : entries.get(0);
+    }
+
+    // one "Name: value" per line; the stored headers (ETag, Location) never contain line breaks
+    private static String formatHeaders(Map<String, String> headers) {
+        StringBuilder text = new StringBuilder();
+        headers.forEach((name, value) -> text.append(name).append(": ").append(value).append('\n'));
+        return text.toString();
+    }
+
+    private static Map<String, String> parseHeaders(String text) {
+        Map<String, String> headers = new LinkedHashMap<>();
+        if (text != null) {
+            for (String line : text.split("\n")) {
+                int separator = line.indexOf(": ");
+                if (separator > 0) {
+                    headers.put(line.substring(0, separator), line.substring(separator + 2));
+                }
+            }
+        }
+        return headers;
+    }
+}
@@ -0,0 +1,15 @@
+package com.essa.util.strategy;
+
+import java.util.function.Consumer;
+
+// Single node: the writer evicts its own caches, there is nobody else to tell
+public class LocalCacheInvalidationBroadcaster implements CacheInvalidationBroadcaster {
+
+    @Override
+    public void publish(String cache) {
+    }
+
+    @Override
+    public void subscribe(Consumer<String> handler) {
+    }
+}
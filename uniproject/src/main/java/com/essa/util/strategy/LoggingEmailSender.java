@@ -0,0 +1,14 @@
+package com.essa.util.strategy;
+
+import java.util.logging.Logger;
+
+// Default sender: writes the message to the application log, as the service did before the outbox
+public class LoggingEmailSender implements EmailSender {
+
+    private static final Logger logger = Logger.getLogger(LoggingEmailSender.class.getName());
+
+    @Override
+    public void send(String recipient, String message) {
+        logger.info("Sending email to " + recipient + ":\n" + message);
+    }
+}
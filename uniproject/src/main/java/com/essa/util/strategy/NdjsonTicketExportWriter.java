@@ -0,0 +1,39 @@
+package com.essa.util.strategy;
+
+import com.essa.dto.TicketExportDTO;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+// One JSON object per line
+public class NdjsonTicketExportWriter implements TicketExportWriter {
+
+    private final JsonGenerator generator;
+    private final ObjectWriter writer;
+
+    public NdjsonTicketExportWriter(OutputStream out, ObjectMapper objectMapper) throws IOException {
+        this.generator = objectMapper.getFactory().createGenerator(out)
+                .configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false)
+                .setRootValueSeparator(null); // lines are separated by '\n' below, not Jackson's default space
+        this.writer = objectMapper.writerFor(TicketExportDTO.class);
+    }
+
+    @Override
+    public void write(TicketExportDTO ticket) throws IOException {
+        writer.writeValue(generator, ticket);
+        generator.writeRaw('\n');
+    }
+
+    @Override
+    public void flush() throws IOException {
+        generator.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        generator.close();
+    }
+}
@@ -0,0 +1,42 @@
+package com.essa.util.strategy;
+
+import com.essa.dto.TicketCreateDTO;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+public class NdjsonTicketImportReader implements TicketImportReader {
+
+    private final BufferedReader in;
+    private final ObjectReader reader;
+    private long line;
+
+    public NdjsonTicketImportReader(InputStream in, ObjectMapper objectMapper) {
+        this.in = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        this.reader = objectMapper.readerFor(TicketCreateDTO.class);
+    }
+
+    @Override
+    public TicketImportRow next() throws IOException {
+        String text;
+        do {
+            text = in.readLine();
+            line++;
+            if (text == null) {
+                return null;
+            }
+        } while (text.isBlank());
+
+        try {
+            return TicketImportRow.of(line, reader.readValue(text));
+        } catch (JsonProcessingException e) {
+            return TicketImportRow.error(line, "Invalid JSON: " + e.getOriginalMessage());
+        }
+    }
+}
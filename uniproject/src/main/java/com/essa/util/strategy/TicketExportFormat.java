@@ -0,0 +1,50 @@
+package com.essa.util.strategy;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+public enum TicketExportFormat {
+
+    NDJSON("application/x-ndjson", "ndjson") {
+        @Override
+        public TicketExportWriter open(OutputStream out, ObjectMapper objectMapper) throws IOException {
+            return new NdjsonTicketExportWriter(out, objectMapper);
+        }
+    },
+    CSV("text/csv", "csv") {
+        @Override
+        public TicketExportWriter open(OutputStream out, ObjectMapper objectMapper) throws IOException {
+            return new CsvTicketExportWriter(out);
+        }
+    };
+
+    private final String contentType;
+    private final String fileExtension;
+
+    TicketExportFormat(String contentType, String fileExtension) {
+        this.contentType = contentType;
+        this.fileExtension = fileExtension;
+    }
+
+    public abstract TicketExportWriter open(OutputStream out, ObjectMapper objectMapper) throws IOException;
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getFileExtension() {
+        return fileExtension;
+    }
+
+    // accepts "ndjson"/"csv" in any case
+    public static TicketExportFormat fromParameter(String value) {
+        for (TicketExportFormat format : values()) {
+            if (format.fileExtension.equalsIgnoreCase(value)) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("Unknown export format: " + value);
+    }
+}
@@ -0,0 +1,12 @@
+package com.essa.util.strategy;
+
+import com.essa.dto.TicketExportDTO;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+
+// One implementation per export format, picked through TicketExportFormat
+public interface TicketExportWriter extends Flushable, Closeable {
+    void write(TicketExportDTO ticket) throws IOException;
+}
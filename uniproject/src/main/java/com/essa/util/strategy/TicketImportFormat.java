@@ -0,0 +1,40 @@
+package com.essa.util.strategy;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+public enum TicketImportFormat {
+
+    NDJSON("ndjson") {
+        @Override
+        public TicketImportReader open(InputStream in, ObjectMapper objectMapper) {
+            return new NdjsonTicketImportReader(in, objectMapper);
+        }
+    },
+    CSV("csv") {
+        @Override
+        public TicketImportReader open(InputStream in, ObjectMapper objectMapper) throws IOException {
+            return new CsvTicketImportReader(in);
+        }
+    };
+
+    private final String parameter;
+
+    TicketImportFormat(String parameter) {
+        this.parameter = parameter;
+    }
+
+    public abstract TicketImportReader open(InputStream in, ObjectMapper objectMapper) throws IOException;
+
+    // accepts "ndjson"/"csv" in any case
+    public static TicketImportFormat fromParameter(String value) {
+        for (TicketImportFormat format : values()) {
+            if (format.parameter.equalsIgnoreCase(value)) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("Unknown import format: " + value);
+    }
+}
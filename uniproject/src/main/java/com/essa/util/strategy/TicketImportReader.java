@@ -0,0 +1,9 @@
+package com.essa.util.strategy;
+
+import java.io.IOException;
+
+// Reads one record at a time so an import never holds more than the current batch in memory
+public interface TicketImportReader {
+    // null once the input is exhausted
+    TicketImportRow next() throws IOException;
+}
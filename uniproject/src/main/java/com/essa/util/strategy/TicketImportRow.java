@@ -0,0 +1,37 @@
+package com.essa.util.strategy;
+
+import com.essa.dto.TicketCreateDTO;
+
+// One parsed record: either a ticket or the reason it could not be read
+public class TicketImportRow {
+
+    private final long line;
+    private final TicketCreateDTO ticket;
+    private final String error;
+
+    private TicketImportRow(long line, TicketCreateDTO ticket, String error) {
+        this.line = line;
+        this.ticket = ticket;
+        this.error = error;
+    }
+
+    public static TicketImportRow of(long line, TicketCreateDTO ticket) {
+        return new TicketImportRow(line, ticket, null);
+    }
+
+    public static TicketImportRow error(long line, String error) {
+        return new TicketImportRow(line, null, error);
+    }
+
+    public long getLine() {
+        return line;
+    }
+
+    public TicketCreateDTO getTicket() {
+        return ticket;
+    }
+
+    public String getError() {
+        return error;
+    }
+}
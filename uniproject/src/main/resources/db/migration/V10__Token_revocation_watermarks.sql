@@ -0,0 +1,4 @@
+-- user_id 0 holds the global watermark moved by role/permission changes; user ids start at 1.
+-- Nodes told about a revocation read only the rows newer than they have seen, and a scheduled
+-- purge drops the expired ones, both through this index
+CREATE INDEX idx_user_token_revocations_not_before ON user_token_revocations (not_before);
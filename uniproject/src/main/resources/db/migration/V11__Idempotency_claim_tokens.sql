@@ -0,0 +1,4 @@
+-- claim_token identifies the request holding a key, so only that request completes or releases it;
+-- headers keeps the response headers a retry gets back (ETag, Location), one "Name: value" per line
+ALTER TABLE idempotency_keys ADD COLUMN claim_token VARCHAR(36);
+ALTER TABLE idempotency_keys ADD COLUMN headers TEXT;
@@ -0,0 +1,22 @@
+-- Transactional outbox for notification emails: rows are written in the same transaction as the
+-- change that triggers them and delivered later by EmailOutboxServiceImpl. Only the facts are stored,
+-- the message itself is composed at send time so several rows for one recipient become one digest.
+CREATE TABLE IF NOT EXISTS email_outbox (
+    id BIGINT PRIMARY KEY,
+    recipient_id BIGINT NOT NULL,
+    recipient_email VARCHAR(200) NOT NULL,
+    recipient_name VARCHAR(255) NOT NULL,
+    ticket_id BIGINT NOT NULL,
+    ticket_title VARCHAR(255) NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    attempts INT NOT NULL,
+    next_attempt_at TIMESTAMP NOT NULL,
+    created_at TIMESTAMP NOT NULL,
+    sent_at TIMESTAMP NULL,
+    last_error VARCHAR(500),
+    CONSTRAINT fk_email_outbox_recipient FOREIGN KEY (recipient_id) REFERENCES users(id)
+);
+
+CREATE INDEX idx_email_outbox_due ON email_outbox (status, next_attempt_at);
+
+CREATE SEQUENCE email_outbox_seq START WITH 1 INCREMENT BY 50;
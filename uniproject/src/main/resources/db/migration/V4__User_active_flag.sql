@@ -0,0 +1,2 @@
+-- Accounts can be switched off without deleting them; written in bulk by UserCommandInvoker
+ALTER TABLE users ADD COLUMN active BOOLEAN DEFAULT TRUE NOT NULL;
@@ -0,0 +1,8 @@
+-- Version counters for node-local caches (cache.invalidation.type=jdbc): a write bumps its cache's row in the same
+-- transaction, every node polls the table and drops its copy when a version moves
+CREATE TABLE IF NOT EXISTS cache_versions (
+    name VARCHAR(100) PRIMARY KEY,
+    version BIGINT NOT NULL
+);
+
+INSERT INTO cache_versions (name, version) VALUES ('roles', 0);
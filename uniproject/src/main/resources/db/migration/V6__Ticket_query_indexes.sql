@@ -0,0 +1,22 @@
+-- Indexes for the ticket access patterns in TicketRepository. Plain CREATE INDEX runs unchanged on MariaDB,
+-- PostgreSQL and H2; descending sorts are served by scanning the ascending index backwards.
+-- MariaDB and H2 already index the foreign keys on their own, PostgreSQL does not, the composites below
+-- lead with the foreign key column so they cover the joins on all three.
+
+-- findByStatus and the keyset page filtered by status, already in id order
+CREATE INDEX idx_tickets_status_id ON tickets (status, id);
+
+-- keyset page filtered by priority
+CREATE INDEX idx_tickets_priority_id ON tickets (priority, id);
+
+-- findByAssignedTo, the "my open tickets" filter, and countAssignedPerUser answered from the index alone
+CREATE INDEX idx_tickets_assigned_status ON tickets (assigned_to, status, priority);
+
+-- findByCreatedBy, countCreatedPerUser, and a creator's tickets in creation order
+CREATE INDEX idx_tickets_created_by_created_at ON tickets (created_by, created_at);
+
+-- export date range
+CREATE INDEX idx_tickets_created_at ON tickets (created_at);
+
+-- keyset page ordered by updated_at DESC, id DESC
+CREATE INDEX idx_tickets_updated_at_id ON tickets (updated_at, id);
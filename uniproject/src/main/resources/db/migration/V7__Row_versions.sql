@@ -0,0 +1,4 @@
+-- Row versions for optimistic locking (@Version on Ticket and User). Every write, including the bulk and
+-- PATCH updates, increments them, so they also serve as the ETags of GET /tickets/{id} and /admin/users/{id}
+ALTER TABLE tickets ADD COLUMN version BIGINT DEFAULT 0 NOT NULL;
+ALTER TABLE users ADD COLUMN version BIGINT DEFAULT 0 NOT NULL;
@@ -0,0 +1,12 @@
+-- Idempotency keys shared by all nodes (idempotency.store.type=jdbc): one row per key, hashed together with the caller
+-- and the endpoint. status stays NULL while the first request runs, then the row holds its response until expires_at
+CREATE TABLE IF NOT EXISTS idempotency_keys (
+    key_hash VARCHAR(64) PRIMARY KEY,
+    fingerprint VARCHAR(64) NOT NULL,
+    status INT NULL,
+    content_type VARCHAR(100),
+    body TEXT,
+    expires_at TIMESTAMP NOT NULL
+);
+
+CREATE INDEX idx_idempotency_keys_expires_at ON idempotency_keys (expires_at);
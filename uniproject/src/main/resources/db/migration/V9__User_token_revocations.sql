@@ -0,0 +1,8 @@
+-- Per-user token watermarks shared by all nodes: tokens of user_id issued at or before not_before (epoch seconds)
+-- are rejected. Rows older than the token lifetime are purged; the 'user-tokens' version tells nodes to reload
+CREATE TABLE IF NOT EXISTS user_token_revocations (
+    user_id BIGINT PRIMARY KEY,
+    not_before BIGINT NOT NULL
+);
+
+INSERT INTO cache_versions (name, version) VALUES ('user-tokens', 0);
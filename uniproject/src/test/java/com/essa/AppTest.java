@@ -1,22 +1,110 @@
 package com.essa;
 
+import com.essa.dto.TicketBulkRequestDTO;
+import com.essa.dto.TicketBulkResultDTO;
+import com.essa.dto.TicketDTO;
+import com.essa.dto.TicketExportDTO;
+import com.essa.dto.TicketFeedEventDTO;
+import com.essa.dto.TicketFilterDTO;
+import com.essa.dto.TicketImportResultDTO;
+import com.essa.dto.TicketRowDTO;
+import com.essa.dto.TicketUpdateDTO;
+import com.essa.dto.UserUpdateDTO;
+import com.essa.dto.UserTicketStatsDTO;
+import com.essa.dto.UserObserverStatsDTO;
+import com.essa.mapper.TicketMapper;
+import com.essa.model.EmailOutboxMessage;
+import com.essa.model.EmailOutboxStatus;
 import com.essa.model.Role;
+import com.essa.model.Ticket;
 import com.essa.model.TicketPriority;
 import com.essa.model.TicketStatus;
 import com.essa.model.User;
+import com.essa.repository.EmailOutboxRepository;
 import com.essa.repository.RoleRepository;
+import com.essa.repository.TicketRepository;
 import com.essa.repository.UserRepository;
+import com.essa.security.AuthenticatedUser;
+import com.essa.security.AuthorityEpoch;
 import com.essa.security.JwtUtil;
+import com.essa.security.VerifiedToken;
+import com.essa.security.UserDetailsCache;
+import com.essa.service.EmailOutboxService;
+import com.essa.service.TicketSearchService;
 import com.essa.service.TicketService;
+import com.essa.service.TicketStatsService;
 import com.essa.service.UserService;
+import com.essa.service.impl.EmailOutboxServiceImpl;
+import com.essa.service.impl.TicketExportServiceImpl;
+import com.essa.service.impl.TicketImportServiceImpl;
+import com.essa.service.impl.TicketSearchServiceImpl;
+import com.essa.service.impl.TicketServiceImpl;
+import com.essa.service.impl.TicketStatsServiceImpl;
 import com.essa.service.impl.UserServiceImpl;
+import com.essa.util.command.ActivateUserCommand;
+import com.essa.util.command.DeactivateUserCommand;
+import com.essa.util.command.UserCommandInvoker;
+import com.essa.util.observer.TicketChangedEvent;
+import com.essa.util.observer.TicketFeedSubscriber;
+import com.essa.util.observer.TicketsImportedEvent;
 import com.essa.util.observer.UserObserver;
+import com.essa.util.observer.UserSubject;
+import com.essa.util.pagination.TicketCursor;
+import com.essa.util.pagination.TicketPage;
+import com.essa.util.proxy.IdempotencyFilter;
+import com.essa.util.search.TicketSearchIndex;
+import com.essa.util.search.TicketTokenizer;
+import com.essa.util.strategy.CsvTicketImportReader;
+import com.essa.util.strategy.EmailSender;
+import com.essa.util.strategy.IdempotencyStore;
+import com.essa.util.strategy.InMemoryIdempotencyStore;
+import com.essa.util.strategy.TicketExportFormat;
+import com.essa.util.strategy.TicketImportFormat;
+import com.essa.util.strategy.TicketImportRow;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mapstruct.factory.Mappers;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
@@ -28,6 +116,10 @@ public class AppTest {
     private UserService userService;
     private TicketService ticketService;
     private UserObserver userObserver;
+    private UserDetailsCache userDetailsCache;
+    private AuthorityEpoch authorityEpoch;
+    private TicketStatsService ticketStatsService;
+    private EmailOutboxService emailOutboxService;
 
     @BeforeEach
     public void setup() {
@@ -35,7 +127,15 @@ public class AppTest {
         roleRepository = mock(RoleRepository.class);
         ticketService = mock(TicketService.class);
         userObserver = mock(UserObserver.class);
-        userService = new UserServiceImpl(userRepository);
+        userDetailsCache = mock(UserDetailsCache.class);
+        authorityEpoch = mock(AuthorityEpoch.class);
+        ticketStatsService = mock(TicketStatsService.class);
+        emailOutboxService = mock(EmailOutboxService.class);
+        UserSubject userSubject = new UserSubject(Runnable::run, 1, 16, UserSubject.OverflowPolicy.BLOCK,
+                Duration.ZERO);
+        userSubject.addObserver(userObserver);
+        userService = new UserServiceImpl(userRepository, userDetailsCache, authorityEpoch, ticketStatsService,
+                userSubject, mock(UserCommandInvoker.class), emailOutboxService);
     }
 
     @Test
@@ -92,27 +192,37 @@ public class AppTest {
         when(userRepository.save(user)).thenReturn(user);
         User updated = userService.update(user);
         assertEquals("updateuser", updated.getUsername());
+        verify(userDetailsCache).evict("updateuser");
+        verify(authorityEpoch).advanceUser(1L);
+        verify(userObserver).onUserUpdated(1L, "updateuser");
     }
 
     @Test
     public void testDeleteUser_Success() {
-        when(userRepository.existsById(1L)).thenReturn(true);
-        doNothing().when(userRepository).deleteById(1L);
-        assertDoesNotThrow(() -> userService.delete(1L));
+        when(userRepository.deleteByIdAndVersion(1L, null)).thenReturn(1);
+        assertTrue(userService.delete(1L, null));
+        verify(userRepository, never()).deleteById(any());
+        verify(userDetailsCache).evictUserId(1L);
+        verify(authorityEpoch).advanceUser(1L);
+        verify(emailOutboxService).discardForRecipient(1L);
     }
 
     @Test
     public void testDeleteUser_NotFound() {
-        when(userRepository.existsById(2L)).thenReturn(false);
-        Exception exception = assertThrows(RuntimeException.class, () -> userService.delete(2L));
-        assertTrue(exception.getMessage().contains("User not found"));
+        when(userRepository.deleteByIdAndVersion(2L, null)).thenReturn(0);
+        assertFalse(userService.delete(2L, null));
+        verify(userDetailsCache, never()).evictUserId(any());
     }
 
     @Test
-    public void testDeleteUser_NotFoundDifId() {
-        when(userRepository.existsById(777L)).thenReturn(false);
-        Exception exception = assertThrows(RuntimeException.class, () -> userService.delete(777L));
-        assertTrue(exception.getMessage().contains("User not found"));
+    public void testDeleteUser_StaleVersionIsAConflict() {
+        when(userRepository.deleteByIdAndVersion(777L, 3L)).thenReturn(0);
+        when(userRepository.existsById(777L)).thenReturn(true);
+        assertThrows(OptimisticLockingFailureException.class, () -> userService.delete(777L, 3L));
+        verify(authorityEpoch, never()).advanceUser(any());
+
+        when(userRepository.existsById(778L)).thenReturn(false);
+        assertFalse(userService.delete(778L, 3L));
     }
 
     @Test
@@ -193,6 +303,8 @@ public class AppTest {
         assertNotNull(token);
         assertEquals("admin", jwtUtil.extractUsername(token));
         assertTrue(jwtUtil.validateToken(token, userDetails));
+        assertEquals("admin", jwtUtil.verify(token).getUsername());
+        assertTrue(jwtUtil.verify(token).getExpiration().after(jwtUtil.verify(token).getIssuedAt()));
     }
 
     @Test
@@ -267,4 +379,1059 @@ public class AppTest {
         assertTrue(result.isPresent());
         verify(mockRoleRepo, times(1)).findByName("ADMIN");
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testTicketCursor_RoundTrip() {
+        LocalDateTime updatedAt = LocalDateTime.of(2024, 3, 15, 10, 30, 5);
+        TicketCursor decoded = TicketCursor.decode(TicketCursor.afterUpdatedAt(updatedAt, 42L).encode());
+
+        assertEquals(TicketCursor.Sort.UPDATED_AT, decoded.getSort());
+        assertEquals(updatedAt, decoded.getLastUpdatedAt());
+        assertEquals(42L, decoded.getLastId());
+        assertEquals(7L, TicketCursor.decode(TicketCursor.afterId(7L).encode()).getLastId());
+    }
+
+    @Test
+    public void testTicketCursor_Invalid() {
+        assertThrows(IllegalArgumentException.class, () -> TicketCursor.decode("garbage!"));
+        assertEquals(TicketPage.MAX_SIZE, TicketPage.clampSize(10_000));
+        assertEquals(1, TicketPage.clampSize(0));
+    }
+
+    @Test
+    public void testJwtUtil_VerifyRejectsExpiredToken() throws Exception {
+        JwtUtil jwtUtil = new JwtUtil();
+        var secretField = JwtUtil.class.getDeclaredField("secret");
+        secretField.setAccessible(true);
+        secretField.set(jwtUtil, "ThisIsAVerySecureSecretKeyThatShouldBeChangedInProduction");
+        var expField = JwtUtil.class.getDeclaredField("expiration");
+        expField.setAccessible(true);
+        expField.set(jwtUtil, -1000L);
+
+        UserDetails userDetails = org.springframework.security.core.userdetails.User
+                .withUsername("admin")
+                .password("admin123")
+                .authorities("ROLE_ADMIN")
+                .build();
+        String expired = jwtUtil.generateToken(userDetails);
+
+        assertThrows(io.jsonwebtoken.ExpiredJwtException.class, () -> jwtUtil.verify(expired));
+        assertThrows(io.jsonwebtoken.ExpiredJwtException.class, () -> jwtUtil.validateToken(expired, userDetails));
+    }
+
+    @Test
+    public void testJwtUtil_StatelessAuthoritiesAreEmbedded() throws Exception {
+        JwtUtil jwtUtil = new JwtUtil();
+        var secretField = JwtUtil.class.getDeclaredField("secret");
+        secretField.setAccessible(true);
+        secretField.set(jwtUtil, "ThisIsAVerySecureSecretKeyThatShouldBeChangedInProduction");
+        var expField = JwtUtil.class.getDeclaredField("expiration");
+        expField.setAccessible(true);
+        expField.set(jwtUtil, 100000L);
+        var statelessField = JwtUtil.class.getDeclaredField("statelessAuthorities");
+        statelessField.setAccessible(true);
+        statelessField.set(jwtUtil, true);
+        var versionField = JwtUtil.class.getDeclaredField("authorityVersion");
+        versionField.setAccessible(true);
+        versionField.set(jwtUtil, 3L);
+
+        UserDetails principal = new AuthenticatedUser(9L, "agent", "hash", java.util.List.of(
+                new org.springframework.security.core.authority.SimpleGrantedAuthority("ROLE_USER"),
+                new org.springframework.security.core.authority.SimpleGrantedAuthority("READ_TICKETS")));
+
+        VerifiedToken token = jwtUtil.verify(jwtUtil.generateToken(principal));
+
+        assertTrue(token.hasAuthorities());
+        assertEquals(9L, token.getUserId());
+        assertEquals(3L, token.getAuthorityVersion());
+        assertEquals(Set.of("ROLE_USER", "READ_TICKETS"), token.getAuthorities().stream()
+                .map(org.springframework.security.core.GrantedAuthority::getAuthority)
+                .collect(java.util.stream.Collectors.toSet()));
+    }
+
+    @Test
+    public void testJwtUtil_DefaultTokenCarriesNoAuthorities() throws Exception {
+        JwtUtil jwtUtil = new JwtUtil();
+        var secretField = JwtUtil.class.getDeclaredField("secret");
+        secretField.setAccessible(true);
+        secretField.set(jwtUtil, "ThisIsAVerySecureSecretKeyThatShouldBeChangedInProduction");
+        var expField = JwtUtil.class.getDeclaredField("expiration");
+        expField.setAccessible(true);
+        expField.set(jwtUtil, 100000L);
+
+        UserDetails principal = new AuthenticatedUser(9L, "agent", "hash", java.util.List.of());
+        VerifiedToken token = jwtUtil.verify(jwtUtil.generateToken(principal));
+
+        assertFalse(token.hasAuthorities());
+        assertNull(token.getUserId());
+    }
+
+    @Test
+    public void testTicketStats_FollowCommittedChanges() {
+        TicketRepository ticketRepository = mock(TicketRepository.class);
+        TicketStatsServiceImpl stats = new TicketStatsServiceImpl(ticketRepository, mock(PlatformTransactionManager.class));
+
+        TicketDTO created = new TicketDTO(1L, "t", "d", TicketStatus.OPEN, TicketPriority.HIGH, 10L, 20L);
+        stats.onTicketChanged(new TicketChangedEvent(TicketChangedEvent.Type.CREATED, null, created));
+
+        assertEquals(1, stats.getStats(10L).getCreatedTickets());
+        assertEquals(1, stats.getStats(20L).getAssignedTickets());
+        assertEquals(1, stats.getStats(20L).getHighPriorityAssigned());
+
+        TicketDTO reassigned = new TicketDTO(1L, "t", "d", TicketStatus.OPEN, TicketPriority.LOW, 10L, 30L);
+        stats.onTicketChanged(new TicketChangedEvent(TicketChangedEvent.Type.UPDATED, created, reassigned));
+
+        assertEquals(0, stats.getStats(20L).getAssignedTickets());
+        assertEquals(0, stats.getStats(20L).getHighPriorityAssigned());
+        assertEquals(1, stats.getStats(30L).getAssignedTickets());
+        assertEquals(0, stats.getStats(30L).getHighPriorityAssigned());
+
+        stats.onTicketChanged(new TicketChangedEvent(TicketChangedEvent.Type.DELETED, reassigned, null));
+
+        assertEquals(0, stats.getStats(10L).getCreatedTickets());
+        assertEquals(0, stats.getStats(30L).getAssignedTickets());
+        verifyNoInteractions(ticketRepository);
+    }
+
+    @Test
+    public void testTicketStats_RebuildRepeatedWhenAChangeOverlapsIt() {
+        TicketRepository ticketRepository = mock(TicketRepository.class);
+        TicketStatsServiceImpl stats = new TicketStatsServiceImpl(ticketRepository, mock(PlatformTransactionManager.class));
+        TicketDTO created = new TicketDTO(1L, "t", "d", TicketStatus.OPEN, TicketPriority.LOW, 10L, null);
+        TicketRepository.UserTicketCount one = mock(TicketRepository.UserTicketCount.class);
+        when(one.getUserId()).thenReturn(10L);
+        when(one.getTotal()).thenReturn(1L);
+        // the first pass may or may not have seen the ticket created while it ran, the second one did
+        when(ticketRepository.countCreatedPerUser()).thenAnswer(invocation -> {
+            stats.onTicketChanged(new TicketChangedEvent(TicketChangedEvent.Type.CREATED, null, created));
+            return List.of();
+        }).thenReturn(List.of(one));
+        when(ticketRepository.countAssignedPerUser()).thenReturn(List.of());
+
+        stats.rebuild();
+
+        verify(ticketRepository, times(2)).countCreatedPerUser();
+        assertEquals(1, stats.getStats(10L).getCreatedTickets());
+    }
+
+    @Test
+    public void testTicketStats_ImportsDuringARebuildFoldIntoOneMore() {
+        TicketRepository ticketRepository = mock(TicketRepository.class);
+        TicketStatsServiceImpl stats = new TicketStatsServiceImpl(ticketRepository, mock(PlatformTransactionManager.class));
+        TicketsImportedEvent imported = new TicketsImportedEvent(1);
+        when(ticketRepository.countCreatedPerUser()).thenAnswer(invocation -> {
+            Thread other = new Thread(() -> {
+                stats.onTicketsImported(imported);
+                stats.onTicketsImported(imported);
+            });
+            other.start();
+            other.join();
+            return List.of();
+        }).thenReturn(List.of());
+        when(ticketRepository.countAssignedPerUser()).thenReturn(List.of());
+
+        stats.onTicketsImported(imported);
+
+        verify(ticketRepository, times(2)).countCreatedPerUser();
+    }
+
+    @Test
+    public void testTicketStats_RebuildWaitsForACommittingChange() throws Exception {
+        TicketRepository ticketRepository = mock(TicketRepository.class);
+        TicketStatsServiceImpl stats = new TicketStatsServiceImpl(ticketRepository, mock(PlatformTransactionManager.class));
+        TicketChangedEvent event = new TicketChangedEvent(TicketChangedEvent.Type.CREATED, null,
+                new TicketDTO(1L, "t", "d", TicketStatus.OPEN, TicketPriority.LOW, 10L, null));
+        TicketRepository.UserTicketCount one = mock(TicketRepository.UserTicketCount.class);
+        when(one.getUserId()).thenReturn(10L);
+        when(one.getTotal()).thenReturn(1L);
+        when(ticketRepository.countCreatedPerUser()).thenReturn(List.of(one));
+        when(ticketRepository.countAssignedPerUser()).thenReturn(List.of());
+
+        // the ticket is committed, so the snapshot has it, but its delta is applied only after the queries
+        TransactionSynchronizationManager.initSynchronization();
+        List<TransactionSynchronization> committing;
+        try {
+            stats.onTicketCommitting(event);
+            committing = TransactionSynchronizationManager.getSynchronizations();
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        Thread afterCommit = new Thread(() -> {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(50));
+            stats.onTicketChanged(event);
+            committing.forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        });
+        afterCommit.start();
+
+        stats.rebuild();
+        afterCommit.join();
+
+        assertEquals(1, stats.getStats(10L).getCreatedTickets());
+    }
+
+    @Test
+    public void testTicketService_ChangePriorityPublishesBeforeAndAfter() {
+        TicketRepository ticketRepository = mock(TicketRepository.class);
+        ApplicationEventPublisher publisher = mock(ApplicationEventPublisher.class);
+        TicketServiceImpl service = new TicketServiceImpl(ticketRepository, userRepository,
+                Mappers.getMapper(TicketMapper.class), publisher, mock(EmailOutboxService.class));
+
+        Ticket ticket = new Ticket();
+        ticket.setId(5L);
+        ticket.setTitle("Printer");
+        ticket.setPriority(TicketPriority.LOW);
+        when(ticketRepository.findById(5L)).thenReturn(Optional.of(ticket));
+        when(ticketRepository.save(ticket)).thenReturn(ticket);
+
+        service.changePriority(5L, TicketPriority.CRITICAL);
+
+        ArgumentCaptor<TicketChangedEvent> captor = ArgumentCaptor.forClass(TicketChangedEvent.class);
+        verify(publisher).publishEvent(captor.capture());
+        assertEquals(TicketChangedEvent.Type.PRIORITY_CHANGED, captor.getValue().getType());
+        assertEquals(TicketPriority.LOW, captor.getValue().getBefore().getPriority());
+        assertEquals(TicketPriority.CRITICAL, captor.getValue().getAfter().getPriority());
+    }
+
+    @Test
+    public void testGetUserWithStats_UsesPrecomputedCounts() {
+        User user = new User();
+        user.setId(7L);
+        user.setUsername("statsuser");
+        user.setEmail("stats@example.com");
+        when(userRepository.findById(7L)).thenReturn(Optional.of(user));
+        when(ticketStatsService.getStats(7L)).thenReturn(new UserTicketStatsDTO(7L, 12, 3, 1));
+
+        String info = userService.getUserWithStats(7L);
+
+        assertEquals("User: statsuser (stats@example.com) - Created: 12 tickets, Assigned: 3 tickets", info);
+    }
+
+    @Test
+    public void testBulkAssign_ReportsPerIdAndUpdatesChangedRowsOnce() {
+        TicketRepository ticketRepository = mock(TicketRepository.class);
+        ApplicationEventPublisher publisher = mock(ApplicationEventPublisher.class);
+        EmailOutboxService outbox = mock(EmailOutboxService.class);
+        TicketServiceImpl service = new TicketServiceImpl(ticketRepository, userRepository,
+                Mappers.getMapper(TicketMapper.class), publisher, outbox);
+
+        User assignee = new User();
+        assignee.setId(9L);
+        assignee.setUsername("triage");
+        assignee.setEmail("triage@example.com");
+        when(userRepository.findById(9L)).thenReturn(Optional.of(assignee));
+        when(ticketRepository.findCommittedStatesByIdIn(List.of(1L, 2L, 3L, 4L))).thenReturn(List.of(
+                new TicketDTO(1L, "Outage", null, TicketStatus.OPEN, TicketPriority.CRITICAL, null, null),
+                new TicketDTO(2L, "Typo", null, TicketStatus.OPEN, TicketPriority.LOW, null, 5L),
+                new TicketDTO(3L, "Done", null, TicketStatus.OPEN, TicketPriority.HIGH, null, 9L)));
+
+        TicketBulkRequestDTO request = new TicketBulkRequestDTO();
+        request.setIds(List.of(1L, 2L, 3L, 4L, 2L));
+        request.setOperation(TicketBulkRequestDTO.Operation.ASSIGN);
+        request.setAssignedToId(9L);
+
+        List<TicketBulkResultDTO> results = service.bulkUpdate(request);
+
+        assertEquals(List.of(
+                new TicketBulkResultDTO(1L, TicketBulkResultDTO.Outcome.UPDATED),
+                new TicketBulkResultDTO(2L, TicketBulkResultDTO.Outcome.UPDATED),
+                new TicketBulkResultDTO(3L, TicketBulkResultDTO.Outcome.UNCHANGED),
+                new TicketBulkResultDTO(4L, TicketBulkResultDTO.Outcome.NOT_FOUND)), results);
+        verify(ticketRepository).updateAssignee(eq(Set.of(1L, 2L)), eq(assignee), any(LocalDateTime.class));
+        verify(ticketRepository, never()).save(any(Ticket.class));
+        verify(publisher, times(2)).publishEvent(any(TicketChangedEvent.class));
+        // only the CRITICAL ticket that actually moved is queued for the assignee's digest
+        verify(outbox).enqueueAssignments(assignee, List.of(
+                new TicketDTO(1L, "Outage", null, TicketStatus.OPEN, TicketPriority.CRITICAL, null, 9L)));
+    }
+
+    @Test
+    public void testBulkUpdate_RejectsMissingValue() {
+        TicketServiceImpl service = new TicketServiceImpl(mock(TicketRepository.class), userRepository,
+                Mappers.getMapper(TicketMapper.class), mock(ApplicationEventPublisher.class),
+                mock(EmailOutboxService.class));
+        TicketBulkRequestDTO request = new TicketBulkRequestDTO();
+        request.setIds(List.of(1L));
+        request.setOperation(TicketBulkRequestDTO.Operation.STATUS);
+
+        assertThrows(IllegalArgumentException.class, () -> service.bulkUpdate(request));
+    }
+
+    @Test
+    public void testPatchTicket_UpdatesGivenFieldsOnceAndPublishesDiff() {
+        TicketRepository ticketRepository = mock(TicketRepository.class);
+        ApplicationEventPublisher publisher = mock(ApplicationEventPublisher.class);
+        TicketServiceImpl service = new TicketServiceImpl(ticketRepository, userRepository,
+                Mappers.getMapper(TicketMapper.class), publisher, mock(EmailOutboxService.class));
+
+        TicketRowDTO row = new TicketRowDTO(5L, "Printer", null, TicketStatus.OPEN, TicketPriority.LOW, 3L, null,
+                LocalDateTime.of(2024, 5, 1, 12, 0), 2L);
+        when(ticketRepository.findRowById(5L)).thenReturn(Optional.of(row));
+        when(ticketRepository.patch(eq(5L), eq(2L), isNull(), isNull(), eq(TicketStatus.CLOSED), isNull(),
+                isNull(), any(LocalDateTime.class))).thenReturn(1);
+
+        TicketUpdateDTO patch = new TicketUpdateDTO();
+        patch.setStatus(TicketStatus.CLOSED);
+        TicketRowDTO result = service.patch(5L, patch, 2L).orElseThrow();
+
+        TicketDTO before = new TicketDTO(5L, "Printer", null, TicketStatus.OPEN, TicketPriority.LOW, 3L, null);
+        TicketDTO after = new TicketDTO(5L, "Printer", null, TicketStatus.CLOSED, TicketPriority.LOW, 3L, null);
+        assertEquals(after, Mappers.getMapper(TicketMapper.class).toDTO(result));
+        assertEquals(3L, result.getVersion());
+        verify(ticketRepository, never()).findById(any());
+        verify(ticketRepository, never()).save(any(Ticket.class));
+        ArgumentCaptor<TicketChangedEvent> captor = ArgumentCaptor.forClass(TicketChangedEvent.class);
+        verify(publisher).publishEvent(captor.capture());
+        assertEquals(TicketChangedEvent.Type.UPDATED, captor.getValue().getType());
+        assertEquals(before, captor.getValue().getBefore());
+        assertEquals(after, captor.getValue().getAfter());
+    }
+
+    @Test
+    public void testPatchTicket_UnchangedOrMissingRunsNoUpdate() {
+        TicketRepository ticketRepository = mock(TicketRepository.class);
+        ApplicationEventPublisher publisher = mock(ApplicationEventPublisher.class);
+        TicketServiceImpl service = new TicketServiceImpl(ticketRepository, userRepository,
+                Mappers.getMapper(TicketMapper.class), publisher, mock(EmailOutboxService.class));
+
+        TicketRowDTO current = new TicketRowDTO(5L, "Printer", null, TicketStatus.OPEN, TicketPriority.LOW, 3L,
+                null, LocalDateTime.of(2024, 5, 1, 12, 0), 2L);
+        when(ticketRepository.findRowById(5L)).thenReturn(Optional.of(current));
+        when(ticketRepository.findRowById(6L)).thenReturn(Optional.empty());
+        TicketUpdateDTO patch = new TicketUpdateDTO();
+        patch.setStatus(TicketStatus.OPEN);
+
+        assertEquals(Optional.of(current), service.patch(5L, patch, null));
+        assertEquals(Optional.empty(), service.patch(6L, patch, null));
+        verify(ticketRepository, never()).patch(any(), any(), any(), any(), any(), any(), any(), any());
+        verifyNoInteractions(publisher);
+    }
+
+    @Test
+    public void testPatchTicket_StaleOrConcurrentVersionIsAConflict() {
+        TicketRepository ticketRepository = mock(TicketRepository.class);
+        ApplicationEventPublisher publisher = mock(ApplicationEventPublisher.class);
+        TicketServiceImpl service = new TicketServiceImpl(ticketRepository, userRepository,
+                Mappers.getMapper(TicketMapper.class), publisher, mock(EmailOutboxService.class));
+
+        TicketRowDTO current = new TicketRowDTO(5L, "Printer", null, TicketStatus.OPEN, TicketPriority.LOW, 3L,
+                null, LocalDateTime.of(2024, 5, 1, 12, 0), 2L);
+        when(ticketRepository.findRowById(5L)).thenReturn(Optional.of(current));
+        TicketUpdateDTO patch = new TicketUpdateDTO();
+        patch.setStatus(TicketStatus.CLOSED);
+
+        // If-Match named an older version: nothing is written
+        assertThrows(OptimisticLockingFailureException.class, () -> service.patch(5L, patch, 1L));
+        verify(ticketRepository, never()).patch(any(), any(), any(), any(), any(), any(), any(), any());
+
+        // another write bumped the version between the read and the UPDATE
+        when(ticketRepository.patch(eq(5L), eq(2L), any(), any(), any(), any(), any(), any(LocalDateTime.class)))
+                .thenReturn(0);
+        assertThrows(OptimisticLockingFailureException.class, () -> service.patch(5L, patch, null));
+        verifyNoInteractions(publisher);
+    }
+
+    @Test
+    public void testDeleteTicket_GuardedByTheVersionRead() {
+        TicketRepository ticketRepository = mock(TicketRepository.class);
+        ApplicationEventPublisher publisher = mock(ApplicationEventPublisher.class);
+        TicketServiceImpl service = new TicketServiceImpl(ticketRepository, userRepository,
+                Mappers.getMapper(TicketMapper.class), publisher, mock(EmailOutboxService.class));
+
+        TicketRowDTO current = new TicketRowDTO(5L, "Printer", null, TicketStatus.OPEN, TicketPriority.LOW, 3L,
+                null, LocalDateTime.of(2024, 5, 1, 12, 0), 2L);
+        when(ticketRepository.findRowById(5L)).thenReturn(Optional.of(current));
+        when(ticketRepository.findRowById(6L)).thenReturn(Optional.empty());
+
+        assertFalse(service.delete(6L, null));
+        assertThrows(OptimisticLockingFailureException.class, () -> service.delete(5L, 1L));
+        verify(ticketRepository, never()).deleteByIdAndVersion(any(), any());
+
+        // another write bumped the version between the read and the DELETE
+        when(ticketRepository.deleteByIdAndVersion(5L, 2L)).thenReturn(0);
+        assertThrows(OptimisticLockingFailureException.class, () -> service.delete(5L, null));
+        verifyNoInteractions(publisher);
+
+        when(ticketRepository.deleteByIdAndVersion(5L, 2L)).thenReturn(1);
+        assertTrue(service.delete(5L, 2L));
+        verify(ticketRepository, never()).deleteById(any());
+        ArgumentCaptor<TicketChangedEvent> captor = ArgumentCaptor.forClass(TicketChangedEvent.class);
+        verify(publisher).publishEvent(captor.capture());
+        assertEquals(TicketChangedEvent.Type.DELETED, captor.getValue().getType());
+        assertEquals(Mappers.getMapper(TicketMapper.class).toDTO(current), captor.getValue().getBefore());
+    }
+
+    @Test
+    public void testPatchUser_SingleUpdateThenEvictsAndNotifies() {
+        UserUpdateDTO patch = new UserUpdateDTO();
+        patch.setLastname("Renamed");
+        when(userRepository.patch(eq(4L), isNull(), isNull(), eq("Renamed"), isNull(), isNull(), isNull(),
+                any(LocalDateTime.class))).thenReturn(1);
+        when(userRepository.patch(eq(99L), any(), any(), any(), any(), any(), any(), any(LocalDateTime.class)))
+                .thenReturn(0);
+
+        when(userRepository.findVersionById(4L)).thenReturn(Optional.of(3L));
+
+        assertEquals(Optional.of(3L), userService.patch(4L, patch, null, null));
+        assertEquals(Optional.empty(), userService.patch(99L, patch, null, null));
+
+        verify(userRepository, never()).findById(any());
+        verify(userDetailsCache).evictUserId(4L);
+        verify(authorityEpoch).advanceUser(4L);
+        verify(userObserver).onUserUpdated(4L, null);
+        verify(userDetailsCache, never()).evictUserId(99L);
+
+        // a stale If-Match version on a user that exists is a conflict, not a 404
+        when(userRepository.existsById(4L)).thenReturn(true);
+        when(userRepository.patch(eq(4L), eq(7L), any(), any(), any(), any(), any(), any(LocalDateTime.class)))
+                .thenReturn(0);
+        assertThrows(OptimisticLockingFailureException.class, () -> userService.patch(4L, patch, null, 7L));
+
+        // with If-Match the new version is known without reading it back
+        when(userRepository.patch(eq(4L), eq(8L), any(), any(), any(), any(), any(), any(LocalDateTime.class)))
+                .thenReturn(1);
+        assertEquals(Optional.of(9L), userService.patch(4L, patch, null, 8L));
+        verify(userRepository).findVersionById(4L);
+    }
+
+    @Test
+    public void testExport_WritesCsvAndClosesStream() throws Exception {
+        TicketRepository ticketRepository = mock(TicketRepository.class);
+        AtomicBoolean closed = new AtomicBoolean();
+        LocalDateTime createdAt = LocalDateTime.of(2024, 5, 1, 10, 0);
+        TicketExportDTO row = new TicketExportDTO(1L, "Printer, 2nd floor", "Says \"PC LOAD LETTER\"",
+                TicketStatus.OPEN, TicketPriority.HIGH, 3L, null, createdAt, createdAt);
+        when(ticketRepository.streamForExport(TicketStatus.OPEN, null, null, null, null, null))
+                .thenReturn(Stream.of(row).onClose(() -> closed.set(true)));
+        TicketExportServiceImpl exportService = new TicketExportServiceImpl(ticketRepository, new ObjectMapper());
+        TicketFilterDTO filter = new TicketFilterDTO();
+        filter.setStatus(TicketStatus.OPEN);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long count = exportService.export(filter, TicketExportFormat.CSV, out);
+
+        assertEquals(1, count);
+        assertTrue(closed.get());
+        assertEquals("id,title,description,status,priority,createdById,assignedToId,createdAt,updatedAt\r\n"
+                + "1,\"Printer, 2nd floor\",\"Says \"\"PC LOAD LETTER\"\"\",OPEN,HIGH,3,,"
+                + "2024-05-01T10:00,2024-05-01T10:00\r\n", out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testExport_WritesOneJsonObjectPerLine() throws Exception {
+        TicketRepository ticketRepository = mock(TicketRepository.class);
+        when(ticketRepository.streamForExport(null, null, null, null, null, null)).thenReturn(Stream.of(
+                new TicketExportDTO(1L, "A", null, TicketStatus.OPEN, TicketPriority.LOW, null, null, null, null),
+                new TicketExportDTO(2L, "B", null, TicketStatus.CLOSED, TicketPriority.LOW, null, null, null, null)));
+        ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        TicketExportServiceImpl exportService = new TicketExportServiceImpl(ticketRepository, objectMapper);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        exportService.export(new TicketFilterDTO(), TicketExportFormat.NDJSON, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        assertEquals("A", objectMapper.readTree(lines[0]).get("title").asText());
+        assertEquals("CLOSED", objectMapper.readTree(lines[1]).get("status").asText());
+    }
+
+    @Test
+    public void testCsvImportReader_QuotedFieldsAndLineNumbers() throws Exception {
+        String csv = "priority,title,description\r\n"
+                + "HIGH,\"Multi, line\nTitle\",\"He said \"\"hi\"\"\"\r\n"
+                + "\r\n"
+                + "urgent,Broken,\r\n";
+        CsvTicketImportReader reader = new CsvTicketImportReader(
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+
+        TicketImportRow first = reader.next();
+        assertEquals(2, first.getLine());
+        assertEquals("Multi, line\nTitle", first.getTicket().getTitle());
+        assertEquals("He said \"hi\"", first.getTicket().getDescription());
+        assertEquals(TicketPriority.HIGH, first.getTicket().getPriority());
+
+        TicketImportRow second = reader.next();
+        assertEquals(5, second.getLine());
+        assertNotNull(second.getError());
+        assertNull(reader.next());
+
+        assertThrows(IllegalArgumentException.class, () -> new CsvTicketImportReader(
+                new ByteArrayInputStream("name,priority\r\n".getBytes(StandardCharsets.UTF_8))));
+    }
+
+    @Test
+    public void testImport_ChecksEachUserOnceAndReportsBadLines() throws Exception {
+        TicketRepository ticketRepository = mock(TicketRepository.class);
+        ApplicationEventPublisher publisher = mock(ApplicationEventPublisher.class);
+        TicketImportServiceImpl importService = new TicketImportServiceImpl(ticketRepository, userRepository,
+                Mappers.getMapper(TicketMapper.class), publisher, new ObjectMapper(),
+                mock(EntityManager.class), mock(PlatformTransactionManager.class));
+        when(userRepository.findExistingIds(any())).thenReturn(List.of(1L));
+        when(userRepository.getReferenceById(1L)).thenReturn(new User());
+
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < 1200; i++) {
+            body.append("{\"title\":\"T").append(i).append("\",\"assignedToId\":1}\n");
+        }
+        body.append("{\"title\":\"\"}\n");
+        body.append("{\"title\":\"ghost\",\"createdById\":2}\n");
+
+        TicketImportResultDTO result = importService.importTickets(TicketImportFormat.NDJSON,
+                new ByteArrayInputStream(body.toString().getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(1202, result.getProcessed());
+        assertEquals(1200, result.getImported());
+        assertEquals(2, result.getFailed());
+        assertEquals(new TicketImportResultDTO.LineError(1201, "Title is required"), result.getErrors().get(0));
+        assertEquals(new TicketImportResultDTO.LineError(1202, "User not found with id: 2"), result.getErrors().get(1));
+        // user 1 is looked up in the first batch only, user 2 in the last
+        verify(userRepository, times(2)).findExistingIds(any());
+        verify(ticketRepository, times(3)).saveAll(any());
+        verify(publisher).publishEvent(any(TicketsImportedEvent.class));
+    }
+
+    @Test
+    public void testSearchIndex_RanksTitleMatchesAndExpandsPrefixes() {
+        TicketSearchIndex index = new TicketSearchIndex();
+        index.put(1L, "Laptop battery", "Printer is fine, laptop battery drains", TicketStatus.OPEN, TicketPriority.LOW);
+        index.put(2L, "Printer jam", "Paper stuck in tray", TicketStatus.OPEN, TicketPriority.HIGH);
+        index.put(3L, "Drukarka zażółć", "Printing queue stalled", TicketStatus.CLOSED, TicketPriority.LOW);
+
+        assertEquals(List.of(2L, 1L), index.search("printer", null, null, 10));
+        assertEquals(Set.of(1L, 2L, 3L), Set.copyOf(index.search("print", null, null, 10)));
+        assertEquals(List.of(2L), index.search("PRINTER paper", null, null, 10));
+        assertEquals(List.of(3L), index.search("zazolc", null, null, 10));
+        assertEquals(List.of(1L), index.search("print", TicketStatus.OPEN, TicketPriority.LOW, 10));
+        assertEquals(List.of(2L), index.search("printer", null, null, 1));
+        assertEquals(List.of(), index.search("scanner", null, null, 10));
+        assertEquals(List.of("wi", "fi", "drops", "on", "3rd", "floor"),
+                TicketTokenizer.tokenize("Wi-Fi drops on 3rd floor!"));
+    }
+
+    @Test
+    public void testSearchIndex_UpdatesRemovalsAndCompaction() {
+        TicketSearchIndex index = new TicketSearchIndex();
+        for (long id = 1; id <= 3000; id++) {
+            index.put(id, "Ticket " + id, id % 2 == 0 ? "even outage" : "odd outage", TicketStatus.OPEN,
+                    TicketPriority.LOW);
+        }
+        for (long id = 1; id <= 2000; id++) {
+            index.remove(id);
+        }
+        index.put(2999L, "Reindexed", "vpn", TicketStatus.OPEN, TicketPriority.LOW);
+        index.updateFilters(3000L, TicketStatus.CLOSED, TicketPriority.CRITICAL);
+
+        assertEquals(1000, index.size());
+        assertEquals(499, index.search("odd", null, null, 2000).size());
+        assertEquals(List.of(2999L), index.search("vpn", null, null, 10));
+        assertEquals(List.of(3000L), index.search("outage", TicketStatus.CLOSED, null, 10));
+        assertEquals(List.of(2500L), index.search("2500", null, null, 10));
+    }
+
+    @Test
+    public void testSearchIndex_RemovedTicketsLeaveTermWeights() {
+        TicketSearchIndex index = new TicketSearchIndex();
+        index.put(1L, "alpha", "beta", TicketStatus.OPEN, TicketPriority.LOW);
+        index.put(2L, "beta", "alpha", TicketStatus.OPEN, TicketPriority.LOW);
+        for (long id = 3; id < 8; id++) {
+            index.put(id, "other", "beta", TicketStatus.OPEN, TicketPriority.LOW);
+        }
+        for (long id = 100; id < 150; id++) {
+            index.put(id, "other", "alpha", TicketStatus.OPEN, TicketPriority.LOW);
+        }
+        for (long id = 100; id < 150; id++) {
+            index.remove(id);
+        }
+
+        // alpha is the rarer term among live tickets, so its title match ranks first
+        assertEquals(List.of(1L, 2L), index.search("alpha beta", null, null, 10));
+    }
+
+    @Test
+    public void testSearchService_FollowsCommittedTicketChanges() {
+        TicketRepository ticketRepository = mock(TicketRepository.class);
+        TicketSearchServiceImpl searchService = new TicketSearchServiceImpl(ticketRepository, mock(PlatformTransactionManager.class));
+        Ticket ticket = new Ticket();
+        ticket.setId(4L);
+        when(ticketRepository.findAllById(List.of(4L))).thenReturn(List.of(ticket));
+
+        TicketDTO created = new TicketDTO(4L, "VPN down", "no tunnel", TicketStatus.OPEN, TicketPriority.LOW, null, null);
+        searchService.onTicketChanged(new TicketChangedEvent(TicketChangedEvent.Type.CREATED, null, created));
+        assertEquals(List.of(ticket), searchService.search("vpn", null, null, 10));
+
+        TicketDTO raised = new TicketDTO(4L, "VPN down", "no tunnel", TicketStatus.OPEN, TicketPriority.HIGH, null, null);
+        searchService.onTicketChanged(new TicketChangedEvent(TicketChangedEvent.Type.PRIORITY_CHANGED, created, raised));
+        assertEquals(List.of(ticket), searchService.search("tunnel", null, TicketPriority.HIGH, 10));
+
+        searchService.onTicketChanged(new TicketChangedEvent(TicketChangedEvent.Type.DELETED, raised, null));
+        assertEquals(List.of(), searchService.search("vpn", null, null, 10));
+    }
+
+    @Test
+    public void testSearchService_RebuildKeepsChangesCommittedWhileItRuns() {
+        TicketRepository ticketRepository = mock(TicketRepository.class);
+        TicketSearchServiceImpl searchService = new TicketSearchServiceImpl(ticketRepository, mock(PlatformTransactionManager.class));
+        Ticket ticket = new Ticket();
+        ticket.setId(5L);
+        when(ticketRepository.findAllById(List.of(5L))).thenReturn(List.of(ticket));
+        TicketDTO created = new TicketDTO(5L, "Mail bounce", "smtp relay", TicketStatus.OPEN, TicketPriority.LOW,
+                null, null);
+        // the ticket is committed after the rebuild's read started, so the read does not return it
+        when(ticketRepository.streamForExport(any(), any(), any(), any(), any(), any())).thenAnswer(invocation -> {
+            searchService.onTicketChanged(new TicketChangedEvent(TicketChangedEvent.Type.CREATED, null, created));
+            return Stream.empty();
+        });
+
+        searchService.rebuild();
+
+        assertEquals(List.of(ticket), searchService.search("smtp", null, null, 10));
+    }
+
+    @Test
+    public void testFeedSubscriber_FiltersAndCollapsesOverflowIntoResync() throws Exception {
+        SseEmitter emitter = mock(SseEmitter.class);
+        TicketFeedSubscriber subscriber = new TicketFeedSubscriber(emitter, 7L, null, 2, new AtomicLong());
+        TicketDTO mine = new TicketDTO(1L, "VPN", null, TicketStatus.OPEN, TicketPriority.LOW, 3L, 7L);
+        TicketDTO reassigned = new TicketDTO(1L, "VPN", null, TicketStatus.OPEN, TicketPriority.LOW, 3L, 8L);
+        assertTrue(subscriber.matches(new TicketChangedEvent(TicketChangedEvent.Type.ASSIGNED, mine, reassigned)));
+        assertFalse(subscriber.matches(new TicketChangedEvent(TicketChangedEvent.Type.CREATED, null, reassigned)));
+
+        // an executor that never runs lets the queue fill up like a stalled client would
+        List<Runnable> pending = new ArrayList<>();
+        for (long id = 1; id <= 3; id++) {
+            subscriber.offer(new TicketFeedEventDTO(id, "UPDATED", mine), pending::add);
+        }
+        assertEquals(1, pending.size());
+        pending.get(0).run();
+        // the two buffered events were dropped in favour of one resync
+        verify(emitter, times(1)).send(any(SseEmitter.SseEventBuilder.class));
+
+        subscriber.offer(new TicketFeedEventDTO(1L, "UPDATED", mine), Runnable::run);
+        verify(emitter, times(2)).send(any(SseEmitter.SseEventBuilder.class));
+
+        doThrow(new IOException("broken pipe")).when(emitter).send(any(SseEmitter.SseEventBuilder.class));
+        subscriber.offer(new TicketFeedEventDTO(1L, "UPDATED", mine), Runnable::run);
+        assertTrue(subscriber.isClosed());
+        verify(emitter).completeWithError(any());
+    }
+
+    @Test
+    public void testImport_PublishesImportedEvent() throws Exception {
+        ApplicationEventPublisher publisher = mock(ApplicationEventPublisher.class);
+        TicketImportServiceImpl importService = new TicketImportServiceImpl(mock(TicketRepository.class),
+                userRepository, Mappers.getMapper(TicketMapper.class), publisher, new ObjectMapper(),
+                mock(EntityManager.class), mock(PlatformTransactionManager.class));
+
+        importService.importTickets(TicketImportFormat.NDJSON,
+                new ByteArrayInputStream("{\"title\":\"a\"}\n{\"title\":\"b\"}\n".getBytes(StandardCharsets.UTF_8)));
+
+        ArgumentCaptor<TicketsImportedEvent> captor = ArgumentCaptor.forClass(TicketsImportedEvent.class);
+        verify(publisher).publishEvent(captor.capture());
+        assertEquals(2, captor.getValue().getImported());
+    }
+
+    @Test
+    public void testImport_PublishesImportedEventWhenTheBodyBreaksOff() {
+        ApplicationEventPublisher publisher = mock(ApplicationEventPublisher.class);
+        TicketImportServiceImpl importService = new TicketImportServiceImpl(mock(TicketRepository.class),
+                userRepository, Mappers.getMapper(TicketMapper.class), publisher, new ObjectMapper(),
+                mock(EntityManager.class), mock(PlatformTransactionManager.class));
+        byte[] body = "{\"title\":\"a\"}\n".repeat(510)
+                .getBytes(StandardCharsets.UTF_8);
+        InputStream brokenOff = new SequenceInputStream(new ByteArrayInputStream(body), new InputStream() {
+            @Override
+            public int read() throws IOException {
+                throw new IOException("connection reset");
+            }
+        });
+
+        assertThrows(IOException.class, () -> importService.importTickets(TicketImportFormat.NDJSON, brokenOff));
+
+        ArgumentCaptor<TicketsImportedEvent> captor = ArgumentCaptor.forClass(TicketsImportedEvent.class);
+        verify(publisher).publishEvent(captor.capture());
+        assertEquals(500, captor.getValue().getImported());
+    }
+
+    @Test
+    public void testEmailOutbox_CoalescesPerRecipientAndBacksOffOnFailure() {
+        EmailOutboxRepository outboxRepository = mock(EmailOutboxRepository.class);
+        Map<String, String> delivered = new HashMap<>();
+        EmailSender sender = (recipient, message) -> {
+            if (recipient.startsWith("down")) {
+                throw new IOException("relay refused");
+            }
+            delivered.put(recipient, message);
+        };
+        EmailOutboxServiceImpl outbox = new EmailOutboxServiceImpl(outboxRepository, sender,
+                mock(PlatformTransactionManager.class), 10, 3, Duration.ofSeconds(30), Duration.ofMinutes(2),
+                Duration.ofMinutes(5), Duration.ofDays(7));
+
+        User alice = new User();
+        alice.setId(1L);
+        alice.setUsername("alice");
+        alice.setEmail("alice@example.com");
+        User down = new User();
+        down.setId(2L);
+        down.setUsername("down");
+        down.setEmail("down@example.com");
+        EmailOutboxMessage first = new EmailOutboxMessage(alice, 10L, "Outage", LocalDateTime.now());
+        first.setId(100L);
+        EmailOutboxMessage second = new EmailOutboxMessage(alice, 11L, "VPN", LocalDateTime.now());
+        second.setId(101L);
+        EmailOutboxMessage third = new EmailOutboxMessage(down, 12L, "Disk", LocalDateTime.now());
+        third.setId(102L);
+        third.setAttempts(2);
+        when(outboxRepository.findDue(eq(EmailOutboxStatus.PENDING), any(), any()))
+                .thenReturn(List.of(first, second, third));
+
+        assertEquals(3, outbox.dispatchDue());
+
+        // both of alice's assignments arrive as one digest
+        assertEquals(1, delivered.size());
+        assertTrue(delivered.get("alice@example.com").contains("2 Tickets Assigned to You"));
+        assertTrue(delivered.get("alice@example.com").contains("Title: VPN"));
+        verify(outboxRepository).lease(eq(List.of(100L, 101L, 102L)), any());
+        verify(outboxRepository).markSent(eq(List.of(100L, 101L)), any());
+        // third attempt reaches max-attempts
+        verify(outboxRepository).markFailedAttempt(eq(List.of(102L)), eq(EmailOutboxStatus.FAILED), any(),
+                eq("relay refused"));
+
+        assertEquals(Duration.ofSeconds(30), outbox.backoff(1));
+        assertEquals(Duration.ofSeconds(60), outbox.backoff(2));
+        assertEquals(Duration.ofMinutes(2), outbox.backoff(5));
+    }
+
+    @Test
+    public void testUserSubject_DeliversAfterCommitInOrderAndDropsOldest() {
+        List<Runnable> pending = new ArrayList<>();
+        UserSubject subject = new UserSubject(pending::add, 2, 2, UserSubject.OverflowPolicy.DROP_OLDEST,
+                Duration.ZERO);
+        subject.addObserver(userObserver);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            subject.notifyUserCreated(1L, "first");
+            subject.notifyUserUpdated(1L, "second");
+            subject.notifyUserUpdated(1L, "third");
+            verifyNoInteractions(userObserver);
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        // nothing ran on the caller's thread; the full lane gave up its oldest event
+        verifyNoInteractions(userObserver);
+        assertEquals(1, pending.size());
+        assertEquals(2, subject.getStats().get(0).getQueueDepth());
+        assertEquals(1, subject.getStats().get(0).getDropped());
+
+        pending.get(0).run();
+        var inOrder = inOrder(userObserver);
+        inOrder.verify(userObserver).onUserUpdated(1L, "second");
+        inOrder.verify(userObserver).onUserUpdated(1L, "third");
+        verify(userObserver, never()).onUserCreated(any(), any());
+        assertEquals(2, subject.getStats().get(0).getDelivered());
+    }
+
+    @Test
+    public void testUserSubject_BlockWaitIsSharedAndMetered() {
+        List<Runnable> pending = new ArrayList<>();
+        UserSubject subject = new UserSubject(pending::add, 1, 1, UserSubject.OverflowPolicy.BLOCK,
+                Duration.ofMillis(300));
+        for (int i = 0; i < 3; i++) {
+            subject.addObserver(mock(UserObserver.class));
+        }
+        subject.notifyUserUpdated(1L, null);
+
+        // every lane is full and nothing drains: three observers still cost one block-timeout, not three
+        long start = System.nanoTime();
+        subject.notifyUserUpdated(1L, null);
+        long waitedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertTrue(waitedMillis < 600, "waited " + waitedMillis + "ms");
+        assertEquals(3, subject.getStats().stream().mapToLong(UserObserverStatsDTO::getDropped).sum());
+
+        UserSubject metered = new UserSubject(pending::add, 1, 1, UserSubject.OverflowPolicy.DROP_NEWEST,
+                Duration.ZERO);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        metered.bindTo(registry);
+        metered.addObserver(userObserver);
+        metered.notifyUserUpdated(1L, null);
+        metered.notifyUserUpdated(2L, null);
+        String observer = userObserver.getClass().getSimpleName();
+        assertEquals(1, registry.get("user.events.queue.depth").tag("observer", observer).gauge().value());
+        assertEquals(1, registry.get("user.events.dropped").tag("observer", observer).functionCounter().count());
+        metered.removeObserver(userObserver);
+        assertNull(registry.find("user.events.queue.depth").gauge());
+    }
+
+    @Test
+    public void testUserSubject_FailingObserverDoesNotStopOthers() {
+        UserObserver failing = mock(UserObserver.class);
+        doThrow(new IllegalStateException("down")).when(failing).onUserCreated(any(), any());
+        UserSubject subject = new UserSubject(Runnable::run, 4, 8, UserSubject.OverflowPolicy.DROP_NEWEST,
+                Duration.ZERO);
+        subject.addObserver(failing);
+        subject.addObserver(userObserver);
+
+        subject.notifyUserCreated(3L, "carol");
+        subject.removeObserver(failing);
+        subject.notifyUserCreated(4L, "dave");
+
+        verify(userObserver).onUserCreated(3L, "carol");
+        verify(userObserver).onUserCreated(4L, "dave");
+        verify(failing, times(1)).onUserCreated(any(), any());
+        assertEquals(1, subject.getStats().size());
+    }
+
+    @Test
+    public void testUserCommandInvoker_CoalescesBatchAndUndoes() {
+        UserCommandInvoker invoker = new UserCommandInvoker(userRepository, userDetailsCache, authorityEpoch,
+                mock(PlatformTransactionManager.class), 100, 5);
+        when(userRepository.lockActiveStates(List.of(1L, 2L, 3L)))
+                .thenReturn(List.of(activeState(1L, true, 4L), activeState(2L, true, 7L), activeState(3L, false, 1L)));
+
+        // user 1 nets out to "activate", which is a no-op; user 3 was already inactive
+        assertEquals(1, invoker.executeNow(List.of(new DeactivateUserCommand(1L), new ActivateUserCommand(1L),
+                new DeactivateUserCommand(2L), new DeactivateUserCommand(3L))));
+        verify(userRepository).updateActive(eq(Set.of(2L)), eq(false), any(LocalDateTime.class));
+        verify(userRepository, never()).updateActive(any(), eq(true), any());
+        verify(authorityEpoch).advanceUsers(Set.of(2L));
+        verify(userDetailsCache).evictUserIds(Set.of(2L));
+        verify(userDetailsCache, never()).invalidateAll();
+
+        when(userRepository.lockActiveStates(List.of(2L))).thenReturn(List.of(activeState(2L, false, 8L)));
+        assertEquals(1, invoker.undo());
+        verify(userRepository).updateActive(eq(Set.of(2L)), eq(true), any(LocalDateTime.class));
+        assertThrows(IllegalStateException.class, invoker::undo);
+
+        when(userRepository.lockActiveStates(List.of(2L))).thenReturn(List.of(activeState(2L, true, 9L)));
+        assertEquals(1, invoker.redo());
+        verify(userRepository, times(2)).updateActive(eq(Set.of(2L)), eq(false), any(LocalDateTime.class));
+    }
+
+    @Test
+    public void testUserCommandInvoker_UndoLeavesLaterChangesAlone() {
+        UserCommandInvoker invoker = new UserCommandInvoker(userRepository, userDetailsCache, authorityEpoch,
+                mock(PlatformTransactionManager.class), 100, 5);
+        when(userRepository.lockActiveStates(List.of(1L, 2L)))
+                .thenReturn(List.of(activeState(1L, true, 1L), activeState(2L, true, 1L)));
+        assertEquals(2, invoker.executeNow(List.of(new DeactivateUserCommand(1L), new DeactivateUserCommand(2L))));
+
+        // user 2 was patched after the deactivation (version 2 -> 3), so undo keeps that change
+        when(userRepository.lockActiveStates(List.of(2L, 1L)))
+                .thenReturn(List.of(activeState(1L, false, 2L), activeState(2L, false, 3L)));
+        assertEquals(1, invoker.undo());
+        verify(userRepository).updateActive(eq(Set.of(1L)), eq(true), any(LocalDateTime.class));
+        verify(userRepository, never()).updateActive(eq(Set.of(2L)), eq(true), any());
+    }
+
+    @Test
+    public void testUserCommandInvoker_UndoesAWholeRequestAcrossBatches() {
+        UserCommandInvoker invoker = new UserCommandInvoker(userRepository, userDetailsCache, authorityEpoch,
+                mock(PlatformTransactionManager.class), 2, 5);
+        // every user is in the opposite state and untouched in between, so each command changes its row
+        Map<Long, UserRepository.UserActiveState> rows = new HashMap<>();
+        LongStream.rangeClosed(1, 5).forEach(id -> rows.put(id, activeState(id, true, 1L)));
+        when(userRepository.lockActiveStates(anyList())).thenAnswer(invocation -> {
+            List<Long> ids = invocation.getArgument(0);
+            return ids.stream().map(rows::get).toList();
+        });
+        doAnswer(invocation -> {
+            Collection<Long> ids = invocation.getArgument(0);
+            boolean active = invocation.getArgument(1);
+            ids.forEach(id -> rows.put(id, activeState(id, active, rows.get(id).getVersion() + 1)));
+            return ids.size();
+        }).when(userRepository).updateActive(any(), anyBoolean(), any(LocalDateTime.class));
+        List<DeactivateUserCommand> deactivations = Stream.of(1L, 2L, 3L, 4L, 5L)
+                .map(DeactivateUserCommand::new)
+                .toList();
+
+        assertEquals(5, invoker.executeNow(deactivations));
+        verify(userRepository, times(3)).updateActive(any(), eq(false), any(LocalDateTime.class));
+
+        assertEquals(5, invoker.undo());
+        verify(userRepository).updateActive(eq(Set.of(5L, 4L)), eq(true), any(LocalDateTime.class));
+        verify(userRepository).updateActive(eq(Set.of(1L)), eq(true), any(LocalDateTime.class));
+        assertThrows(IllegalStateException.class, invoker::undo);
+
+        assertEquals(5, invoker.redo());
+        verify(userRepository, times(6)).updateActive(any(), eq(false), any(LocalDateTime.class));
+    }
+
+    private static UserRepository.UserActiveState activeState(Long id, boolean active, Long version) {
+        return new UserRepository.UserActiveState() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public Boolean getActive() {
+                return active;
+            }
+
+            @Override
+            public Long getVersion() {
+                return version;
+            }
+        };
+    }
+
+    @Test
+    public void testIdempotencyFilter_ReplaysFirstResponseToRetries() throws Exception {
+        IdempotencyFilter filter = new IdempotencyFilter(new InMemoryIdempotencyStore(1000, Duration.ofHours(1)),
+                Duration.ofHours(1), Duration.ofMinutes(1), Duration.ofSeconds(5));
+        AtomicLong executions = new AtomicLong();
+        FilterChain createTicket = (request, response) -> {
+            String id = String.valueOf(executions.incrementAndGet());
+            String title = new String(request.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+            ((HttpServletResponse) response).setStatus(201);
+            ((HttpServletResponse) response).setHeader(HttpHeaders.LOCATION, "/tickets/" + id);
+            ((HttpServletResponse) response).setHeader(HttpHeaders.ETAG, "\"0\"");
+            ((HttpServletResponse) response).setHeader("X-Not-Stored", id);
+            response.setContentType("application/json");
+            response.getWriter().write("{\"id\":" + id + ",\"title\":" + title + "}");
+        };
+
+        MockHttpServletResponse first = new MockHttpServletResponse();
+        filter.doFilter(idempotentPost("agent", "key-1", "\"Printer\""), first, createTicket);
+        MockHttpServletResponse retry = new MockHttpServletResponse();
+        filter.doFilter(idempotentPost("agent", "key-1", "\"Printer\""), retry, createTicket);
+
+        assertEquals(1, executions.get());
+        assertEquals(201, retry.getStatus());
+        assertEquals("{\"id\":1,\"title\":\"Printer\"}", retry.getContentAsString());
+        assertEquals(first.getContentAsString(), retry.getContentAsString());
+        assertNull(first.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+        assertEquals("true", retry.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+        assertEquals("/tickets/1", retry.getHeader(HttpHeaders.LOCATION));
+        assertEquals("\"0\"", retry.getHeader(HttpHeaders.ETAG));
+        assertNull(retry.getHeader("X-Not-Stored"));
+
+        // the same key with another body is a client error, another caller's key is its own
+        MockHttpServletResponse reused = new MockHttpServletResponse();
+        filter.doFilter(idempotentPost("agent", "key-1", "\"Scanner\""), reused, createTicket);
+        assertEquals(422, reused.getStatus());
+        filter.doFilter(idempotentPost("other", "key-1", "\"Printer\""), new MockHttpServletResponse(), createTicket);
+        assertEquals(2, executions.get());
+
+        // without the header nothing is stored
+        MockHttpServletRequest plain = idempotentPost("agent", "key-1", "\"Printer\"");
+        plain.removeHeader(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER);
+        filter.doFilter(plain, new MockHttpServletResponse(), createTicket);
+        assertEquals(3, executions.get());
+    }
+
+    @Test
+    public void testIdempotencyFilter_ConcurrentDuplicateWaitsForFirst() throws Exception {
+        IdempotencyFilter filter = new IdempotencyFilter(new InMemoryIdempotencyStore(1000, Duration.ofHours(1)),
+                Duration.ofHours(1), Duration.ofMinutes(1), Duration.ofSeconds(5));
+        AtomicLong executions = new AtomicLong();
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+        FilterChain slowCreate = (request, response) -> {
+            executions.incrementAndGet();
+            entered.countDown();
+            try {
+                finish.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            response.setContentType("application/json");
+            response.getWriter().write("{\"id\":7}");
+        };
+
+        MockHttpServletResponse first = new MockHttpServletResponse();
+        MockHttpServletResponse duplicate = new MockHttpServletResponse();
+        CompletableFuture<Void> firstCall = CompletableFuture.runAsync(() ->
+                filterQuietly(filter, idempotentPost("agent", "key-2", "{}"), first, slowCreate));
+        assertTrue(entered.await(5, TimeUnit.SECONDS));
+        CompletableFuture<Void> duplicateCall = CompletableFuture.runAsync(() ->
+                filterQuietly(filter, idempotentPost("agent", "key-2", "{}"), duplicate, slowCreate));
+
+        Thread.sleep(100);
+        assertFalse(duplicateCall.isDone());
+        finish.countDown();
+        CompletableFuture.allOf(firstCall, duplicateCall).get(5, TimeUnit.SECONDS);
+
+        assertEquals(1, executions.get());
+        assertEquals("{\"id\":7}", duplicate.getContentAsString());
+        assertEquals("true", duplicate.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+    }
+
+    @Test
+    public void testIdempotencyFilter_ServerErrorIsNotStored() throws Exception {
+        InMemoryIdempotencyStore store = new InMemoryIdempotencyStore(1000, Duration.ofHours(1));
+        IdempotencyFilter filter = new IdempotencyFilter(store, Duration.ZERO, Duration.ofMinutes(1),
+                Duration.ofSeconds(5));
+        AtomicLong executions = new AtomicLong();
+        FilterChain failsOnce = (request, response) -> ((HttpServletResponse) response)
+                .setStatus(executions.incrementAndGet() == 1 ? 503 : 200);
+
+        filter.doFilter(idempotentPost("agent", "key-3", "{}"), new MockHttpServletResponse(), failsOnce);
+        MockHttpServletResponse retry = new MockHttpServletResponse();
+        filter.doFilter(idempotentPost("agent", "key-3", "{}"), retry, failsOnce);
+
+        assertEquals(2, executions.get());
+        assertEquals(200, retry.getStatus());
+        // ttl of zero: the stored response is gone at the next purge
+        assertEquals(1, store.purgeExpired());
+        filter.doFilter(idempotentPost("agent", "key-3", "{}"), new MockHttpServletResponse(), failsOnce);
+        assertEquals(3, executions.get());
+    }
+
+    @Test
+    public void testInMemoryIdempotencyStore_OnlyTheClaimingRequestCompletesIt() throws Exception {
+        InMemoryIdempotencyStore store = new InMemoryIdempotencyStore(1000, Duration.ofHours(1));
+        IdempotencyStore.Key key = new IdempotencyStore.Key("agent", "hash-1");
+        IdempotencyStore.StoredResponse late = new IdempotencyStore.StoredResponse(201, null, Map.of(), new byte[0]);
+        IdempotencyStore.StoredResponse current = new IdempotencyStore.StoredResponse(200, null, Map.of(), new byte[0]);
+
+        // the first claim's lease ran out and a retry took the key over
+        assertNull(store.claim(key, "f", "first", Duration.ZERO));
+        assertNull(store.claim(key, "f", "second", Duration.ofMinutes(1)));
+        store.complete(key, "first", late, Duration.ofHours(1));
+        store.release(key, "first");
+        assertFalse(store.claim(key, "f", "third", Duration.ofMinutes(1)).isCompleted());
+
+        store.complete(key, "second", current, Duration.ofHours(1));
+        assertEquals(200, store.await(key, Duration.ofSeconds(1)).response().status());
+        // the same hash under another caller is a different key
+        assertNull(store.claim(new IdempotencyStore.Key("other", "hash-1"), "f", "fourth", Duration.ofMinutes(1)));
+    }
+
+    @Test
+    public void testInMemoryIdempotencyStore_BoundedBySize() throws Exception {
+        InMemoryIdempotencyStore store = new InMemoryIdempotencyStore(10, Duration.ofHours(1));
+        for (int i = 0; i < 100; i++) {
+            store.claim(new IdempotencyStore.Key("agent", "hash-" + i), "f", "token-" + i, Duration.ofMinutes(1));
+        }
+        // Caffeine evicts during its maintenance, which purgeExpired runs
+        store.purgeExpired();
+        int kept = 0;
+        for (int i = 0; i < 100; i++) {
+            if (store.await(new IdempotencyStore.Key("agent", "hash-" + i), Duration.ZERO) != null) {
+                kept++;
+            }
+        }
+        assertTrue(kept <= 10, "kept " + kept);
+    }
+
+    private static MockHttpServletRequest idempotentPost(String user, String key, String body) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/tickets");
+        request.setContextPath("/api");
+        request.setUserPrincipal(() -> user);
+        request.addHeader(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, key);
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        return request;
+    }
+
+    private static void filterQuietly(IdempotencyFilter filter, MockHttpServletRequest request,
+                                      MockHttpServletResponse response, FilterChain chain) {
+        try {
+            filter.doFilter(request, response, chain);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -3,14 +3,22 @@ package com.essa;
 import com.essa.config.OpenApiConfig;
 import com.essa.config.SecurityConfig;
 import com.essa.security.JwtFilter;
+import com.essa.util.proxy.QueryCountingListener;
 import io.swagger.v3.oas.models.OpenAPI;
 import io.swagger.v3.oas.models.security.SecurityScheme;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.StatementType;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
+import java.sql.PreparedStatement;
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
@@ -109,4 +117,26 @@ public class ConfigTest {
         assertTrue(encoder.matches(password, encoded1));
         assertTrue(encoder.matches(password, encoded2));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testSlowQueryLog_LeavesOutBindParametersByDefault() throws Exception {
+        ExecutionInfo execInfo = new ExecutionInfo();
+        execInfo.setStatementType(StatementType.PREPARED);
+        execInfo.setElapsedTime(350);
+        execInfo.setSuccess(true);
+        QueryInfo query = new QueryInfo("UPDATE users SET password = ? WHERE id = ?");
+        query.getParametersList().add(List.of(
+                new ParameterSetOperation(PreparedStatement.class.getMethod("setString", int.class, String.class),
+                        new Object[]{1, "$2a$10$secretHash"})));
+
+        String entry = QueryCountingListener.slowQueryLogEntryCreator(false)
+                .getLogEntry(execInfo, List.of(query), false, false, false);
+        String debugEntry = QueryCountingListener.slowQueryLogEntryCreator(true)
+                .getLogEntry(execInfo, List.of(query), false, false, false);
+
+        assertTrue(entry.contains("UPDATE users SET password = ? WHERE id = ?"));
+        assertTrue(entry.contains("350"));
+        assertFalse(entry.contains("secretHash"));
+        assertTrue(debugEntry.contains("secretHash"));
+    }
+}
@@ -9,24 +9,47 @@ import com.essa.mapper.UserMapper;
 import com.essa.model.*;
 import com.essa.repository.RoleRepository;
 import com.essa.security.JwtUtil;
+import com.essa.util.pagination.TicketCursor;
+import com.essa.util.pagination.TicketPage;
+import com.essa.util.strategy.TicketExportFormat;
+import com.essa.util.strategy.TicketImportFormat;
+import com.essa.service.TicketExportService;
+import com.essa.service.TicketFeedService;
+import com.essa.service.TicketImportService;
+import com.essa.service.TicketSearchService;
 import com.essa.service.TicketService;
+import com.essa.service.TicketStatsService;
 import com.essa.service.UserService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 
 public class ControllerTest {
@@ -40,6 +63,12 @@ public class ControllerTest {
     private AuthenticationManager authenticationManager;
     private UserDetailsService userDetailsService;
     private JwtUtil jwtUtil;
+    private TicketStatsService ticketStatsService;
+    private TicketExportService ticketExportService;
+    private TicketImportService ticketImportService;
+    private TicketSearchService ticketSearchService;
+    private TicketFeedService ticketFeedService;
+    private MeterRegistry meterRegistry;
 
     private TicketController ticketController;
     private AdminUserController adminUserController;
@@ -56,23 +85,23 @@ public class ControllerTest {
         authenticationManager = mock(AuthenticationManager.class);
         userDetailsService = mock(UserDetailsService.class);
         jwtUtil = mock(JwtUtil.class);
-
-        ticketController = new TicketController(ticketService, userService, ticketMapper);
-        adminUserController = new AdminUserController(userService, userMapper, passwordEncoder, roleRepository);
-        authController = new AuthController(authenticationManager, userDetailsService, jwtUtil);
+        ticketStatsService = mock(TicketStatsService.class);
+        ticketExportService = mock(TicketExportService.class);
+        ticketImportService = mock(TicketImportService.class);
+        ticketSearchService = mock(TicketSearchService.class);
+        ticketFeedService = mock(TicketFeedService.class);
+        meterRegistry = new SimpleMeterRegistry();
+
+        ticketController = new TicketController(ticketService, userService, ticketMapper, ticketExportService,
+                ticketImportService, ticketSearchService, ticketFeedService);
+        adminUserController = new AdminUserController(userService, userMapper, passwordEncoder, roleRepository,
+                ticketStatsService);
+        authController = new AuthController(authenticationManager, userDetailsService, jwtUtil, meterRegistry);
     }
 
     // --- TicketController Tests ---
     @Test
     public void testGetAllTickets() {
-        Ticket ticket1 = new Ticket();
-        ticket1.setId(1L);
-        ticket1.setTitle("Ticket 1");
-
-        Ticket ticket2 = new Ticket();
-        ticket2.setId(2L);
-        ticket2.setTitle("Ticket 2");
-
         TicketDTO dto1 = new TicketDTO();
         dto1.setId(1L);
         dto1.setTitle("Ticket 1");
@@ -81,43 +110,84 @@ public class ControllerTest {
         dto2.setId(2L);
         dto2.setTitle("Ticket 2");
 
-        when(ticketService.findAll()).thenReturn(Arrays.asList(ticket1, ticket2));
-        when(ticketMapper.toDTO(ticket1)).thenReturn(dto1);
-        when(ticketMapper.toDTO(ticket2)).thenReturn(dto2);
+        when(ticketService.findPage(any(TicketFilterDTO.class), eq(TicketCursor.Sort.ID), isNull(), eq(50)))
+                .thenReturn(new TicketPage(Arrays.asList(dto1, dto2), "next-cursor"));
 
-        List<TicketDTO> result = ticketController.getAllTickets();
+        ResponseEntity<List<TicketDTO>> response =
+                ticketController.getAllTickets(null, null, null, null, "id", null, 50);
+        List<TicketDTO> result = response.getBody();
 
+        assertEquals(HttpStatus.OK, response.getStatusCode());
         assertEquals(2, result.size());
         assertEquals("Ticket 1", result.get(0).getTitle());
         assertEquals("Ticket 2", result.get(1).getTitle());
+        assertEquals("next-cursor", response.getHeaders().getFirst(TicketController.NEXT_CURSOR_HEADER));
+    }
+
+    @Test
+    public void testGetAllTickets_InvalidCursor() {
+        ResponseEntity<List<TicketDTO>> response =
+                ticketController.getAllTickets(null, null, null, null, "id", "not-a-cursor", 50);
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        verifyNoInteractions(ticketService);
+    }
+
+    @Test
+    public void testGetAllTickets_LastPageHasNoCursor() {
+        when(ticketService.findPage(any(TicketFilterDTO.class), eq(TicketCursor.Sort.UPDATED_AT), any(), anyInt()))
+                .thenReturn(new TicketPage(List.of(), null));
+
+        String cursor = TicketCursor.afterUpdatedAt(java.time.LocalDateTime.of(2024, 5, 1, 12, 0), 10L).encode();
+        ResponseEntity<List<TicketDTO>> response = ticketController.getAllTickets(
+                TicketStatus.OPEN, null, 2L, null, "updatedAt", cursor, 20);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertTrue(response.getBody().isEmpty());
+        assertNull(response.getHeaders().getFirst(TicketController.NEXT_CURSOR_HEADER));
     }
 
     @SuppressWarnings("null")
     @Test
     public void testGetTicketById_Found() {
-        Ticket ticket = new Ticket();
-        ticket.setId(1L);
-        ticket.setTitle("Test Ticket");
-
+        TicketRowDTO row = new TicketRowDTO(1L, "Test Ticket", null, TicketStatus.OPEN, TicketPriority.LOW,
+                null, null, LocalDateTime.now(), 4L);
         TicketDTO dto = new TicketDTO();
         dto.setId(1L);
         dto.setTitle("Test Ticket");
 
-        when(ticketService.findById(1L)).thenReturn(ticket);
-        when(ticketMapper.toDTO(ticket)).thenReturn(dto);
+        when(ticketService.findRowById(1L)).thenReturn(row);
+        when(ticketMapper.toDTO(row)).thenReturn(dto);
 
-        ResponseEntity<TicketDTO> response = ticketController.getTicket(1L);
+        ResponseEntity<TicketDTO> response = ticketController.getTicket(1L, null);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertNotNull(response.getBody());
         assertEquals("Test Ticket", response.getBody().getTitle());
+        assertEquals("\"4\"", response.getHeaders().getETag());
+        verify(ticketService, never()).findById(any());
+    }
+
+    @Test
+    public void testGetTicketById_NotModifiedWhenETagMatches() {
+        TicketRowDTO row = new TicketRowDTO(1L, "Test Ticket", null, TicketStatus.OPEN, TicketPriority.LOW,
+                null, null, LocalDateTime.now(), 4L);
+        when(ticketService.findRowById(1L)).thenReturn(row);
+
+        ResponseEntity<TicketDTO> response = ticketController.getTicket(1L, "\"3\", W/\"4\"");
+
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+        assertNull(response.getBody());
+        assertEquals("\"4\"", response.getHeaders().getETag());
+        verifyNoInteractions(ticketMapper);
+        assertEquals(HttpStatus.OK, ticketController.getTicket(1L, "\"3\"").getStatusCode());
     }
 
     @Test
     public void testGetTicketById_NotFound() {
-        when(ticketService.findById(1L)).thenReturn(null);
+        when(ticketService.findRowById(1L)).thenReturn(null);
 
-        ResponseEntity<TicketDTO> response = ticketController.getTicket(1L);
+        ResponseEntity<TicketDTO> response = ticketController.getTicket(1L, null);
 
         assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
     }
@@ -162,15 +232,97 @@ public class ControllerTest {
 
     @Test
     public void testDeleteTicket() {
+        when(ticketService.delete(1L, null)).thenReturn(true);
+
+        ResponseEntity<Void> response = ticketController.deleteTicket(1L, null);
+
+        assertEquals(HttpStatus.NO_CONTENT, response.getStatusCode());
+        verify(ticketService).delete(1L, null);
+        verify(ticketService, never()).findById(any());
+    }
+
+    @Test
+    public void testDeleteTicket_StaleIfMatchOrMissing() {
+        when(ticketService.delete(1L, 4L)).thenThrow(new OptimisticLockingFailureException("changed"));
+        when(ticketService.delete(2L, null)).thenReturn(false);
+
+        assertEquals(HttpStatus.PRECONDITION_FAILED, ticketController.deleteTicket(1L, "\"4\"").getStatusCode());
+        assertEquals(HttpStatus.NOT_FOUND, ticketController.deleteTicket(2L, null).getStatusCode());
+    }
+
+    @SuppressWarnings("null")
+    @Test
+    public void testBulkUpdate() {
+        TicketBulkRequestDTO request = new TicketBulkRequestDTO();
+        List<TicketBulkResultDTO> results = List.of(
+                new TicketBulkResultDTO(1L, TicketBulkResultDTO.Outcome.UPDATED));
+        when(ticketService.bulkUpdate(request)).thenReturn(results);
+
+        ResponseEntity<List<TicketBulkResultDTO>> response = ticketController.bulkUpdate(request);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(results, response.getBody());
+
+        when(ticketService.bulkUpdate(request)).thenThrow(new IllegalArgumentException("too many ids"));
+        assertEquals(HttpStatus.BAD_REQUEST, ticketController.bulkUpdate(request).getStatusCode());
+    }
+
+    @SuppressWarnings("null")
+    @Test
+    public void testExportTickets() throws Exception {
+        ResponseEntity<StreamingResponseBody> response = ticketController.exportTickets(
+                "csv", TicketStatus.OPEN, null, null, null, null, null);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("text/csv", response.getHeaders().getContentType().toString());
+        response.getBody().writeTo(new ByteArrayOutputStream());
+        verify(ticketExportService).export(argThat(filter -> filter.getStatus() == TicketStatus.OPEN),
+                eq(TicketExportFormat.CSV), any());
+
+        assertEquals(HttpStatus.BAD_REQUEST,
+                ticketController.exportTickets("xml", null, null, null, null, null, null).getStatusCode());
+    }
+
+    @SuppressWarnings("null")
+    @Test
+    public void testImportTickets() throws Exception {
+        TicketImportResultDTO result = new TicketImportResultDTO();
+        result.setImported(2);
+        ByteArrayInputStream body = new ByteArrayInputStream(new byte[0]);
+        when(ticketImportService.importTickets(TicketImportFormat.CSV, body)).thenReturn(result);
+
+        ResponseEntity<TicketImportResultDTO> response = ticketController.importTickets("CSV", body);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(2, response.getBody().getImported());
+        assertEquals(HttpStatus.BAD_REQUEST, ticketController.importTickets("xlsx", body).getStatusCode());
+    }
+
+    @SuppressWarnings("null")
+    @Test
+    public void testSearchTickets() {
         Ticket ticket = new Ticket();
-        ticket.setId(1L);
+        TicketDTO dto = new TicketDTO();
+        when(ticketSearchService.search("vpn", TicketStatus.OPEN, null, 100)).thenReturn(List.of(ticket));
+        when(ticketMapper.toDTO(ticket)).thenReturn(dto);
 
-        when(ticketService.findById(1L)).thenReturn(ticket);
+        ResponseEntity<List<TicketDTO>> response = ticketController.searchTickets("vpn", TicketStatus.OPEN, null, 500);
 
-        ResponseEntity<Void> response = ticketController.deleteTicket(1L);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(List.of(dto), response.getBody());
+        assertEquals(HttpStatus.BAD_REQUEST, ticketController.searchTickets("  ", null, null, 20).getStatusCode());
+    }
 
-        assertEquals(HttpStatus.NO_CONTENT, response.getStatusCode());
-        verify(ticketService).delete(1L);
+    @Test
+    public void testStreamTickets() {
+        SseEmitter emitter = new SseEmitter();
+        when(ticketFeedService.subscribe(7L, null, true)).thenReturn(emitter);
+        when(ticketFeedService.subscribe(null, TicketStatus.OPEN, false))
+                .thenThrow(new IllegalStateException("Ticket feed is full"));
+
+        assertSame(emitter, ticketController.streamTickets(7L, null, "42").getBody());
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE,
+                ticketController.streamTickets(null, TicketStatus.OPEN, null).getStatusCode());
     }
 
     // --- AdminUserController Tests (POPRAWIONE) ---
@@ -210,6 +362,52 @@ public class ControllerTest {
         assertEquals("user2", response.getBody().get(1).getUsername());
     }
 
+    @SuppressWarnings("null")
+    @Test
+    public void testGetUsersWithStats_OneBatchLookupPerPage() {
+        User user1 = new User();
+        user1.setId(1L);
+        User user2 = new User();
+        user2.setId(2L);
+        UserTicketStatsDTO stats1 = new UserTicketStatsDTO(1L, 3, 1, 0);
+        UserTicketStatsDTO stats2 = new UserTicketStatsDTO(2L, 0, 4, 2);
+        UserWithStatsDTO dto1 = new UserWithStatsDTO();
+        dto1.setId(1L);
+        UserWithStatsDTO dto2 = new UserWithStatsDTO();
+        dto2.setId(2L);
+
+        when(userService.findPage(0, 200)).thenReturn(List.of(user1, user2));
+        when(ticketStatsService.getStats(List.of(1L, 2L))).thenReturn(Map.of(1L, stats1, 2L, stats2));
+        when(userMapper.toStatsDTO(user1, stats1)).thenReturn(dto1);
+        when(userMapper.toStatsDTO(user2, stats2)).thenReturn(dto2);
+
+        ResponseEntity<List<UserWithStatsDTO>> response = adminUserController.getUsersWithStats(0, 1000);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(List.of(dto1, dto2), response.getBody());
+        verify(ticketStatsService, times(1)).getStats(anyCollection());
+        verify(ticketStatsService, never()).getStats(anyLong());
+        assertEquals(HttpStatus.BAD_REQUEST, adminUserController.getUsersWithStats(-1, 10).getStatusCode());
+    }
+
+    @Test
+    public void testSetActive() {
+        UserActivationRequestDTO request = new UserActivationRequestDTO();
+        request.setIds(Arrays.asList(4L, 5L, null, 4L));
+        request.setActive(false);
+        when(userService.setActive(List.of(4L, 5L), false)).thenReturn(1);
+
+        ResponseEntity<UserActivationResultDTO> response = adminUserController.setActive(request);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(new UserActivationResultDTO(2, 1), response.getBody());
+        request.setActive(null);
+        assertEquals(HttpStatus.BAD_REQUEST, adminUserController.setActive(request).getStatusCode());
+
+        when(userService.undoActivationChange()).thenThrow(new IllegalStateException("Nothing to undo"));
+        assertEquals(HttpStatus.CONFLICT, adminUserController.undoActivation().getStatusCode());
+    }
+
     @SuppressWarnings("null")
     @Test
     public void testGetUserById() {
@@ -226,7 +424,7 @@ public class ControllerTest {
         when(userService.findById(1L)).thenReturn(user);
         when(userMapper.toDTO(user)).thenReturn(dto);
 
-        ResponseEntity<UserDTO> response = adminUserController.getUserById(1L);
+        ResponseEntity<UserDTO> response = adminUserController.getUserById(1L, null);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertNotNull(response.getBody());
@@ -321,7 +519,7 @@ public class ControllerTest {
         when(userService.update(existingUser)).thenReturn(updatedUser);
         when(userMapper.toDTO(updatedUser)).thenReturn(responseDTO);
 
-        ResponseEntity<UserDTO> response = adminUserController.updateUser(1L, updateDTO);
+        ResponseEntity<UserDTO> response = adminUserController.updateUser(1L, updateDTO, null);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertNotNull(response.getBody());
@@ -333,24 +531,21 @@ public class ControllerTest {
 
     @Test
     public void testDeleteUser() {
-        User user = new User();
-        user.setId(1L);
-        user.setUsername("userToDelete");
-
-        when(userService.findById(1L)).thenReturn(user);
-        doNothing().when(userService).delete(1L);
-
-        ResponseEntity<Void> response = adminUserController.deleteUser(1L);
-
-        assertEquals(HttpStatus.NO_CONTENT, response.getStatusCode());
-        verify(userService).delete(1L);
+        when(userService.delete(1L, 2L)).thenReturn(true);
+        when(userService.delete(3L, null)).thenReturn(false);
+        when(userService.delete(4L, 2L)).thenThrow(new OptimisticLockingFailureException("changed"));
+
+        assertEquals(HttpStatus.NO_CONTENT, adminUserController.deleteUser(1L, "\"2\"").getStatusCode());
+        assertEquals(HttpStatus.NOT_FOUND, adminUserController.deleteUser(3L, null).getStatusCode());
+        assertEquals(HttpStatus.PRECONDITION_FAILED, adminUserController.deleteUser(4L, "\"2\"").getStatusCode());
+        verify(userService, never()).findById(any());
     }
 
     @Test
     public void testGetUserById_NotFound() {
         when(userService.findById(999L)).thenReturn(null);
 
-        ResponseEntity<UserDTO> response = adminUserController.getUserById(999L);
+        ResponseEntity<UserDTO> response = adminUserController.getUserById(999L, null);
 
         assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
     }
@@ -424,6 +619,23 @@ public class ControllerTest {
         verify(authenticationManager).authenticate(
             any(UsernamePasswordAuthenticationToken.class)
         );
+        assertEquals(1, meterRegistry.get("auth.login").tag("outcome", "success").timer().count());
+    }
+
+    @Test
+    public void testAuthLogin_BadCredentials_RecordsFailedLogin() {
+        AuthController.AuthRequest authRequest = new AuthController.AuthRequest();
+        authRequest.setUsername("admin");
+        authRequest.setPassword("wrong");
+        when(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class)))
+                .thenThrow(new BadCredentialsException("Bad credentials"));
+
+        ResponseEntity<?> response = authController.login(authRequest);
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertEquals(1, meterRegistry.get("auth.login").tag("outcome", "failure").timer().count());
+        assertEquals(0, meterRegistry.get("auth.login").tag("outcome", "success").timer().count());
+        verifyNoInteractions(jwtUtil);
     }
 
     // --- Rest ---
@@ -519,12 +731,95 @@ public class ControllerTest {
         assertEquals("Test Ticket", found.getTitle());
     }
 
+    @Test
+    public void testPatchTicket() {
+        TicketUpdateDTO patch = new TicketUpdateDTO();
+        patch.setPriority(TicketPriority.HIGH);
+        TicketRowDTO row = new TicketRowDTO(1L, "Ticket", null, TicketStatus.OPEN, TicketPriority.HIGH, null, null,
+                LocalDateTime.now(), 8L);
+        TicketDTO patched = new TicketDTO(1L, "Ticket", null, TicketStatus.OPEN, TicketPriority.HIGH, null, null);
+        when(ticketService.patch(1L, patch, 7L)).thenReturn(Optional.of(row));
+        when(ticketService.patch(2L, patch, null)).thenReturn(Optional.empty());
+        when(ticketMapper.toDTO(row)).thenReturn(patched);
+
+        ResponseEntity<TicketDTO> response = ticketController.patchTicket(1L, patch, "\"7\"");
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(patched, response.getBody());
+        assertEquals("\"8\"", response.getHeaders().getETag());
+        assertEquals(HttpStatus.NOT_FOUND, ticketController.patchTicket(2L, patch, null).getStatusCode());
+        verify(ticketService, never()).findById(any());
+    }
+
+    @Test
+    public void testPatchTicket_LostUpdate() {
+        TicketUpdateDTO patch = new TicketUpdateDTO();
+        patch.setPriority(TicketPriority.HIGH);
+        when(ticketService.patch(eq(1L), eq(patch), any()))
+                .thenThrow(new OptimisticLockingFailureException("changed"));
+
+        // with If-Match the client asked for a precondition, without it the concurrent write is a conflict
+        assertEquals(HttpStatus.PRECONDITION_FAILED,
+                ticketController.patchTicket(1L, patch, "\"7\"").getStatusCode());
+        assertEquals(HttpStatus.CONFLICT, ticketController.patchTicket(1L, patch, null).getStatusCode());
+        verify(ticketService).patch(1L, patch, 7L);
+        verify(ticketService).patch(1L, patch, null);
+        // a weak tag never matches a version
+        ticketController.patchTicket(1L, patch, "W/\"7\"");
+        verify(ticketService).patch(1L, patch, -1L);
+    }
+
+    @Test
+    public void testPatchUser_EncodesPasswordAndResolvesRole() {
+        Role role = new Role();
+        role.setId(2L);
+        role.setName("ADMIN");
+        when(roleRepository.findById(2L)).thenReturn(Optional.of(role));
+        when(passwordEncoder.encode("newSecret1")).thenReturn("encoded");
+        when(userService.patch(eq(1L), any(UserUpdateDTO.class), eq(role), isNull())).thenReturn(Optional.of(6L));
+
+        UserUpdateDTO patch = new UserUpdateDTO();
+        patch.setPassword("newSecret1");
+        patch.setRoleId(2L);
+        ResponseEntity<Void> response = adminUserController.patchUser(1L, patch, null);
+
+        assertEquals(HttpStatus.NO_CONTENT, response.getStatusCode());
+        assertEquals("\"6\"", response.getHeaders().getETag());
+        ArgumentCaptor<UserUpdateDTO> captor = ArgumentCaptor.forClass(UserUpdateDTO.class);
+        verify(userService).patch(eq(1L), captor.capture(), eq(role), isNull());
+        assertEquals("encoded", captor.getValue().getPassword());
+        verify(userService, never()).findById(any());
+    }
+
+    @Test
+    public void testPatchUser_NotFound() {
+        UserUpdateDTO patch = new UserUpdateDTO();
+        patch.setFirstname("Nobody");
+        patch.setPassword("  ");
+        when(userService.patch(eq(99L), any(UserUpdateDTO.class), isNull(), isNull())).thenReturn(Optional.empty());
+
+        assertEquals(HttpStatus.NOT_FOUND, adminUserController.patchUser(99L, patch, null).getStatusCode());
+        verify(userService).patch(eq(99L), argThat(dto -> dto.getPassword() == null), isNull(), isNull());
+        verifyNoInteractions(passwordEncoder);
+    }
+
+    @Test
+    public void testPatchUser_StaleIfMatch() {
+        UserUpdateDTO patch = new UserUpdateDTO();
+        patch.setFirstname("Late");
+        when(userService.patch(eq(1L), any(UserUpdateDTO.class), isNull(), eq(3L)))
+                .thenThrow(new OptimisticLockingFailureException("changed"));
+
+        assertEquals(HttpStatus.PRECONDITION_FAILED,
+                adminUserController.patchUser(1L, patch, "\"3\"").getStatusCode());
+    }
+
     // --- Edge Cases ---
     @Test
     public void testGetTicketById_ExceptionHandling() {
-        when(ticketService.findById(999L)).thenThrow(new RuntimeException("Ticket not found"));
+        when(ticketService.findRowById(999L)).thenThrow(new RuntimeException("Ticket not found"));
 
-        assertThrows(RuntimeException.class, () -> ticketController.getTicket(999L));
+        assertThrows(RuntimeException.class, () -> ticketController.getTicket(999L, null));
     }
 
     @SuppressWarnings("null")
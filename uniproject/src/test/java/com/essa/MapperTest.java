@@ -90,6 +90,17 @@ public class MapperTest {
         assertEquals(2L, dto.getAssignedToId());
     }
 
+    @Test
+    public void testTicketMapper_rowToDTO() {
+        TicketRowDTO row = new TicketRowDTO(1L, "Row Ticket", "Row Description", TicketStatus.OPEN,
+                TicketPriority.LOW, 1L, null, java.time.LocalDateTime.of(2024, 5, 1, 12, 0), 3L);
+
+        TicketDTO dto = ticketMapper.toDTO(row);
+
+        assertEquals(new TicketDTO(1L, "Row Ticket", "Row Description", TicketStatus.OPEN,
+                TicketPriority.LOW, 1L, null), dto);
+    }
+
     @Test
     public void testTicketMapper_toEntity() {
         TicketCreateDTO dto = new TicketCreateDTO();
@@ -166,4 +177,24 @@ public class MapperTest {
         assertEquals("WRITE_USERS", permission.getPermission());
         assertEquals("Can write users", permission.getDescription());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testUserToStatsDTO() {
+        Role role = new Role();
+        role.setId(2L);
+        User user = new User();
+        user.setId(5L);
+        user.setUsername("mapped");
+        user.setEmail("mapped@example.com");
+        user.setRole(role);
+
+        UserWithStatsDTO dto = userMapper.toStatsDTO(user, new UserTicketStatsDTO(5L, 4, 2, 1));
+
+        assertEquals(5L, dto.getId());
+        assertEquals("mapped", dto.getUsername());
+        assertEquals(2L, dto.getRoleId());
+        assertEquals(4, dto.getCreatedTickets());
+        assertEquals(2, dto.getAssignedTickets());
+        assertEquals(1, dto.getHighPriorityAssigned());
+    }
+}
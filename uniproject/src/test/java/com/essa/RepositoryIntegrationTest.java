@@ -1,25 +1,63 @@
 package com.essa;
 
+import com.essa.config.QueryStatsConfig;
+import com.essa.dto.TicketDTO;
+import com.essa.dto.TicketExportDTO;
+import com.essa.dto.TicketRowDTO;
+import com.essa.model.EmailOutboxMessage;
+import com.essa.model.EmailOutboxStatus;
 import com.essa.model.Role;
 import com.essa.model.User;
 import com.essa.model.Permission;
 import com.essa.model.Ticket;
 import com.essa.model.TicketPriority;
 import com.essa.model.TicketStatus;
+import com.essa.repository.EmailOutboxRepository;
 import com.essa.repository.RoleRepository;
 import com.essa.repository.UserRepository;
 import com.essa.repository.PermissionRepository;
 import com.essa.repository.TicketRepository;
+import com.essa.security.AuthorityEpoch;
+import com.essa.security.UserDetailsCache;
+import com.essa.security.JwtUtil;
+import com.essa.security.VerifiedToken;
+import com.essa.util.proxy.QueryPlanCheck;
+import com.essa.util.proxy.QueryStats;
+import com.essa.util.strategy.IdempotencyStore;
+import com.essa.util.strategy.JdbcCacheInvalidationBroadcaster;
+import com.essa.util.strategy.JdbcIdempotencyStore;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
+import javax.sql.DataSource;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 @DataJpaTest
+@Import(QueryStatsConfig.class)
 public class RepositoryIntegrationTest {
 
     @Autowired
@@ -30,6 +68,14 @@ public class RepositoryIntegrationTest {
     private PermissionRepository permissionRepository;
     @Autowired
     private TicketRepository ticketRepository;
+    @Autowired
+    private EmailOutboxRepository emailOutboxRepository;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private DataSource dataSource;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
 
     // --- RoleRepository ---
     @Test
@@ -203,4 +249,646 @@ public class RepositoryIntegrationTest {
         // Passes when tickets can be found by both creator and assignee.
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testKeysetPagesByIdWithFilter() {
+        for (int i = 0; i < 5; i++) {
+            Ticket ticket = new Ticket();
+            ticket.setTitle("Keyset " + i);
+            ticket.setStatus(i % 2 == 0 ? TicketStatus.OPEN : TicketStatus.CLOSED);
+            ticket.setPriority(TicketPriority.LOW);
+            ticketRepository.save(ticket);
+        }
+
+        List<TicketRowDTO> first = ticketRepository.findPageOrderById(0L, TicketStatus.OPEN, null, null, null,
+                PageRequest.of(0, 2));
+        List<TicketRowDTO> second = ticketRepository.findPageOrderById(first.get(1).getId(), TicketStatus.OPEN, null,
+                null, null, PageRequest.of(0, 2));
+
+        assertEquals(2, first.size());
+        assertTrue(first.get(0).getId() < first.get(1).getId());
+        assertFalse(second.isEmpty());
+        assertTrue(second.get(0).getId() > first.get(1).getId());
+        assertTrue(second.stream().allMatch(t -> t.getStatus() == TicketStatus.OPEN));
+
+        List<TicketRowDTO> newest = ticketRepository.findPageOrderByUpdatedAt(LocalDateTime.of(9999, 1, 1, 0, 0),
+                Long.MAX_VALUE, null, TicketPriority.LOW, null, null, PageRequest.of(0, 10));
+        assertEquals(5, newest.size());
+        // Passes when the second page continues strictly after the last id of the first page.
+    }
+
+    @Test
+    public void testFindCommittedStateIgnoresPendingChanges() {
+        Role role = new Role();
+        role.setName("STATE_ROLE");
+        roleRepository.save(role);
+
+        User assignee = new User();
+        assignee.setUsername("stateassignee");
+        assignee.setFirstname("State");
+        assignee.setEmail("stateassignee@example.com");
+        assignee.setPassword("password123");
+        assignee.setRole(role);
+        userRepository.save(assignee);
+
+        Ticket ticket = new Ticket();
+        ticket.setTitle("Committed title");
+        ticket.setStatus(TicketStatus.OPEN);
+        ticket.setPriority(TicketPriority.LOW);
+        ticket.setAssignedTo(assignee);
+        ticketRepository.saveAndFlush(ticket);
+
+        ticket.setTitle("Pending title");
+        ticket.setPriority(TicketPriority.CRITICAL);
+
+        TicketDTO state = ticketRepository.findCommittedStateById(ticket.getId()).orElseThrow();
+        assertEquals("Committed title", state.getTitle());
+        assertEquals(TicketPriority.LOW, state.getPriority());
+        assertEquals(assignee.getId(), state.getAssignedToId());
+        assertNull(state.getCreatedById());
+        // Passes when the projection reads the flushed row instead of auto-flushing the managed entity.
+    }
+
+    @Test
+    public void testCountAssignedPerUser() {
+        Role role = new Role();
+        role.setName("COUNT_ROLE");
+        roleRepository.save(role);
+
+        User assignee = new User();
+        assignee.setUsername("countassignee");
+        assignee.setFirstname("Count");
+        assignee.setEmail("countassignee@example.com");
+        assignee.setPassword("password123");
+        assignee.setRole(role);
+        userRepository.save(assignee);
+
+        for (TicketPriority priority : TicketPriority.values()) {
+            Ticket ticket = new Ticket();
+            ticket.setTitle("Count " + priority);
+            ticket.setStatus(TicketStatus.OPEN);
+            ticket.setPriority(priority);
+            ticket.setAssignedTo(assignee);
+            ticket.setCreatedBy(assignee);
+            ticketRepository.save(ticket);
+        }
+
+        TicketRepository.UserTicketCount assigned = ticketRepository.countAssignedPerUser().stream()
+                .filter(row -> row.getUserId().equals(assignee.getId()))
+                .findFirst().orElseThrow();
+        TicketRepository.UserTicketCount created = ticketRepository.countCreatedPerUser().stream()
+                .filter(row -> row.getUserId().equals(assignee.getId()))
+                .findFirst().orElseThrow();
+
+        assertEquals(4L, assigned.getTotal());
+        assertEquals(2L, assigned.getHighPriority());
+        assertEquals(4L, created.getTotal());
+        // Passes when one grouped query returns per-user totals and the HIGH/CRITICAL subset.
+    }
+
+    @Test
+    public void testBulkUpdateStatusTouchesOnlyListedTickets() {
+        Ticket first = new Ticket();
+        first.setTitle("Bulk one");
+        first.setStatus(TicketStatus.OPEN);
+        Ticket second = new Ticket();
+        second.setTitle("Bulk two");
+        second.setStatus(TicketStatus.OPEN);
+        Ticket untouched = new Ticket();
+        untouched.setTitle("Bulk untouched");
+        untouched.setStatus(TicketStatus.OPEN);
+        ticketRepository.saveAllAndFlush(List.of(first, second, untouched));
+
+        LocalDateTime now = LocalDateTime.now().plusMinutes(1);
+        int updated = ticketRepository.updateStatus(List.of(first.getId(), second.getId()), TicketStatus.CLOSED, now);
+
+        assertEquals(2, updated);
+        List<TicketDTO> states = ticketRepository.findCommittedStatesByIdIn(
+                List.of(first.getId(), second.getId(), untouched.getId()));
+        assertEquals(3, states.size());
+        for (TicketDTO state : states) {
+            TicketStatus expected = state.getId().equals(untouched.getId()) ? TicketStatus.OPEN : TicketStatus.CLOSED;
+            assertEquals(expected, state.getStatus());
+        }
+        assertEquals(now.withNano(0), ticketRepository.findById(first.getId()).orElseThrow().getUpdatedAt().withNano(0));
+        // Passes when a single UPDATE ... WHERE id IN changes exactly the listed rows and stamps updatedAt.
+    }
+
+    @Test
+    public void testTicketIdsAreReservedInBlocks() {
+        List<Ticket> tickets = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Ticket ticket = new Ticket();
+            ticket.setTitle("Pooled " + i);
+            ticket.setStatus(TicketStatus.OPEN);
+            tickets.add(ticket);
+        }
+        // reading the sequence reserves a block of its own, so one fetch by Hibernate moves it by 100
+        long before = ((Number) entityManager.createNativeQuery("SELECT NEXT VALUE FOR tickets_seq")
+                .getSingleResult()).longValue();
+
+        ticketRepository.saveAllAndFlush(tickets);
+
+        long after = ((Number) entityManager.createNativeQuery("SELECT NEXT VALUE FOR tickets_seq")
+                .getSingleResult()).longValue();
+        assertEquals(tickets.get(0).getId() + 1, tickets.get(1).getId());
+        assertEquals(tickets.get(1).getId() + 1, tickets.get(2).getId());
+        assertTrue(after - before <= 100);
+        assertTrue(tickets.get(2).getId() < after);
+        // Passes when ids come from one pooled block instead of a database round trip per insert.
+    }
+
+    @Test
+    public void testStreamForExportAppliesFiltersAndDateRange() {
+        Ticket open = new Ticket();
+        open.setTitle("Export open");
+        open.setStatus(TicketStatus.OPEN);
+        Ticket closed = new Ticket();
+        closed.setTitle("Export closed");
+        closed.setStatus(TicketStatus.CLOSED);
+        ticketRepository.saveAllAndFlush(List.of(open, closed));
+        LocalDateTime createdAt = ticketRepository.findById(open.getId()).orElseThrow().getCreatedAt();
+
+        try (Stream<TicketExportDTO> rows = ticketRepository.streamForExport(TicketStatus.OPEN, null, null, null,
+                createdAt, createdAt.plusSeconds(1))) {
+            List<TicketExportDTO> exported = rows.toList();
+            assertEquals(1, exported.size());
+            assertEquals("Export open", exported.get(0).getTitle());
+            assertEquals(createdAt, exported.get(0).getCreatedAt());
+        }
+        try (Stream<TicketExportDTO> rows = ticketRepository.streamForExport(null, null, null, null,
+                createdAt.plusDays(1), null)) {
+            assertEquals(0, rows.count());
+        }
+        // Passes when the streamed projection honours status and the half-open createdAt range.
+    }
+
+    @Test
+    public void testFindExistingUserIds() {
+        Role role = new Role();
+        role.setName("IMPORT_ROLE");
+        roleRepository.save(role);
+
+        User user = new User();
+        user.setUsername("importuser");
+        user.setFirstname("Import");
+        user.setEmail("import@example.com");
+        user.setPassword("password123");
+        user.setRole(role);
+        userRepository.save(user);
+
+        List<Long> existing = userRepository.findExistingIds(List.of(user.getId(), user.getId() + 1000));
+
+        assertEquals(List.of(user.getId()), existing);
+        // Passes when one IN query returns only the ids that exist.
+    }
+
+    @Test
+    public void testEmailOutbox_FindDueAndRecordOutcome() {
+        Role role = new Role();
+        role.setName("OUTBOX_ROLE");
+        roleRepository.save(role);
+
+        User user = new User();
+        user.setUsername("outboxuser");
+        user.setFirstname("Outbox");
+        user.setEmail("outbox@example.com");
+        user.setPassword("password123");
+        user.setRole(role);
+        userRepository.save(user);
+
+        LocalDateTime now = LocalDateTime.now();
+        EmailOutboxMessage due = emailOutboxRepository.save(new EmailOutboxMessage(user, 1L, "Due", now.minusMinutes(1)));
+        EmailOutboxMessage later = emailOutboxRepository.save(new EmailOutboxMessage(user, 2L, "Later", now.plusMinutes(1)));
+
+        List<EmailOutboxMessage> found = emailOutboxRepository.findDue(EmailOutboxStatus.PENDING, now, PageRequest.of(0, 10));
+        assertEquals(List.of(due.getId()), found.stream().map(EmailOutboxMessage::getId).toList());
+
+        emailOutboxRepository.markSent(List.of(due.getId()), now);
+        emailOutboxRepository.markFailedAttempt(List.of(later.getId()), EmailOutboxStatus.FAILED, now, "relay down");
+
+        EmailOutboxMessage sent = emailOutboxRepository.findById(due.getId()).orElseThrow();
+        assertEquals(EmailOutboxStatus.SENT, sent.getStatus());
+        assertEquals(1, sent.getAttempts());
+        EmailOutboxMessage failed = emailOutboxRepository.findById(later.getId()).orElseThrow();
+        assertEquals(EmailOutboxStatus.FAILED, failed.getStatus());
+        assertEquals("relay down", failed.getLastError());
+        assertEquals(0, emailOutboxRepository.countByStatus(EmailOutboxStatus.PENDING));
+        // Passes when only due rows are claimed and the bulk updates record each outcome.
+    }
+
+    @Test
+    public void testEmailOutbox_RetentionAndDeletedRecipient() {
+        Role role = new Role();
+        role.setName("RETENTION_ROLE");
+        roleRepository.save(role);
+
+        User user = new User();
+        user.setUsername("retentionuser");
+        user.setFirstname("Retention");
+        user.setEmail("retention@example.com");
+        user.setPassword("password123");
+        user.setRole(role);
+        userRepository.save(user);
+
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime old = now.minusDays(10);
+        EmailOutboxMessage oldSent = emailOutboxRepository.save(new EmailOutboxMessage(user, 1L, "Old sent", old));
+        EmailOutboxMessage oldFailed = emailOutboxRepository.save(new EmailOutboxMessage(user, 2L, "Old failed", old));
+        emailOutboxRepository.save(new EmailOutboxMessage(user, 3L, "Old pending", old));
+        EmailOutboxMessage newSent = emailOutboxRepository.save(new EmailOutboxMessage(user, 4L, "New sent", now));
+        emailOutboxRepository.markSent(List.of(oldSent.getId(), newSent.getId()), now);
+        emailOutboxRepository.markFailedAttempt(List.of(oldFailed.getId()), EmailOutboxStatus.FAILED, now, "gone");
+
+        assertEquals(2, emailOutboxRepository.deleteFinishedBefore(
+                List.of(EmailOutboxStatus.SENT, EmailOutboxStatus.FAILED), now.minusDays(7)));
+        assertEquals(2, emailOutboxRepository.count());
+
+        // the remaining rows would block the user's delete through the foreign key
+        assertEquals(2, emailOutboxRepository.deleteByRecipient(user.getId()));
+        userRepository.deleteById(user.getId());
+        entityManager.flush();
+        assertFalse(userRepository.existsById(user.getId()));
+        // Passes when finished rows past the retention are purged and a user with outbox rows can be deleted.
+    }
+
+    @Test
+    public void testBulkActiveFlagUpdate() {
+        Role role = new Role();
+        role.setName("ACTIVE_ROLE");
+        roleRepository.save(role);
+
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            User user = new User();
+            user.setUsername("active" + i);
+            user.setFirstname("Active");
+            user.setEmail("active" + i + "@example.com");
+            user.setPassword("password123");
+            user.setRole(role);
+            ids.add(userRepository.save(user).getId());
+        }
+        entityManager.flush();
+
+        List<UserRepository.UserActiveState> before = userRepository.lockActiveStates(ids);
+        assertEquals(ids, before.stream().map(UserRepository.UserActiveState::getId).toList());
+        assertTrue(before.stream().allMatch(UserRepository.UserActiveState::getActive));
+        assertEquals(2, userRepository.updateActive(ids.subList(0, 2), false, LocalDateTime.now()));
+        List<UserRepository.UserActiveState> after = userRepository.lockActiveStates(ids);
+        assertEquals(List.of(false, false, true), after.stream().map(UserRepository.UserActiveState::getActive).toList());
+        assertEquals(before.get(0).getVersion() + 1, after.get(0).getVersion());
+        assertEquals(before.get(2).getVersion(), after.get(2).getVersion());
+
+        // a full-entity save does not write the flag back
+        User stale = userRepository.findById(ids.get(0)).orElseThrow();
+        stale.setActive(true);
+        stale.setLastname("Changed");
+        userRepository.saveAndFlush(stale);
+        entityManager.clear();
+        assertFalse(userRepository.findById(ids.get(0)).orElseThrow().isActive());
+        // Passes when the active flag is only changed by the bulk update.
+    }
+
+    // --- Query budgets ---
+    @Test
+    public void testKeysetPageIsASingleStatement() {
+        User creator = userRepository.findByUsername("admin").orElse(null);
+        for (int i = 0; i < 5; i++) {
+            Ticket ticket = new Ticket();
+            ticket.setTitle("Budget " + i);
+            ticket.setPriority(TicketPriority.LOW);
+            ticket.setCreatedBy(creator);
+            ticketRepository.save(ticket);
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        QueryStats stats = QueryStats.begin();
+        List<TicketRowDTO> page;
+        try {
+            page = ticketRepository.findPageOrderById(0L, null, TicketPriority.LOW, null, null, PageRequest.of(0, 10));
+        } finally {
+            stats.end();
+        }
+
+        assertEquals(5, page.size());
+        assertEquals(1, stats.getStatementCount());
+        assertTrue(page.stream().allMatch(row -> Objects.equals(row.getCreatedById(),
+                creator != null ? creator.getId() : null)));
+        assertTrue(page.stream().allMatch(row -> row.getUpdatedAt() != null));
+        assertEquals(0, entityManager.unwrap(Session.class).getStatistics().getEntityCount());
+        // Passes when a page is read with one query straight into DTOs, leaving the persistence context empty.
+    }
+
+    @Test
+    public void testRepeatedLookupsAreReportedAsOneShape() {
+        Role role = new Role();
+        role.setName("SHAPE_ROLE");
+        roleRepository.save(role);
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            User user = new User();
+            user.setUsername("shape" + i);
+            user.setFirstname("Shape");
+            user.setEmail("shape" + i + "@example.com");
+            user.setPassword("password123");
+            user.setRole(role);
+            ids.add(userRepository.save(user).getId());
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        QueryStats stats = QueryStats.begin();
+        try {
+            ids.forEach(id -> userRepository.findById(id).orElseThrow());
+        } finally {
+            stats.end();
+        }
+
+        Map<String, Integer> repeated = stats.getRepeatedShapes(4);
+        assertEquals(1, repeated.size());
+        assertEquals(4, repeated.values().iterator().next());
+        assertTrue(stats.getStatementCount() >= 4);
+        // Passes when one lookup per id is reported as the same statement repeated (the N+1 pattern).
+    }
+
+    @Test
+    public void testPatchIsOneStatementAndKeepsOmittedColumns() {
+        Role adminRole = new Role();
+        adminRole.setName("PATCH_ROLE");
+        roleRepository.save(adminRole);
+        Role otherRole = new Role();
+        otherRole.setName("PATCH_OTHER_ROLE");
+        roleRepository.save(otherRole);
+        User admin = new User();
+        admin.setUsername("patchuser");
+        admin.setFirstname("Patch");
+        admin.setLastname("Original");
+        admin.setEmail("patch@example.com");
+        admin.setPassword("password123");
+        admin.setRole(adminRole);
+        userRepository.save(admin);
+        Ticket ticket = new Ticket();
+        ticket.setTitle("Patch me");
+        ticket.setDescription("Keep this");
+        ticket.setStatus(TicketStatus.OPEN);
+        ticket.setPriority(TicketPriority.LOW);
+        ticket.setAssignedTo(admin);
+        ticketRepository.save(ticket);
+        entityManager.flush();
+        entityManager.clear();
+
+        QueryStats stats = QueryStats.begin();
+        int tickets;
+        int users;
+        try {
+            tickets = ticketRepository.patch(ticket.getId(), 0L, null, null, TicketStatus.CLOSED, null, null,
+                    LocalDateTime.now());
+            users = userRepository.patch(admin.getId(), null, null, "Patched", null, null, null,
+                    LocalDateTime.now());
+        } finally {
+            stats.end();
+        }
+
+        assertEquals(1, tickets);
+        assertEquals(1, users);
+        assertEquals(2, stats.getStatementCount());
+        TicketDTO patched = ticketRepository.findCommittedStateById(ticket.getId()).orElseThrow();
+        assertEquals(new TicketDTO(ticket.getId(), "Patch me", "Keep this", TicketStatus.CLOSED, TicketPriority.LOW,
+                null, admin.getId()), patched);
+        User patchedAdmin = userRepository.findById(admin.getId()).orElseThrow();
+        assertEquals("Patched", patchedAdmin.getLastname());
+        assertEquals("patch@example.com", patchedAdmin.getEmail());
+        assertEquals(adminRole.getId(), patchedAdmin.getRole().getId());
+
+        assertEquals(1L, ticketRepository.findRowById(ticket.getId()).orElseThrow().getVersion());
+        assertEquals(1L, patchedAdmin.getVersion());
+
+        assertEquals(1, userRepository.patch(admin.getId(), 1L, null, null, null, null, otherRole.getId(),
+                LocalDateTime.now()));
+        assertEquals(otherRole.getId(), userRepository.findById(admin.getId()).orElseThrow().getRole().getId());
+        assertEquals(0, ticketRepository.patch(-1L, 0L, "Nope", null, null, null, null, LocalDateTime.now()));
+        // a version that is no longer current matches no row
+        assertEquals(0, ticketRepository.patch(ticket.getId(), 0L, "Late", null, null, null, null,
+                LocalDateTime.now()));
+        assertEquals(0, userRepository.patch(admin.getId(), 1L, "Late", null, null, null, null,
+                LocalDateTime.now()));
+        assertEquals(2L, userRepository.findVersionById(admin.getId()).orElseThrow());
+
+        // deletes are guarded the same way
+        assertEquals(0, ticketRepository.deleteByIdAndVersion(ticket.getId(), 0L));
+        assertEquals(1, ticketRepository.deleteByIdAndVersion(ticket.getId(), 1L));
+        assertFalse(ticketRepository.existsById(ticket.getId()));
+        assertEquals(0, userRepository.deleteByIdAndVersion(admin.getId(), 1L));
+        assertEquals(1, userRepository.deleteByIdAndVersion(admin.getId(), null));
+        assertEquals(Optional.empty(), userRepository.findVersionById(admin.getId()));
+        // Passes when a partial update writes only the given columns in one statement and reports missing rows as 0.
+    }
+
+    @Test
+    public void testStaleTicketVersionIsRejectedOnSave() {
+        Ticket ticket = new Ticket();
+        ticket.setTitle("Versioned");
+        ticket.setStatus(TicketStatus.OPEN);
+        ticket.setPriority(TicketPriority.LOW);
+        ticketRepository.save(ticket);
+        entityManager.flush();
+        entityManager.clear();
+
+        Ticket first = ticketRepository.findById(ticket.getId()).orElseThrow();
+        entityManager.clear();
+        Ticket second = ticketRepository.findById(ticket.getId()).orElseThrow();
+        entityManager.clear();
+        assertEquals(0L, first.getVersion());
+
+        first.setTitle("First writer");
+        ticketRepository.saveAndFlush(first);
+        entityManager.clear();
+        assertEquals(1L, ticketRepository.findRowById(ticket.getId()).orElseThrow().getVersion());
+
+        // the second copy still carries version 0, saving it would overwrite the first write
+        second.setTitle("Second writer");
+        assertThrows(OptimisticLockingFailureException.class, () -> ticketRepository.saveAndFlush(second));
+    }
+
+    @Test
+    public void testTicketQueriesAvoidFullTableScans() {
+        User creator = userRepository.findByUsername("admin").orElse(null);
+        for (int i = 0; i < 20; i++) {
+            Ticket ticket = new Ticket();
+            ticket.setTitle("Plan " + i);
+            ticket.setStatus(i % 2 == 0 ? TicketStatus.OPEN : TicketStatus.CLOSED);
+            ticket.setPriority(TicketPriority.values()[i % TicketPriority.values().length]);
+            ticket.setCreatedBy(creator);
+            ticket.setAssignedTo(creator);
+            ticketRepository.save(ticket);
+        }
+        entityManager.flush();
+
+        QueryPlanCheck check = new QueryPlanCheck(ticketRepository, userRepository, new JdbcTemplate(dataSource),
+                transactionManager);
+
+        assertEquals(List.of(), check.check());
+        // Passes when every checked ticket query is planned on an index (V6 migration) rather than a table scan.
+    }
+
+    // --- Second-level cache ---
+    // Without the test transaction: cache entries only become readable to transactions started after they were put
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void testUserLookupTakesRoleFromSecondLevelCache() {
+        User user = new User();
+        user.setUsername("cached");
+        user.setFirstname("Cached");
+        user.setEmail("cached@example.com");
+        user.setPassword("password123");
+        user.setRole(roleRepository.findByName("USER").orElseThrow());
+        user = userRepository.save(user);
+        try {
+            entityManager.getEntityManagerFactory().getCache().evictAll();
+
+            QueryStats cold = QueryStats.begin();
+            try {
+                userRepository.findByUsername("cached").orElseThrow();
+            } finally {
+                cold.end();
+            }
+            QueryStats warm = QueryStats.begin();
+            User loaded;
+            try {
+                loaded = userRepository.findByUsername("cached").orElseThrow();
+            } finally {
+                warm.end();
+            }
+
+            assertEquals("USER", loaded.getRole().getName());
+            assertTrue(cold.getStatementCount() > 1);
+            assertEquals(1, warm.getStatementCount());
+        } finally {
+            userRepository.delete(user);
+        }
+        // Passes when the role and its permissions come from the cache once they have been read.
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void testFindRoleByNameIsAnsweredFromQueryCache() {
+        roleRepository.findByName("ADMIN").orElseThrow();
+
+        QueryStats stats = QueryStats.begin();
+        Optional<Role> role;
+        try {
+            role = roleRepository.findByName("ADMIN");
+        } finally {
+            stats.end();
+        }
+
+        assertEquals("ADMIN", role.orElseThrow().getName());
+        assertEquals(0, stats.getStatementCount());
+        // Passes when a repeated lookup by name runs no SQL at all.
+    }
+
+    @Test
+    public void testJdbcBroadcasterReportsVersionChanges() {
+        JdbcCacheInvalidationBroadcaster broadcaster = new JdbcCacheInvalidationBroadcaster(new JdbcTemplate(dataSource));
+        List<String> invalidated = new ArrayList<>();
+        broadcaster.subscribe(invalidated::add);
+
+        broadcaster.poll();
+        assertTrue(invalidated.isEmpty());
+
+        broadcaster.publish("roles");
+        broadcaster.poll();
+        broadcaster.poll();
+        assertEquals(List.of("roles"), invalidated);
+        // Passes when a published change is delivered exactly once by the next poll.
+    }
+
+    @Test
+    public void testUserRevocationReachesTheOtherNodes() {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        JdbcCacheInvalidationBroadcaster broadcasterA = new JdbcCacheInvalidationBroadcaster(jdbcTemplate);
+        JdbcCacheInvalidationBroadcaster broadcasterB = new JdbcCacheInvalidationBroadcaster(jdbcTemplate);
+        AuthorityEpoch nodeA = new AuthorityEpoch(86_400_000L, jdbcTemplate, broadcasterA,
+                new UserDetailsCache(100, Duration.ofMinutes(5)));
+        AuthorityEpoch nodeB = new AuthorityEpoch(86_400_000L, jdbcTemplate, broadcasterB,
+                new UserDetailsCache(100, Duration.ofMinutes(5)));
+        Claims claims = Jwts.claims().setSubject("agent").setIssuedAt(new Date(System.currentTimeMillis() - 60_000));
+        claims.put(JwtUtil.USER_ID_CLAIM, 7L);
+        claims.put(JwtUtil.VERSION_CLAIM, 1L);
+        VerifiedToken token = new VerifiedToken(claims);
+        broadcasterB.poll();
+        assertTrue(nodeB.isCurrent(token, 1L));
+
+        nodeA.advanceUser(7L);
+        broadcasterB.poll();
+
+        assertFalse(nodeB.isCurrent(token, 1L));
+        // a node started later reads the watermark from the table
+        AuthorityEpoch restarted = new AuthorityEpoch(86_400_000L, jdbcTemplate,
+                new JdbcCacheInvalidationBroadcaster(jdbcTemplate), new UserDetailsCache(100, Duration.ofMinutes(5)));
+        restarted.loadWatermarks();
+        assertFalse(restarted.isCurrent(token, 1L));
+
+        // role/permission changes: the global watermark travels the same way
+        Claims otherClaims = Jwts.claims().setSubject("other")
+                .setIssuedAt(new Date(System.currentTimeMillis() - 60_000));
+        otherClaims.put(JwtUtil.USER_ID_CLAIM, 8L);
+        otherClaims.put(JwtUtil.VERSION_CLAIM, 1L);
+        VerifiedToken other = new VerifiedToken(otherClaims);
+        assertTrue(nodeB.isCurrent(other, 1L));
+        nodeA.advanceAll();
+        nodeA.advanceAll();
+        broadcasterB.poll();
+        assertFalse(nodeB.isCurrent(other, 1L));
+        AuthorityEpoch restartedAgain = new AuthorityEpoch(86_400_000L, jdbcTemplate,
+                new JdbcCacheInvalidationBroadcaster(jdbcTemplate), new UserDetailsCache(100, Duration.ofMinutes(5)));
+        restartedAgain.loadWatermarks();
+        assertFalse(restartedAgain.isCurrent(other, 1L));
+        // Passes when a user's token revoked on one node is rejected by another node and after a restart,
+        // and the same holds for a role/permission change.
+    }
+
+    @Test
+    public void testJdbcIdempotencyStoreClaimsOnceAndKeepsTheResponse() throws InterruptedException {
+        JdbcIdempotencyStore store = new JdbcIdempotencyStore(new JdbcTemplate(dataSource));
+        IdempotencyStore.StoredResponse created = new IdempotencyStore.StoredResponse(201, "application/json",
+                Map.of("ETag", "\"0\"", "Location", "/tickets/1"), "{\"id\":1}".getBytes(StandardCharsets.UTF_8));
+        IdempotencyStore.Key k1 = new IdempotencyStore.Key("agent", "k1");
+        IdempotencyStore.Key k2 = new IdempotencyStore.Key("agent", "k2");
+        IdempotencyStore.Key k3 = new IdempotencyStore.Key("agent", "k3");
+
+        assertNull(store.claim(k1, "f1", "t1", Duration.ofMinutes(1)));
+        IdempotencyStore.Entry running = store.claim(k1, "f1", "t1b", Duration.ofMinutes(1));
+        assertEquals("f1", running.fingerprint());
+        assertFalse(running.isCompleted());
+        assertFalse(store.await(k1, Duration.ofMillis(60)).isCompleted());
+
+        // only the request holding the claim completes or releases it
+        store.complete(k1, "t1b", created, Duration.ofHours(1));
+        store.release(k1, "t1b");
+        assertFalse(store.await(k1, Duration.ZERO).isCompleted());
+        store.complete(k1, "t1", created, Duration.ofHours(1));
+        store.release(k1, "t1");
+        IdempotencyStore.Entry done = store.await(k1, Duration.ofSeconds(1));
+        assertEquals(201, done.response().status());
+        assertEquals("application/json", done.response().contentType());
+        assertEquals(Map.of("ETag", "\"0\"", "Location", "/tickets/1"), done.response().headers());
+        assertEquals("{\"id\":1}", new String(done.response().body(), StandardCharsets.UTF_8));
+        assertTrue(store.claim(k1, "f1", "t1c", Duration.ofMinutes(1)).isCompleted());
+
+        // a released claim can be taken again, an expired one is taken over
+        assertNull(store.claim(k2, "f2", "t2", Duration.ofMinutes(1)));
+        store.release(k2, "t2");
+        assertNull(store.await(k2, Duration.ofSeconds(1)));
+        assertNull(store.claim(k2, "f2", "t2b", Duration.ofMinutes(1)));
+        assertNull(store.claim(k3, "f3", "t3", Duration.ZERO));
+        assertNull(store.claim(k3, "f3", "t3b", Duration.ofMinutes(1)));
+        // the expired claim's late response does not land on its successor
+        store.complete(k3, "t3", created, Duration.ofHours(1));
+        assertFalse(store.await(k3, Duration.ZERO).isCompleted());
+
+        store.complete(k2, "t2b", created, Duration.ZERO);
+        assertEquals(1, store.purgeExpired());
+        // Passes when a key is claimed by one request only and its response outlives release until it expires.
+    }
+}
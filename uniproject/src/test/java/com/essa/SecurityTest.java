@@ -1,14 +1,25 @@
 package com.essa;
 
+import com.essa.security.AuthorityEpoch;
 import com.essa.security.CustomUserDetailsService;
 import com.essa.security.JwtFilter;
 import com.essa.security.JwtUtil;
+import com.essa.security.MetricsScrapeMatcher;
+import com.essa.security.UserDetailsCache;
+import com.essa.security.VerifiedToken;
 import com.essa.model.Role;
 import com.essa.model.User;
 import com.essa.model.Permission;
 import com.essa.repository.UserRepository;
+import com.essa.util.strategy.CacheInvalidationBroadcaster;
+import com.essa.util.strategy.LocalCacheInvalidationBroadcaster;
+import io.jsonwebtoken.Jwts;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.mock.web.MockFilterChain;
 import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.mock.web.MockHttpServletResponse;
@@ -16,8 +27,15 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -25,16 +43,23 @@ import static org.mockito.Mockito.*;
 public class SecurityTest {
 
     private UserRepository userRepository;
+    private UserDetailsCache userDetailsCache;
     private CustomUserDetailsService userDetailsService;
     private JwtUtil jwtUtil;
     private JwtFilter jwtFilter;
+    private AuthorityEpoch authorityEpoch;
+    private MeterRegistry meterRegistry;
 
     @BeforeEach
     public void setUp() {
         userRepository = mock(UserRepository.class);
-        userDetailsService = new CustomUserDetailsService(userRepository);
+        userDetailsCache = new UserDetailsCache(100, Duration.ofMinutes(5));
+        userDetailsService = new CustomUserDetailsService(userRepository, userDetailsCache);
         jwtUtil = mock(JwtUtil.class);
-        jwtFilter = new JwtFilter(jwtUtil, userDetailsService);
+        authorityEpoch = new AuthorityEpoch(86_400_000L, mock(JdbcTemplate.class),
+                new LocalCacheInvalidationBroadcaster(), userDetailsCache);
+        meterRegistry = new SimpleMeterRegistry();
+        jwtFilter = new JwtFilter(jwtUtil, userDetailsService, authorityEpoch, meterRegistry);
         
         SecurityContextHolder.clearContext();
     }
@@ -119,6 +144,20 @@ public class SecurityTest {
         assertTrue(userDetails.getAuthorities().isEmpty());
     }
 
+    @Test
+    public void testCustomUserDetailsService_InactiveUserIsDisabled() {
+        User user = new User();
+        user.setId(4L);
+        user.setUsername("inactive");
+        user.setPassword("password");
+        user.setActive(false);
+        when(userRepository.findByUsername("inactive")).thenReturn(Optional.of(user));
+
+        UserDetails userDetails = userDetailsService.loadUserByUsername("inactive");
+
+        assertFalse(userDetails.isEnabled());
+    }
+
     
     @Test
     public void testJwtFilter_Integration_NoAuthHeader() throws Exception {
@@ -145,12 +184,14 @@ public class SecurityTest {
         request.setContextPath("/api");
         request.addHeader("Authorization", "Bearer invalid-jwt-token");
 
-        when(jwtUtil.extractUsername("invalid-jwt-token")).thenThrow(new RuntimeException("Invalid token"));
+        when(jwtUtil.verify("invalid-jwt-token")).thenThrow(new io.jsonwebtoken.MalformedJwtException("Invalid token"));
 
         jwtFilter.doFilter(request, response, filterChain);
 
         assertNull(SecurityContextHolder.getContext().getAuthentication());
         assertTrue(filterChain.getRequest() != null);
+        assertEquals(1, meterRegistry.get("auth.jwt.validation").tag("outcome", "invalid").timer().count());
+        assertEquals(0, meterRegistry.get("auth.jwt.validation").tag("outcome", "valid").timer().count());
     }
 
     @Test
@@ -223,7 +264,207 @@ public class SecurityTest {
     @Test
     public void testJwtFilter_Constructor() {
         assertNotNull(jwtFilter);
-        JwtFilter newFilter = new JwtFilter(jwtUtil, userDetailsService);
+        JwtFilter newFilter = new JwtFilter(jwtUtil, userDetailsService, authorityEpoch, meterRegistry);
         assertNotNull(newFilter);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testUserDetailsCache_SecondLoadIsServedFromCache() {
+        Role role = new Role();
+        role.setName("USER");
+        User user = new User();
+        user.setId(5L);
+        user.setUsername("cached");
+        user.setPassword("hash");
+        user.setRole(role);
+        when(userRepository.findByUsername("cached")).thenReturn(Optional.of(user));
+
+        UserDetails first = userDetailsService.loadUserByUsername("cached");
+        UserDetails second = userDetailsService.loadUserByUsername("cached");
+
+        verify(userRepository, times(1)).findByUsername("cached");
+        assertNotSame(first, second); // credentials erasure on one copy must not leak into the cache
+        assertEquals("hash", second.getPassword());
+        userDetailsCache.bindTo(meterRegistry);
+        assertEquals(1, meterRegistry.get("cache.gets").tags("cache", UserDetailsCache.NAME, "result", "hit")
+                .functionCounter().count());
+        assertEquals(1, meterRegistry.get("cache.gets").tags("cache", UserDetailsCache.NAME, "result", "miss")
+                .functionCounter().count());
+    }
+
+    @Test
+    public void testUserDetailsCache_EvictionForcesReload() {
+        User user = new User();
+        user.setId(6L);
+        user.setUsername("evicted");
+        user.setPassword("hash");
+        when(userRepository.findByUsername("evicted")).thenReturn(Optional.of(user));
+
+        userDetailsService.loadUserByUsername("evicted");
+        userDetailsCache.evictUserId(6L);
+        userDetailsService.loadUserByUsername("evicted");
+        userDetailsCache.evict("evicted");
+        userDetailsService.loadUserByUsername("evicted");
+        userDetailsCache.invalidateAll();
+        userDetailsService.loadUserByUsername("evicted");
+
+        verify(userRepository, times(4)).findByUsername("evicted");
+    }
+
+    @Test
+    public void testUserDetailsCache_EvictedWhenAnotherNodeRevokesTheUser() throws Exception {
+        User user = new User();
+        user.setId(6L);
+        user.setUsername("elsewhere");
+        user.setPassword("hash");
+        when(userRepository.findByUsername("elsewhere")).thenReturn(Optional.of(user));
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        ResultSet row = mock(ResultSet.class);
+        when(row.getLong("user_id")).thenReturn(6L);
+        when(row.getLong("not_before")).thenReturn(System.currentTimeMillis() / 1000);
+        doAnswer(invocation -> {
+            invocation.<RowCallbackHandler>getArgument(1).processRow(row);
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class), any(Object[].class));
+        List<Consumer<String>> handlers = new ArrayList<>();
+        new AuthorityEpoch(86_400_000L, jdbcTemplate, new CacheInvalidationBroadcaster() {
+            @Override
+            public void publish(String cache) {
+            }
+
+            @Override
+            public void subscribe(Consumer<String> handler) {
+                handlers.add(handler);
+            }
+        }, userDetailsCache);
+
+        userDetailsService.loadUserByUsername("elsewhere");
+        handlers.forEach(handler -> handler.accept(AuthorityEpoch.USER_TOKENS));
+        userDetailsService.loadUserByUsername("elsewhere");
+        // the same watermark seen again does not evict a second time
+        handlers.forEach(handler -> handler.accept(AuthorityEpoch.USER_TOKENS));
+        userDetailsService.loadUserByUsername("elsewhere");
+
+        verify(userRepository, times(2)).findByUsername("elsewhere");
+    }
+
+    @Test
+    public void testUserDetailsCache_MissingUserIsNotCached() {
+        when(userRepository.findByUsername("ghost")).thenReturn(Optional.empty());
+
+        assertThrows(UsernameNotFoundException.class, () -> userDetailsService.loadUserByUsername("ghost"));
+        assertThrows(UsernameNotFoundException.class, () -> userDetailsService.loadUserByUsername("ghost"));
+
+        verify(userRepository, times(2)).findByUsername("ghost");
+        assertEquals(0, userDetailsCache.size());
+    }
+
+    @Test
+    public void testJwtFilter_ValidToken_ParsesOnceAndAuthenticates() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain filterChain = new MockFilterChain();
+
+        request.setRequestURI("/api/tickets");
+        request.setContextPath("/api");
+        request.addHeader("Authorization", "Bearer good-token");
+
+        Role role = new Role();
+        role.setName("USER");
+        User user = new User();
+        user.setId(7L);
+        user.setUsername("agent");
+        user.setPassword("hash");
+        user.setRole(role);
+        when(userRepository.findByUsername("agent")).thenReturn(Optional.of(user));
+        when(jwtUtil.verify("good-token")).thenReturn(new VerifiedToken(Jwts.claims().setSubject("agent")));
+
+        jwtFilter.doFilter(request, response, filterChain);
+
+        assertNotNull(SecurityContextHolder.getContext().getAuthentication());
+        assertEquals("agent", SecurityContextHolder.getContext().getAuthentication().getName());
+        verify(jwtUtil, times(1)).verify("good-token");
+        verify(jwtUtil, never()).extractUsername(anyString());
+    }
+
+    private MockHttpServletRequest bearerRequest(String token) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setRequestURI("/api/tickets");
+        request.setContextPath("/api");
+        request.addHeader("Authorization", "Bearer " + token);
+        return request;
+    }
+
+    private VerifiedToken statelessToken(long version, long issuedAtMillis) {
+        var claims = Jwts.claims()
+                .setSubject("agent")
+                .setIssuedAt(new java.util.Date(issuedAtMillis));
+        claims.put(JwtUtil.USER_ID_CLAIM, 7L);
+        claims.put(JwtUtil.AUTHORITIES_CLAIM, "ROLE_ADMIN,READ_USERS");
+        claims.put(JwtUtil.VERSION_CLAIM, version);
+        return new VerifiedToken(claims);
+    }
+
+    @Test
+    public void testJwtFilter_StatelessToken_NoDatabaseAccess() throws Exception {
+        when(jwtUtil.isStatelessAuthorities()).thenReturn(true);
+        when(jwtUtil.getAuthorityVersion()).thenReturn(1L);
+        when(jwtUtil.verify("stateless")).thenReturn(statelessToken(1L, System.currentTimeMillis()));
+
+        jwtFilter.doFilter(bearerRequest("stateless"), new MockHttpServletResponse(), new MockFilterChain());
+
+        var authentication = SecurityContextHolder.getContext().getAuthentication();
+        assertNotNull(authentication);
+        assertEquals("agent", authentication.getName());
+        assertTrue(authentication.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN")));
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    public void testJwtFilter_StatelessToken_OldVersionRejected() throws Exception {
+        when(jwtUtil.isStatelessAuthorities()).thenReturn(true);
+        when(jwtUtil.getAuthorityVersion()).thenReturn(2L);
+        when(jwtUtil.verify("old")).thenReturn(statelessToken(1L, System.currentTimeMillis()));
+
+        jwtFilter.doFilter(bearerRequest("old"), new MockHttpServletResponse(), new MockFilterChain());
+
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    public void testJwtFilter_StatelessToken_IssuedBeforeUserChangeRejected() throws Exception {
+        when(jwtUtil.isStatelessAuthorities()).thenReturn(true);
+        when(jwtUtil.getAuthorityVersion()).thenReturn(1L);
+        when(jwtUtil.verify("before-change")).thenReturn(statelessToken(1L, System.currentTimeMillis() - 60_000));
+
+        authorityEpoch.advanceUser(7L);
+        jwtFilter.doFilter(bearerRequest("before-change"), new MockHttpServletResponse(), new MockFilterChain());
+
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+    }
+
+    @Test
+    public void testMetricsScrapeMatcher_OnlyTheConfiguredCredentialOnPrometheus() {
+        MetricsScrapeMatcher matcher = new MetricsScrapeMatcher("prometheus", "scrape-secret");
+        String credential = "Basic " + Base64.getEncoder()
+                .encodeToString("prometheus:scrape-secret".getBytes(StandardCharsets.UTF_8));
+
+        assertTrue(matcher.matches(scrapeRequest("/api/actuator/prometheus", credential)));
+        assertFalse(matcher.matches(scrapeRequest("/api/actuator/prometheus", null)));
+        assertFalse(matcher.matches(scrapeRequest("/api/actuator/prometheus", credential + "x")));
+        assertFalse(matcher.matches(scrapeRequest("/api/actuator/metrics", credential)));
+        // no password configured: the endpoint is left to the ADMIN rule
+        assertFalse(new MetricsScrapeMatcher("prometheus", "")
+                .matches(scrapeRequest("/api/actuator/prometheus", "Basic cHJvbWV0aGV1czo=")));
+    }
+
+    private static MockHttpServletRequest scrapeRequest(String uri, String authorization) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", uri);
+        request.setContextPath("/api");
+        if (authorization != null) {
+            request.addHeader("Authorization", authorization);
+        }
+        return request;
+    }
+}